@@ -0,0 +1,59 @@
+package org.axelgutierrez.piapoo2025.benchmark;
+
+import org.axelgutierrez.piapoo2025.dto.ValidacionReserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ReservaRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas de conflicto de fechas contra H2 con flotas de distintos tamaños (10 reservas por vehiculo).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConsultasConflictoBenchmark {
+    private static final int RESERVAS_POR_VEHICULO = 10;
+
+    @Param({"100", "10000", "100000"})
+    public int vehiculos;
+
+    private ConfigurableApplicationContext contexto;
+    private ReservaRepository reservaRepository;
+    private VehiculoRepository vehiculoRepository;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("benchmark_conflictos_" + vehiculos);
+        ContextoBenchmark.cargarFlota(contexto.getBean(JdbcTemplate.class), vehiculos, RESERVAS_POR_VEHICULO);
+        reservaRepository = contexto.getBean(ReservaRepository.class);
+        vehiculoRepository = contexto.getBean(VehiculoRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Optional<ValidacionReserva> validarReserva() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate inicio = ContextoBenchmark.INICIO.plusDays(random.nextInt(100));
+        return reservaRepository.validarReserva((long) (1 + random.nextInt(vehiculos)), 1L, inicio, inicio.plusDays(3), null);
+    }
+
+    @Benchmark
+    public List<Vehiculo> buscarDisponibles() {
+        LocalDate inicio = ContextoBenchmark.INICIO.plusDays(ThreadLocalRandom.current().nextInt(100));
+        return vehiculoRepository.buscarDisponibles(Vehiculo.ESTADO_DISPONIBLE, inicio, inicio.plusDays(3), 800.0, 0L, Limit.of(51));
+    }
+}
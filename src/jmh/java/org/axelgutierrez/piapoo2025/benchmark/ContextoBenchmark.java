@@ -0,0 +1,125 @@
+package org.axelgutierrez.piapoo2025.benchmark;
+
+import org.axelgutierrez.piapoo2025.Piapoo2025Application;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Direccion;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Utilidades compartidas por los benchmarks: levantar la aplicación sobre una base H2 propia y cargar datos de prueba.
+ */
+public final class ContextoBenchmark {
+    public static final LocalDate INICIO = LocalDate.of(2025, 1, 1);
+
+    private ContextoBenchmark() {
+    }
+
+    /**
+     * Levanta la aplicación sin servidor web sobre una base de datos H2 en memoria (modo MySQL) con el nombre dado.
+     * Las migraciones de Flyway crean el esquema igual que en producción.
+     */
+    public static ConfigurableApplicationContext iniciar(String baseDeDatos) {
+        //se pasan como argumentos de linea de comandos para que tengan prioridad sobre application.properties
+        return new SpringApplicationBuilder(Piapoo2025Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + baseDeDatos + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--bandeja-salida.directorio=target/bandeja-salida-" + baseDeDatos,
+                        "--registro-eventos.directorio=target/registro-eventos-" + baseDeDatos,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * Inserta con JDBC una flota de vehiculos, un cliente por cada 10 vehiculos y reservasPorVehiculo reservas
+     * sin solaparse para cada vehiculo, a partir de INICIO.
+     */
+    public static void cargarFlota(JdbcTemplate jdbc, int vehiculos, int reservasPorVehiculo) {
+        Random random = new Random(42);
+        int clientes = Math.max(1, vehiculos / 10);
+        List<Object[]> filas = new ArrayList<>();
+        for (int id = 1; id <= vehiculos; id++) {
+            filas.add(new Object[]{id, id % 10 == 0 ? "EN MANTENIMIENTO" : "DISPONIBLE", 300.0 + random.nextInt(1200)});
+        }
+        jdbc.batchUpdate("INSERT INTO vehiculo (id, marca, placa, modelo, color, estado, precio_por_dia) VALUES (?, 'Nissan', 'ABC-123', 'Versa', 'Blanco', ?, ?)", filas);
+
+        filas.clear();
+        for (int id = 1; id <= clientes; id++) {
+            filas.add(new Object[]{id});
+        }
+        jdbc.batchUpdate("INSERT INTO direccion (id, calle, num_casa, colonia, municipio, estado, codigo_postal) VALUES (?, 'Av. Universidad', 100, 'Centro', 'Monterrey', 'Nuevo Leon', 64000)", filas);
+        //cada cliente con la direccion del mismo id
+        jdbc.batchUpdate("INSERT INTO cliente (id, nombre, apellidos, email, telefono, direccion_id) SELECT d.id, 'Axel', 'Gutierrez', 'axel@mail.com', '1234567890', d.id FROM direccion d WHERE d.id = ?", filas);
+
+        long reservaId = 1_000_000_000L; //lejos de los ids que entrega el generador de Reserva
+        filas.clear();
+        for (int vehiculo = 1; vehiculo <= vehiculos; vehiculo++) {
+            LocalDate inicio = INICIO;
+            for (int i = 0; i < reservasPorVehiculo; i++) {
+                LocalDate fin = inicio.plusDays(1 + random.nextInt(5));
+                filas.add(new Object[]{reservaId++, Date.valueOf(inicio), Date.valueOf(fin), 1 + random.nextInt(clientes), vehiculo});
+                inicio = fin.plusDays(1 + random.nextInt(10));
+            }
+            if (filas.size() >= 10_000) {
+                insertarReservas(jdbc, filas);
+                filas.clear();
+            }
+        }
+        insertarReservas(jdbc, filas);
+    }
+
+    private static void insertarReservas(JdbcTemplate jdbc, List<Object[]> filas) {
+        jdbc.batchUpdate("INSERT INTO reserva (id, fecha_inicio, fecha_fin, precio_total, cliente_id, vehiculo_id) VALUES (?, ?, ?, 1000, ?, ?)", filas);
+    }
+
+    /**
+     * Una reserva con su cliente, dirección y vehiculo completos, como la regresa la API.
+     */
+    public static Reserva reservaCompleta() {
+        Direccion direccion = new Direccion();
+        direccion.setId(1L);
+        direccion.setCalle("Av. Universidad");
+        direccion.setNumCasa(100);
+        direccion.setColonia("Centro");
+        direccion.setMunicipio("Monterrey");
+        direccion.setEstado("Nuevo León");
+        direccion.setCodigoPostal(64000);
+
+        Cliente cliente = new Cliente();
+        cliente.setId(1L);
+        cliente.setNombre("Axel");
+        cliente.setApellidos("Gutiérrez");
+        cliente.setEmail("axel@mail.com");
+        cliente.setTelefono("1234567890");
+        cliente.setDireccion(direccion);
+
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(1L);
+        vehiculo.setMarca("Nissan");
+        vehiculo.setModelo("Versa");
+        vehiculo.setPlaca("ABC-123");
+        vehiculo.setColor("Blanco");
+        vehiculo.setEstado("DISPONIBLE");
+        vehiculo.setPrecioPorDia(500.0);
+
+        Reserva reserva = new Reserva();
+        reserva.setId(1L);
+        reserva.setCliente(cliente);
+        reserva.setVehiculo(vehiculo);
+        reserva.setFechaInicio(INICIO);
+        reserva.setFechaFin(INICIO.plusDays(4));
+        reserva.setPrecioTotal(2500.0);
+        return reserva;
+    }
+}
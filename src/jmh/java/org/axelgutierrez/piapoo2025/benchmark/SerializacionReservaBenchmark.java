@@ -0,0 +1,80 @@
+package org.axelgutierrez.piapoo2025.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.ReservaResumen;
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización a JSON de las respuestas más grandes, con la misma configuración de Jackson que usa Spring,
+ * con reflexión (la de Jackson por defecto) y con Blackbird (ver ConfiguracionJson).
+ * <br>
+ * Para ver también la memoria que se reserva por respuesta (gc.alloc.rate.norm, en bytes por operación):
+ * mvn -B -Pbenchmark verify -Djmh.args="SerializacionReservaBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializacionReservaBenchmark {
+    //una pagina del tamaño por defecto de los listados
+    private static final int ELEMENTOS_POR_PAGINA = PaginaCursor.LIMITE_POR_DEFECTO;
+
+    @Param({"reflexion", "blackbird"})
+    public String serializador;
+
+    private ObjectMapper objectMapper;
+    private Reserva reserva;
+    private Vehiculo vehiculo;
+    private PaginaCursor<ReservaResumen> paginaReservas;
+    private List<VehiculoResumen> vehiculos;
+
+    @Setup
+    public void preparar() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (serializador.equals("blackbird")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+        reserva = ContextoBenchmark.reservaCompleta();
+        vehiculo = reserva.getVehiculo();
+
+        List<ReservaResumen> resumenes = new ArrayList<>();
+        vehiculos = new ArrayList<>();
+        for (int i = 1; i <= ELEMENTOS_POR_PAGINA; i++) {
+            LocalDate inicio = LocalDate.of(2025, 1, 1).plusDays(i);
+            resumenes.add(new ReservaResumen(i, inicio, inicio.plusDays(3), 1500.0, i, "Axel", "Gutiérrez", i, "Nissan", "Versa"));
+            vehiculos.add(new VehiculoResumen(i, "Nissan", "Versa", "DISPONIBLE", 500.0 + i));
+        }
+        paginaReservas = new PaginaCursor<>(resumenes, (long) ELEMENTOS_POR_PAGINA);
+    }
+
+    @Benchmark
+    public byte[] serializarReserva() throws Exception {
+        return objectMapper.writeValueAsBytes(reserva);
+    }
+
+    @Benchmark
+    public byte[] serializarVehiculo() throws Exception {
+        return objectMapper.writeValueAsBytes(vehiculo);
+    }
+
+    @Benchmark
+    public byte[] serializarPaginaDeReservas() throws Exception {
+        return objectMapper.writeValueAsBytes(paginaReservas);
+    }
+
+    @Benchmark
+    public byte[] serializarListaDeVehiculos() throws Exception {
+        return objectMapper.writeValueAsBytes(vehiculos);
+    }
+}
@@ -0,0 +1,69 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.config.PropiedadesRegistroEventos;
+import org.axelgutierrez.piapoo2025.dto.EventoAuditoria;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eventos por segundo que aguanta RegistroEventos: registrar uno por uno (con 1 y con 4 hilos) y leer páginas de 500.
+ * <br>
+ * El registro se escribe en un directorio temporal con segmentos de 64MB, así también se mide la rotación.
+ * mvn -B -Pbenchmark verify -Djmh.args="RegistroEventosBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RegistroEventosBenchmark {
+    private static final LocalDate INICIO = LocalDate.of(2025, 6, 1);
+
+    private Path directorio;
+    private RegistroEventos registroEventos;
+    private EventoAuditoria creada;
+    private long siguienteLectura = 1;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        directorio = Files.createTempDirectory("registro-eventos-benchmark");
+        registroEventos = new RegistroEventos(new PropiedadesRegistroEventos(directorio, DataSize.ofMegabytes(64), Duration.ofSeconds(1)));
+        registroEventos.abrir();
+        creada = EventoAuditoria.reservaCreada(1, 10, 20, INICIO, INICIO.plusDays(2), 1500.0);
+        for (int i = 0; i < 100_000; i++) {
+            registroEventos.registrar(creada); //eventos para leer
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        registroEventos.cerrar();
+        try (var archivos = Files.walk(directorio)) {
+            archivos.sorted((a, b) -> b.compareTo(a)).forEach(archivo -> archivo.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void registrar() {
+        registroEventos.registrar(creada);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void registrarConcurrente() {
+        registroEventos.registrar(creada);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(500)
+    public List<EventoAuditoria> leerPagina() {
+        List<EventoAuditoria> pagina = registroEventos.leer(siguienteLectura, 500);
+        siguienteLectura = pagina.size() < 500 ? 1 : pagina.getLast().secuencia() + 1; //al llegar al final vuelve a empezar
+        return pagina;
+    }
+}
@@ -0,0 +1,98 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.benchmark.ContextoBenchmark;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino de las reservas: guardar sin conflicto, guardar con conflicto (rechazada), actualizar y el calculo del precio.
+ * <br>
+ * Se usa una flota de 1000 vehiculos sin reservas previas; guardarSinConflicto va llenando fechas nuevas de cada vehiculo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReservaServiceBenchmark {
+    private static final int VEHICULOS = 1000;
+    private static final int DISPONIBLES = 900; //cargarFlota deja en mantenimiento los ids multiplos de 10
+
+    private ConfigurableApplicationContext contexto;
+    private ReservaService reservaService;
+    private MotorTarifas motorTarifas;
+    private Reserva ocupada;
+    private long siguiente;
+    private boolean alternar;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        contexto = ContextoBenchmark.iniciar("benchmark_reservas");
+        ContextoBenchmark.cargarFlota(contexto.getBean(JdbcTemplate.class), VEHICULOS, 0);
+        reservaService = contexto.getBean(ReservaService.class);
+        motorTarifas = contexto.getBean(MotorTarifas.class);
+        //una reserva fija que usan guardarConConflicto y actualizar (en el vehiculo 1, lejos de las demas fechas)
+        ocupada = reservaService.guardar(reserva(1, LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 5)));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Reserva guardarSinConflicto() throws Exception {
+        long i = siguiente++;
+        //recorre solo los vehiculos disponibles (salta los multiplos de 10) y cada vuelta avanza 3 dias, así nunca choca
+        int lugar = (int) (i % DISPONIBLES);
+        LocalDate inicio = ContextoBenchmark.INICIO.plusDays((i / DISPONIBLES) * 3);
+        return reservaService.guardar(reserva(lugar + lugar / 9 + 1, inicio, inicio.plusDays(1)));
+    }
+
+    @Benchmark
+    public String guardarConConflicto() throws Exception {
+        try {
+            reservaService.guardar(reserva(1, ocupada.getFechaInicio(), ocupada.getFechaFin()));
+            throw new IllegalStateException("La reserva debio rechazarse");
+        } catch (ReservaInvalidaException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public Reserva actualizar() throws Exception {
+        alternar = !alternar;
+        Reserva cambios = new Reserva();
+        cambios.setFechaFin(LocalDate.of(2000, 1, alternar ? 6 : 5)); //mueve la fecha de fin un dia y la regresa
+        return reservaService.actualizar(ocupada.getId(), cambios, null);
+    }
+
+    @Benchmark
+    public double calcularPrecioTotal() throws Exception {
+        return motorTarifas.precioTotal(500.0, ContextoBenchmark.INICIO, ContextoBenchmark.INICIO.plusDays(6));
+    }
+
+    @Benchmark
+    public double calcularPrecioTotalUnAnio() throws Exception {
+        return motorTarifas.precioTotal(500.0, ContextoBenchmark.INICIO, ContextoBenchmark.INICIO.plusDays(364)); //cuesta lo mismo que una semana
+    }
+
+    private Reserva reserva(int vehiculoId, LocalDate inicio, LocalDate fin) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(vehiculoId);
+        Cliente cliente = new Cliente();
+        cliente.setId(1L);
+        Reserva reserva = new Reserva();
+        reserva.setVehiculo(vehiculo);
+        reserva.setCliente(cliente);
+        reserva.setFechaInicio(inicio);
+        reserva.setFechaFin(fin);
+        return reserva;
+    }
+}
@@ -0,0 +1,82 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quita los índices de una sola columna sobre reserva.cliente_id (idx_reserva_cliente de V2 y, en las bases de datos
+ * que venían de ddl-auto=update, el que MySQL creó junto con la llave foránea).
+ * <br>
+ * idx_reserva_cliente_fecha (cliente_id, fecha_inicio) empieza con la misma columna y sirve igual para el historial
+ * y para la llave foránea. Para poder borrar los índices primero se quita la llave y al final se vuelve a crear
+ * como fk_reserva_cliente (en MySQL toma idx_reserva_cliente_fecha; H2, solo en las pruebas, agrega su propio índice).
+ * <br>
+ * El nombre de la llave no se puede escribir fijo: V1 la llama fk_reserva_cliente, pero en las bases de datos marcadas
+ * como version 1 (baseline) la nombró Hibernate (FK...). Por eso se busca en los metadatos de la conexión.
+ * Cada paso revisa primero el estado actual: en MySQL el DDL no es transaccional y, si la migración falla a la mitad,
+ * se puede volver a correr sin que falle por lo que ya se había hecho.
+ */
+public class V6__Quitar_indice_reserva_cliente extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection conexion = context.getConnection();
+        try (Statement sentencia = conexion.createStatement()) {
+            for (String llave : llavesClienteDeReserva(conexion)) {
+                sentencia.execute("ALTER TABLE reserva DROP FOREIGN KEY " + llave);
+            }
+            for (String indice : indicesSoloDeCliente(conexion)) {
+                sentencia.execute("DROP INDEX " + indice + " ON reserva");
+            }
+            if (llavesClienteDeReserva(conexion).isEmpty()) {
+                sentencia.execute("ALTER TABLE reserva ADD CONSTRAINT fk_reserva_cliente FOREIGN KEY (cliente_id) REFERENCES cliente (id)");
+            }
+        }
+    }
+
+    //nombres de las llaves foraneas de reserva.cliente_id hacia cliente, se llamen como se llamen
+    private List<String> llavesClienteDeReserva(Connection conexion) throws SQLException {
+        List<String> llaves = new ArrayList<>();
+        DatabaseMetaData metadatos = conexion.getMetaData();
+        try (ResultSet filas = metadatos.getImportedKeys(conexion.getCatalog(), conexion.getSchema(), "reserva")) {
+            while (filas.next()) {
+                if ("cliente_id".equalsIgnoreCase(filas.getString("FKCOLUMN_NAME"))
+                        && "cliente".equalsIgnoreCase(filas.getString("PKTABLE_NAME")) && filas.getString("FK_NAME") != null) {
+                    llaves.add(filas.getString("FK_NAME"));
+                }
+            }
+        }
+        return llaves;
+    }
+
+    //indices no unicos de reserva cuya unica columna es cliente_id
+    private List<String> indicesSoloDeCliente(Connection conexion) throws SQLException {
+        Map<String, List<String>> columnasPorIndice = new LinkedHashMap<>();
+        DatabaseMetaData metadatos = conexion.getMetaData();
+        try (ResultSet filas = metadatos.getIndexInfo(conexion.getCatalog(), conexion.getSchema(), "reserva", false, false)) {
+            while (filas.next()) {
+                String nombre = filas.getString("INDEX_NAME");
+                if (nombre != null && filas.getBoolean("NON_UNIQUE")) {
+                    columnasPorIndice.computeIfAbsent(nombre, n -> new ArrayList<>()).add(filas.getString("COLUMN_NAME").toLowerCase());
+                }
+            }
+        }
+        List<String> indices = new ArrayList<>();
+        columnasPorIndice.forEach((nombre, columnas) -> {
+            if (columnas.equals(List.of("cliente_id"))) {
+                indices.add(nombre);
+            }
+        });
+        return indices;
+    }
+}
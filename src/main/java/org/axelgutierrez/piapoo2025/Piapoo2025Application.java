@@ -2,8 +2,12 @@ package org.axelgutierrez.piapoo2025;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.cache.annotation.EnableCaching;
 
 @SpringBootApplication
+@EnableCaching
+@ConfigurationPropertiesScan //PropiedadesTarifas
 public class Piapoo2025Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,22 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de Jackson para las respuestas JSON.
+ * <br>
+ * Spring registra en su ObjectMapper cualquier Module declarado como bean. Blackbird reemplaza las llamadas por reflexión
+ * a los getters y setters de las entidades y DTOs por accesos generados con LambdaMetafactory, que el JIT puede optimizar
+ * como una llamada directa (ver SerializacionReservaBenchmark).
+ */
+@Configuration
+public class ConfiguracionJson {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,45 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica la proporción de aciertos de cada región de la cache de segundo nivel de Hibernate.
+ * <br>
+ * Registra el gauge hibernate.cache.region.aciertos con la etiqueta region (rolEmpleado, vehiculo, direccion y las regiones
+ * de la cache de consultas): aciertos / (aciertos + fallos) desde que arrancó la aplicación, o NaN si la región no se ha usado.
+ * Los conteos de aciertos y fallos por región los publica hibernate-micrometer en hibernate.second.level.cache.requests.
+ */
+@Component
+public class MetricasCacheHibernate implements MeterBinder {
+    static final String METRICA = "hibernate.cache.region.aciertos";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : estadisticas.getSecondLevelCacheRegionNames()) {
+            Gauge.builder(METRICA, estadisticas, e -> proporcionDeAciertos(e.getCacheRegionStatistics(region)))
+                    .tag("region", region)
+                    .description("Proporción de aciertos de la región de la cache de segundo nivel")
+                    .register(registry);
+        }
+    }
+
+    private static double proporcionDeAciertos(CacheRegionStatistics region) {
+        if (region == null) {
+            return Double.NaN;
+        }
+        long peticiones = region.getHitCount() + region.getMissCount();
+        return peticiones == 0 ? Double.NaN : (double) region.getHitCount() / peticiones;
+    }
+}
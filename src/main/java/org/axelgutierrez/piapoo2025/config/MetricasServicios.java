@@ -0,0 +1,44 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mide el tiempo de cada método de IFuncionesCompartidas en los cuatro servicios.
+ * <br>
+ * Registra el timer servicio.operacion con las etiquetas servicio (la clase), operacion (el método)
+ * y resultado ("exito" o el nombre de la excepción, por ejemplo ConflictoReservaException para una reserva doble).
+ * Los percentiles e histogramas se configuran en application.properties.
+ */
+@Aspect
+@Component
+public class MetricasServicios {
+    static final String METRICA = "servicio.operacion";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(* org.axelgutierrez.piapoo2025.service.IFuncionesCompartidas.*(..))")
+    public Object medir(ProceedingJoinPoint punto) throws Throwable {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "exito";
+        try {
+            return punto.proceed();
+        } catch (Throwable e) {
+            resultado = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            muestra.stop(Timer.builder(METRICA)
+                    .tag("servicio", AopUtils.getTargetClass(punto.getTarget()).getSimpleName())
+                    .tag("operacion", punto.getSignature().getName())
+                    .tag("resultado", resultado)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuración de BandejaSalida, leída de las propiedades "bandeja-salida.*" en application.properties.
+ *
+ * @param directorio el directorio del diario de eventos; solo una instancia de la aplicación puede usarlo a la vez.
+ * @param capacidad los eventos que caben en la cola en memoria antes de aplicar contrapresión.
+ * @param trabajadores los hilos que procesan los eventos de la cola.
+ * @param tamanoLote los eventos que un trabajador toma de la cola a la vez como máximo.
+ * @param esperaMaxima lo que una petición espera a que haya lugar en la cola llena; después el evento queda solo en el diario.
+ * @param intervaloSincronizacion cada cuanto se fuerza el diario al disco y se guarda el punto de control.
+ * @param intervaloReintento cada cuanto se vuelven a leer del diario y a poner en la cola los eventos rechazados o de lotes que fallaron.
+ * @param tamanoMaximoDiario el tamaño a partir del cual el diario se vacía cuando ya se procesaron todos sus eventos.
+ */
+@ConfigurationProperties(prefix = "bandeja-salida")
+public record PropiedadesBandejaSalida(@DefaultValue("datos/bandeja-salida") Path directorio,
+                                       @DefaultValue("10000") int capacidad,
+                                       @DefaultValue("2") int trabajadores,
+                                       @DefaultValue("100") int tamanoLote,
+                                       @DefaultValue("10ms") Duration esperaMaxima,
+                                       @DefaultValue("100ms") Duration intervaloSincronizacion,
+                                       @DefaultValue("1s") Duration intervaloReintento,
+                                       @DefaultValue("64MB") DataSize tamanoMaximoDiario) {
+}
@@ -0,0 +1,21 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuración de RegistroEventos, leída de las propiedades "registro-eventos.*" en application.properties.
+ *
+ * @param directorio el directorio de los segmentos del registro; solo una instancia de la aplicación puede usarlo a la vez.
+ * @param tamanoSegmento el tamaño de cada archivo de segmento; al llenarse se empieza uno nuevo.
+ * @param intervaloSincronizacion cada cuanto se fuerza al disco lo escrito en el segmento actual.
+ */
+@ConfigurationProperties(prefix = "registro-eventos")
+public record PropiedadesRegistroEventos(@DefaultValue("datos/registro-eventos") Path directorio,
+                                         @DefaultValue("64MB") DataSize tamanoSegmento,
+                                         @DefaultValue("1s") Duration intervaloSincronizacion) {
+}
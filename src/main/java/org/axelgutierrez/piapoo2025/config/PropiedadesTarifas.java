@@ -0,0 +1,42 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Tablas de tarifas que usa MotorTarifas, leídas de las propiedades "tarifas.*" en application.properties.
+ * <br>
+ * Los factores y descuentos se dan en puntos base (10000 = 100%): un factor de 12500 cobra el día al 125% del precio por día
+ * y un descuento de 1000 quita el 10% del subtotal. Sin propiedades cada día cuesta el precio por día del vehiculo.
+ *
+ * @param finDeSemana el factor de los sábados y domingos, en puntos base.
+ * @param temporadas las temporadas con su factor; si un día cae en varias se usa la primera de la lista.
+ * @param descuentos los descuentos por duración de la reserva; se aplica el de más días mínimos que alcance la reserva.
+ */
+@ConfigurationProperties(prefix = "tarifas")
+public record PropiedadesTarifas(@DefaultValue("10000") int finDeSemana,
+                                 @DefaultValue List<Temporada> temporadas,
+                                 @DefaultValue List<DescuentoEstancia> descuentos) {
+
+    /**
+     * Una temporada que se repite cada año, por ejemplo de "12-15" a "01-06" (puede cruzar el fin de año).
+     *
+     * @param nombre el nombre de la temporada, solo informativo.
+     * @param desde el primer día de la temporada, con formato MM-dd.
+     * @param hasta el último día de la temporada, con formato MM-dd.
+     * @param factor el factor de los días de la temporada, en puntos base; se multiplica con el de fin de semana.
+     */
+    public record Temporada(String nombre, String desde, String hasta, int factor) {
+    }
+
+    /**
+     * Un descuento para las reservas de al menos cierta cantidad de días.
+     *
+     * @param diasMinimos los días que debe durar la reserva como mínimo.
+     * @param descuento el descuento sobre el subtotal, en puntos base.
+     */
+    public record DescuentoEstancia(int diasMinimos, int descuento) {
+    }
+}
@@ -0,0 +1,68 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Revisa al iniciar la aplicación que existan los índices que usan las consultas más frecuentes.
+ * <br>
+ * Los índices los crean las migraciones de Flyway; si alguno falta (por ejemplo, alguien lo borró a mano)
+ * la aplicación no arranca, en lugar de arrancar y hacer recorridos completos de las tablas en cada consulta.
+ */
+@Component
+public class VerificacionIndices implements ApplicationRunner {
+    //tabla -> indices que deben existir (ver las migraciones V2 a V6)
+    static final Map<String, List<String>> INDICES_ESPERADOS = Map.of(
+            "reserva", List.of("idx_reserva_vehiculo_fechas", "idx_reserva_cliente_fecha", "idx_reserva_ultima_modificacion"),
+            "vehiculo", List.of("idx_vehiculo_estado_precio", "idx_vehiculo_ultima_modificacion"),
+            "cliente", List.of("idx_cliente_ultima_modificacion"));
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        List<String> faltantes = new ArrayList<>();
+        try (Connection conexion = dataSource.getConnection()) {
+            DatabaseMetaData metadatos = conexion.getMetaData();
+            for (Map.Entry<String, List<String>> tabla : INDICES_ESPERADOS.entrySet()) {
+                Set<String> existentes = indicesDe(metadatos, conexion, tabla.getKey());
+                for (String indice : tabla.getValue()) {
+                    if (!existentes.contains(indice)) {
+                        faltantes.add(tabla.getKey() + "." + indice);
+                    }
+                }
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            throw new IllegalStateException("Faltan indices en la base de datos: " + faltantes + ". Revisa las migraciones de Flyway.");
+        }
+    }
+
+    //nombres de los indices de una tabla en minusculas (MySQL y H2 no siempre los regresan igual)
+    private Set<String> indicesDe(DatabaseMetaData metadatos, Connection conexion, String tabla) throws SQLException {
+        Set<String> indices = new HashSet<>();
+        try (ResultSet filas = metadatos.getIndexInfo(conexion.getCatalog(), conexion.getSchema(), tabla, false, false)) {
+            while (filas.next()) {
+                String nombre = filas.getString("INDEX_NAME");
+                if (nombre != null) {
+                    indices.add(nombre.toLowerCase());
+                }
+            }
+        }
+        return indices;
+    }
+}
@@ -1,14 +1,23 @@
 package org.axelgutierrez.piapoo2025.controller;
 
 import jakarta.validation.Valid;
+import org.axelgutierrez.piapoo2025.dto.FiltroHistorial;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.PaginaHistorial;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
 import org.axelgutierrez.piapoo2025.model.Cliente;
-import org.axelgutierrez.piapoo2025.model.Reserva;
 import org.axelgutierrez.piapoo2025.service.ClienteService;
 import org.axelgutierrez.piapoo2025.service.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/clientes")
@@ -33,15 +42,20 @@ public class ClienteController {
     }
 
     /**
-     * Endpoint para obtener la lista de todos los clientes almacenados en la base de datos.
+     * Endpoint para obtener los clientes almacenados en la base de datos, por paginas.
      * <br>
-     * El metodo llama al servicio para obtener la lista de clientes y devuelve la lista.
+     * El metodo llama al servicio para obtener una pagina de los clientes ordenados por id y devuelve la pagina con el cursor de la siguiente.
+     * <br>
+     * Ejemplo: GET /clientes?limit=50 y después GET /clientes?after=siguienteCursor&limit=50 hasta que el cursor sea null.
      *
-     * @return una lista con todos los clientes almacenados en la base de datos.
+     * @param after el cursor de la pagina anterior (id del ultimo elemento), vacio para la primera pagina.
+     * @param limit la cantidad maxima de elementos por pagina (maximo 500).
+     * @return la pagina con los clientes y el cursor para pedir la siguiente.
      */
     @GetMapping
-    public List<Cliente> mostrarClientes() {
-        return clienteService.listar();
+    public PaginaCursor<Cliente> mostrarClientes(@RequestParam(required = false) Long after,
+                                                 @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit) {
+        return clienteService.listarPagina(after, limit);
     }
 
 
@@ -49,28 +63,55 @@ public class ClienteController {
      * Endpoint para obtener un cliente almacenado en la base de datos.
      * <br>
      * El metodo llama al servicio para obtener un cliente por medio de su id y devuelve la información del cliente.
+     * Responde con ETag y Last-Modified; si la petición trae la version actual (If-None-Match o If-Modified-Since)
+     * responde 304 sin cuerpo, revisando solo la version sin cargar el cliente.
      *
      * @param id el id del cliente que se quiere obtener de la base de datos.
+     * @param peticion la petición, para revisar los encabezados condicionales.
      * @return el cliente con el id dado.
      * @throws RecursoNoEncontradoException si no existe el cliente con el id dado en la base de datos.
      */
     @GetMapping("/{id}")
-    public Cliente mostrarCliente(@PathVariable Long id) throws RecursoNoEncontradoException {
+    public Cliente mostrarCliente(@PathVariable Long id, WebRequest peticion) throws RecursoNoEncontradoException {
+        VersionRecurso version = clienteService.obtenerVersion(id);
+        if (peticion.checkNotModified(version.etag(), version.ultimaModificacionMillis())) {
+            return null; //304: el cliente ya tiene esta version, no se carga ni se serializa el cliente
+        }
         return clienteService.buscarPorId(id);
     }
 
     /**
-     * Endpoint para obtener la lista de todas las reservas de un cliente.
+     * Endpoint para obtener el historial de reservas de un cliente, por paginas.
+     * <br>
+     * El metodo llama al servicio de reservas para obtener una pagina de las reservas del cliente, de la más reciente a la más antigua,
+     * con filtros opcionales por rango de fechas, vehiculo y estado (PROXIMA, EN_CURSO o FINALIZADA).
      * <br>
-     * El metodo llama al servicio de reservas para obtener la lista de reservas que tiene un cliente y devuelve la lista.
+     * Ejemplo: GET /clientes/1/reservas?desde=2025-01-01&hasta=2025-12-31&estado=FINALIZADA y después
+     * GET /clientes/1/reservas?...&afterFecha=siguienteFecha&afterId=siguienteId hasta que el cursor sea null.
      *
      * @param id el id del cliente que se desea conocer su historial.
-     * @return una lista con todos los clientes que tienen una reserva en la base de datos.
+     * @param desde solo las reservas que terminan en esta fecha o después (opcional).
+     * @param hasta solo las reservas que empiezan en esta fecha o antes (opcional).
+     * @param vehiculoId solo las reservas de este vehiculo (opcional).
+     * @param estado solo las reservas en este estado respecto a hoy (opcional).
+     * @param afterFecha la fecha de inicio de la ultima reserva de la pagina anterior, vacio para la primera pagina.
+     * @param afterId el id de la ultima reserva de la pagina anterior, vacio para la primera pagina.
+     * @param limit la cantidad maxima de elementos por pagina (maximo 500).
+     * @return la pagina con el resumen de las reservas del cliente (el detalle de cada una está en GET /reservas/{id}).
      * @throws RecursoNoEncontradoException si no existe el cliente con el id dado en la base de datos.
+     * @throws ReservaInvalidaException si el rango de fechas está al revés o el cursor viene incompleto.
      */
     @GetMapping("/{id}/reservas")
-    public List<Reserva> historialReservasCliente(@PathVariable Long id) throws RecursoNoEncontradoException{
-        return reservaService.obtenerReservasPorCliente(id);
+    public PaginaHistorial historialReservasCliente(@PathVariable Long id,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                    @RequestParam(required = false) Long vehiculoId,
+                                                    @RequestParam(required = false) FiltroHistorial.Estado estado,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterFecha,
+                                                    @RequestParam(required = false) Long afterId,
+                                                    @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit)
+            throws RecursoNoEncontradoException, ReservaInvalidaException {
+        return reservaService.obtenerHistorialCliente(id, new FiltroHistorial(desde, hasta, vehiculoId, estado), afterFecha, afterId, limit);
     }
 
     /**
@@ -79,15 +120,21 @@ public class ClienteController {
      * El metodo recibe el id del cliente que se desea actualizar y un objeto "Cliente" con la información que se desea cambiar y llama al servicio para actualizar el cliente.
      * <br>
      * Solo se actualizan los datos que no sean null.
+     * Si la petición trae If-Match (el ETag de GET /{id}) solo se actualiza si el cliente sigue en esa version; si no, responde 412.
      *
      * @param id el id del cliente que se desea actualizar.
      * @param clienteActualizado el objeto "Cliente" con la información que se desea cambiar.
-     * @return el cliente con los cambios realizados.
+     * @param ifMatch el ETag de la version que se quiere actualizar (opcional).
+     * @return el cliente con los cambios realizados, con el ETag de su nueva version.
      * @throws RecursoNoEncontradoException si no existe el cliente con el id dado en la base de datos.
+     * @throws ConflictoVersionException si no es la version del If-Match (412) o si otra petición cambió los mismos datos (409).
      */
     @PutMapping("/{id}")
-    public Cliente actualizarCliente(@PathVariable Long id, @RequestBody Cliente clienteActualizado) throws RecursoNoEncontradoException{
-        return clienteService.actualizar(id, clienteActualizado);
+    public ResponseEntity<Cliente> actualizarCliente(@PathVariable Long id, @RequestBody Cliente clienteActualizado,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws RecursoNoEncontradoException, ConflictoVersionException {
+        Cliente cliente = clienteService.actualizar(id, clienteActualizado, VersionRecurso.versionDe(ifMatch));
+        //el ETag de la nueva version, para encadenar otra actualización con If-Match sin volver a consultar
+        return ResponseEntity.ok().eTag(new VersionRecurso(cliente.getVersion(), cliente.getUltimaModificacion()).etag()).body(cliente);
     }
 
     /**
@@ -1,13 +1,18 @@
 package org.axelgutierrez.piapoo2025.controller;
 
 import jakarta.validation.Valid;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
 import org.axelgutierrez.piapoo2025.model.Empleado;
 import org.axelgutierrez.piapoo2025.service.EmpleadoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/empleados")
@@ -31,28 +36,40 @@ public class EmpleadoController {
     }
 
     /**
-     * Endpoint para obtener la lista de todos los empleados almacenados en la base de datos.
+     * Endpoint para obtener los empleados almacenados en la base de datos, por paginas.
      * <br>
-     * El metodo llama al servicio para obtener la lista de empleados y devuelve la lista.
+     * El metodo llama al servicio para obtener una pagina de los empleados ordenados por id y devuelve la pagina con el cursor de la siguiente.
+     * <br>
+     * Ejemplo: GET /empleados?limit=50 y después GET /empleados?after=siguienteCursor&limit=50 hasta que el cursor sea null.
      *
-     * @return una lista con todos los empleados almacenados en la base de datos.
+     * @param after el cursor de la pagina anterior (id del ultimo elemento), vacio para la primera pagina.
+     * @param limit la cantidad maxima de elementos por pagina (maximo 500).
+     * @return la pagina con los empleados y el cursor para pedir la siguiente.
      */
     @GetMapping
-    public List<Empleado> mostrarEmpleados() {
-        return empleadoService.listar();
+    public PaginaCursor<Empleado> mostrarEmpleados(@RequestParam(required = false) Long after,
+                                                   @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit) {
+        return empleadoService.listarPagina(after, limit);
     }
 
     /**
      * Endpoint para obtener un empleado almacenado en la base de datos.
      * <br>
      * El metodo llama al servicio para obtener un empleado por medio de su id y devuelve la información del empleado.
+     * Responde con ETag y Last-Modified; si la petición trae la version actual (If-None-Match o If-Modified-Since)
+     * responde 304 sin cuerpo, revisando solo la version sin cargar el empleado.
      *
      * @param id el id del empleado que se quiere obtener de la base de datos.
+     * @param peticion la petición, para revisar los encabezados condicionales.
      * @return el empleado con el id dado.
      * @throws RecursoNoEncontradoException si no existe el empleado con el id dado en la base de datos.
     */
     @GetMapping("/{id}")
-    public Empleado mostrarEmpleado(@PathVariable Long id) throws RecursoNoEncontradoException {
+    public Empleado mostrarEmpleado(@PathVariable Long id, WebRequest peticion) throws RecursoNoEncontradoException {
+        VersionRecurso version = empleadoService.obtenerVersion(id);
+        if (peticion.checkNotModified(version.etag(), version.ultimaModificacionMillis())) {
+            return null; //304: el cliente ya tiene esta version, no se carga ni se serializa el empleado
+        }
         return empleadoService.buscarPorId(id);
     }
 
@@ -62,15 +79,21 @@ public class EmpleadoController {
      * El metodo recibe el id del empleado que se desea actualizar y un objeto "Empleado" con la información que se desea cambiar y llama al servicio para actualizar el empleado.
      * <br>
      * Solo se actualizan los datos que no sean null.
+     * Si la petición trae If-Match (el ETag de GET /{id}) solo se actualiza si el empleado sigue en esa version; si no, responde 412.
      *
      * @param id el id del empleado que se desea actualizar.
      * @param empleadoActualizado el objeto "Empleado" con la información que se desea cambiar.
-     * @return el empleado con los cambios realizados.
+     * @param ifMatch el ETag de la version que se quiere actualizar (opcional).
+     * @return el empleado con los cambios realizados, con el ETag de su nueva version.
      * @throws RecursoNoEncontradoException si no existe el empleado con el id dado en la base de datos.
+     * @throws ConflictoVersionException si no es la version del If-Match (412) o si otra petición cambió los mismos datos (409).
     */
     @PutMapping("/{id}")
-    public Empleado actualizarEmpleado(@PathVariable Long id, @RequestBody Empleado empleadoActualizado) throws RecursoNoEncontradoException {
-        return empleadoService.actualizar(id, empleadoActualizado);
+    public ResponseEntity<Empleado> actualizarEmpleado(@PathVariable Long id, @RequestBody Empleado empleadoActualizado,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws RecursoNoEncontradoException, ConflictoVersionException {
+        Empleado empleado = empleadoService.actualizar(id, empleadoActualizado, VersionRecurso.versionDe(ifMatch));
+        //el ETag de la nueva version, para encadenar otra actualización con If-Match sin volver a consultar
+        return ResponseEntity.ok().eTag(new VersionRecurso(empleado.getVersion(), empleado.getUltimaModificacion()).etag()).body(empleado);
     }
 
     /**
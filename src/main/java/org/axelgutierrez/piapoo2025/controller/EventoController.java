@@ -0,0 +1,70 @@
+package org.axelgutierrez.piapoo2025.controller;
+
+import org.axelgutierrez.piapoo2025.dto.EventoAuditoria;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.PaginaEventos;
+import org.axelgutierrez.piapoo2025.service.RegistroEventos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/eventos")
+public class EventoController {
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    @Autowired
+    private RegistroEventos registroEventos;
+
+    /**
+     * Endpoint para leer el registro de auditoría de las reservas y los vehiculos, por paginas.
+     * <br>
+     * El metodo lee del registro los eventos a partir de la secuencia dada, en orden, sin consultar la base de datos.
+     * Si se manda "espera" y todavía no hay eventos nuevos, la respuesta se envía cuando llegue alguno (como máximo 30 segundos),
+     * así un cliente puede seguir la cola del registro pidiendo siempre desde "siguiente".
+     * Mientras espera la petición no ocupa ningún hilo del servidor: la contesta el aviso de RegistroEventos o el tiempo límite.
+     * <br>
+     * Ejemplo: GET /eventos?desde=1&limit=500 para repetir todo el registro, y GET /eventos?desde=siguiente&espera=10000 para seguirlo.
+     *
+     * @param desde la secuencia del primer evento (empiezan en 1).
+     * @param limit la cantidad maxima de eventos por pagina (maximo 500).
+     * @param espera los milisegundos que se espera a que haya eventos nuevos, 0 para no esperar.
+     * @return la pagina con los eventos y la secuencia desde la que se pide la siguiente (vacía si se acabó la espera).
+     */
+    @GetMapping
+    public DeferredResult<PaginaEventos> leerEventos(@RequestParam(defaultValue = "1") long desde,
+                                                     @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit,
+                                                     @RequestParam(defaultValue = "0") long espera) {
+        int limite = PaginaCursor.normalizarLimite(limit);
+        long esperaMs = Math.min(Math.max(espera, 0), ESPERA_MAXIMA_MS);
+        DeferredResult<PaginaEventos> resultado = new DeferredResult<>(esperaMs > 0 ? esperaMs : null,
+                (Supplier<PaginaEventos>) () -> PaginaEventos.de(List.of(), desde));
+        leerOEsperar(desde, limite, esperaMs > 0, resultado);
+        return resultado;
+    }
+
+    //contesta con la pagina, o si esta vacia y se puede esperar, se vuelve a llamar cuando se registre el siguiente evento
+    private void leerOEsperar(long desde, int limite, boolean esperar, DeferredResult<PaginaEventos> resultado) {
+        if (resultado.isSetOrExpired()) {
+            return;
+        }
+        List<EventoAuditoria> eventos = registroEventos.leer(desde, limite);
+        if (eventos.isEmpty() && esperar) {
+            Runnable aviso = () -> leerOEsperar(desde, limite, true, resultado);
+            resultado.onCompletion(() -> registroEventos.cancelarAviso(aviso)); //tambien al vencer el tiempo
+            registroEventos.avisarAlRegistrar(aviso);
+            eventos = registroEventos.leer(desde, limite); //por si se registro uno entre la primera lectura y el aviso
+            if (eventos.isEmpty()) {
+                return;
+            }
+            registroEventos.cancelarAviso(aviso);
+        }
+        resultado.setResult(PaginaEventos.de(eventos, desde));
+    }
+}
@@ -1,20 +1,37 @@
 package org.axelgutierrez.piapoo2025.controller;
 
 import jakarta.validation.Valid;
+import org.axelgutierrez.piapoo2025.dto.Cotizacion;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.ReservaResumen;
+import org.axelgutierrez.piapoo2025.dto.ResultadoLote;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
 import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
 import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.service.ExportacionReservasService;
 import org.axelgutierrez.piapoo2025.service.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
+
 @RestController
 @RequestMapping("/reservas")
 public class ReservaController {
     @Autowired
     private ReservaService reservaService;
+    @Autowired
+    private ExportacionReservasService exportacionReservasService;
 
     /**
      * Endpoint para crear una nueva reserva.
@@ -33,28 +50,112 @@ public class ReservaController {
     }
 
     /**
-     * Endpoint para obtener la lista de todas las reservas almacenadas en la base de datos.
+     * Endpoint para crear varias reservas en una sola petición.
+     * <br>
+     * Este metodo recibe una lista de reservas y las pasa al servicio, que las valida juntas y guarda las validas en lote.
+     * Una reserva invalida no impide que se guarden las demás.
+     *
+     * @param reservas la lista de reservas que se van a crear (maximo 1000).
+     * @return el resultado de cada reserva (si se guardo y su id, o el motivo del error), en el mismo orden.
+     * @throws ReservaInvalidaException si el lote esta vacio o tiene más de 1000 reservas.
+     */
+    @PostMapping("/lote")
+    public List<ResultadoLote> crearReservasLote(@RequestBody List<Reserva> reservas) throws ReservaInvalidaException {
+        return reservaService.guardarLote(reservas);
+    }
+
+    /**
+     * Endpoint para obtener las reservas almacenadas en la base de datos, por paginas.
+     * <br>
+     * El metodo llama al servicio para obtener una pagina con el resumen de las reservas ordenadas por id y devuelve la pagina con el cursor de la siguiente.
+     * El detalle completo de cada reserva se obtiene con GET /reservas/{id}.
+     * Responde con un ETag del listado completo (cantidad de reservas y ultima modificacion de las reservas, clientes y vehiculos); si la petición trae el mismo
+     * en If-None-Match responde 304 sin consultar la pagina.
      * <br>
-     * El metodo llama al servicio para obtener la lista de reservas y devuelve la lista.
+     * Ejemplo: GET /reservas?limit=50 y después GET /reservas?after=siguienteCursor&limit=50 hasta que el cursor sea null.
      *
-     * @return una lista con todas las reservas almacenadas en la base de datos.
+     * @param after el cursor de la pagina anterior (id del ultimo elemento), vacio para la primera pagina.
+     * @param limit la cantidad maxima de elementos por pagina (maximo 500).
+     * @param peticion la petición, para revisar el encabezado If-None-Match.
+     * @return la pagina con el resumen de las reservas y el cursor para pedir la siguiente.
      */
     @GetMapping
-    public List<Reserva> mostrarReservas() {
-        return reservaService.listar();
+    public PaginaCursor<ReservaResumen> mostrarReservas(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit,
+                                                        WebRequest peticion) {
+        VersionRecurso version = reservaService.obtenerVersionListado();
+        if (peticion.checkNotModified(version.etag())) {
+            return null; //304: ninguna reserva cambio desde la ultima consulta
+        }
+        return reservaService.listarResumenes(after, limit);
+    }
+
+    /**
+     * Endpoint para exportar todas las reservas almacenadas en la base de datos.
+     * <br>
+     * El metodo devuelve las reservas en NDJSON (un JSON por línea) o CSV, escribiéndolas en la respuesta
+     * conforme se leen de la base de datos, sin juntarlas antes en una lista.
+     * <br>
+     * Ejemplo: GET /reservas/exportar?formato=csv
+     *
+     * @param formato el formato de la exportacion: "ndjson" (por defecto) o "csv".
+     * @return la respuesta que se va escribiendo con las reservas.
+     * @throws ReservaInvalidaException si el formato no es ndjson ni csv.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarReservas(@RequestParam(defaultValue = "ndjson") String formato) throws ReservaInvalidaException {
+        return switch (formato.toLowerCase()) {
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(exportacionReservasService::exportarNdjson);
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv"))
+                    .body(exportacionReservasService::exportarCsv);
+            default -> throw new ReservaInvalidaException("Formato de exportacion no soportado: " + formato);
+        };
+    }
+
+    /**
+     * Endpoint para cotizar una reserva sin guardarla.
+     * <br>
+     * El metodo llama al servicio para calcular el precio con las tarifas de temporada, de fin de semana y el descuento por duración.
+     * No consulta las reservas ni revisa si el vehiculo está ocupado en esas fechas (para eso está GET /vehiculos/{id}/calendario).
+     * <br>
+     * Ejemplo: GET /reservas/cotizacion?vehiculoId=1&fechaInicio=2025-12-20&fechaFin=2025-12-27
+     *
+     * @param vehiculoId el id del vehiculo que se quiere cotizar.
+     * @param fechaInicio el primer día de la reserva (formato yyyy-MM-dd).
+     * @param fechaFin el último día de la reserva (formato yyyy-MM-dd).
+     * @return la cotización con el subtotal, el descuento y el total, exactos a centavos.
+     * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     * @throws ReservaInvalidaException si la fecha de inicio es posterior a la fecha de fin.
+     */
+    @GetMapping("/cotizacion")
+    public Cotizacion cotizarReserva(@RequestParam Long vehiculoId,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin)
+            throws RecursoNoEncontradoException, ReservaInvalidaException {
+        return reservaService.cotizar(vehiculoId, fechaInicio, fechaFin);
     }
 
     /**
      * Endpoint para obtener una reserva almacenada en la base de datos.
      * <br>
      * El metodo llama al servicio para obtener una reserva por medio de su id y devuelve la información de la reserva.
+     * Responde con ETag y Last-Modified; si la petición trae la version actual (If-None-Match o If-Modified-Since)
+     * responde 304 sin cuerpo, revisando solo la version sin cargar la reserva.
      *
      * @param id el id de la reserva que se quiere obtener de la base de datos.
+     * @param peticion la petición, para revisar los encabezados condicionales.
      * @return la reserva con el id dado.
      * @throws RecursoNoEncontradoException si no existe la reserva con el id dado en la base de datos.
     */
     @GetMapping("/{id}")
-    public Reserva mostrarReserva(@PathVariable Long id) throws RecursoNoEncontradoException {
+    public Reserva mostrarReserva(@PathVariable Long id, WebRequest peticion) throws RecursoNoEncontradoException {
+        VersionRecurso version = reservaService.obtenerVersion(id);
+        if (peticion.checkNotModified(version.etag(), version.ultimaModificacionMillis())) {
+            return null; //304: el cliente ya tiene esta version, no se carga ni se serializa la reserva
+        }
         return reservaService.buscarPorId(id);
     }
 
@@ -64,16 +165,22 @@ public class ReservaController {
      * El metodo recibe el id de la reserva que se desea actualizar y un objeto "Reserva" con la información que se desea cambiar y llama al servicio para actualizar la reserva.
      * <br>
      * Solo se actualizan los datos que no sean null.
+     * Si la petición trae If-Match (el ETag de GET /{id}) solo se actualiza si la reserva sigue en esa version; si no, responde 412.
      *
      * @param id el id de la reserva que se desea actualizar.
      * @param reservaActualizada el objeto "Reserva" con la información que se desea cambiar.
-     * @return la reserva con los cambios realizados.
+     * @param ifMatch el ETag de la version que se quiere actualizar (opcional).
+     * @return la reserva con los cambios realizados, con el ETag de su nueva version.
      * @throws RecursoNoEncontradoException si no existe la reserva o el vehiculo con el id dado en la base de datos.
      * @throws ReservaInvalidaException si el vehiculo ya tiene una reserva para esas fechas.
+     * @throws ConflictoVersionException si no es la version del If-Match (412) o si otra petición cambió los mismos datos (409).
     */
     @PutMapping("/{id}")
-    public Reserva actualizarReserva(@PathVariable Long id, @RequestBody Reserva reservaActualizada) throws RecursoNoEncontradoException, ReservaInvalidaException {
-        return reservaService.actualizar(id, reservaActualizada);
+    public ResponseEntity<Reserva> actualizarReserva(@PathVariable Long id, @RequestBody Reserva reservaActualizada,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws RecursoNoEncontradoException, ReservaInvalidaException, ConflictoVersionException {
+        Reserva reserva = reservaService.actualizar(id, reservaActualizada, VersionRecurso.versionDe(ifMatch));
+        //el ETag de la nueva version, para encadenar otra actualización con If-Match sin volver a consultar
+        return ResponseEntity.ok().eTag(new VersionRecurso(reserva.getVersion(), reserva.getUltimaModificacion()).etag()).body(reserva);
     }
 
     /**
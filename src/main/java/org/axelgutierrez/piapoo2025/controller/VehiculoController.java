@@ -1,12 +1,23 @@
 package org.axelgutierrez.piapoo2025.controller;
 
 import jakarta.validation.Valid;
+import org.axelgutierrez.piapoo2025.dto.CalendarioVehiculo;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
 import org.axelgutierrez.piapoo2025.model.Vehiculo;
 import org.axelgutierrez.piapoo2025.service.VehiculoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -30,28 +41,117 @@ public class VehiculoController {
     }
 
     /**
-     * Endpoint para obtener la lista de todos los vehiculos almacenados en la base de datos.
+     * Endpoint para obtener los vehiculos almacenados en la base de datos, por paginas.
      * <br>
-     * El metodo llama al servicio para obtener la lista de vehiculos y devuelve la lista.
+     * El metodo llama al servicio para obtener una pagina con el resumen de los vehiculos ordenados por id y devuelve la pagina con el cursor de la siguiente.
+     * El detalle completo de cada vehiculo se obtiene con GET /vehiculos/{id}.
+     * Responde con un ETag del listado completo (cantidad y ultima modificacion de los vehiculos); si la petición trae el mismo
+     * en If-None-Match responde 304 sin consultar la pagina.
+     * <br>
+     * Ejemplo: GET /vehiculos?limit=50 y después GET /vehiculos?after=siguienteCursor&limit=50 hasta que el cursor sea null.
      *
-     * @return una lista con todos los vehiculos almacenados en la base de datos.
+     * @param after el cursor de la pagina anterior (id del ultimo elemento), vacio para la primera pagina.
+     * @param limit la cantidad maxima de elementos por pagina (maximo 500).
+     * @param peticion la petición, para revisar el encabezado If-None-Match.
+     * @return la pagina con el resumen de los vehiculos y el cursor para pedir la siguiente.
      */
     @GetMapping
-    public List<Vehiculo> mostrarVehiculos() {
-        return vehiculoService.listar();
+    public PaginaCursor<VehiculoResumen> mostrarVehiculos(@RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit,
+                                                          WebRequest peticion) {
+        VersionRecurso version = vehiculoService.obtenerVersionListado();
+        if (peticion.checkNotModified(version.etag())) {
+            return null; //304: ningun vehiculo cambio desde la ultima consulta
+        }
+        return vehiculoService.listarResumenes(after, limit);
+    }
+
+    /**
+     * Endpoint para obtener los vehiculos que se pueden reservar en un rango de fechas.
+     * <br>
+     * El metodo llama al servicio para buscar en una sola consulta los vehiculos que no estan en mantenimiento ni reservados en esas fechas.
+     * <br>
+     * Ejemplo: GET /vehiculos/disponibles?inicio=2025-06-01&fin=2025-06-05&precioMax=800&limit=20
+     *
+     * @param inicio la fecha de inicio del rango (formato yyyy-MM-dd).
+     * @param fin la fecha de fin del rango (formato yyyy-MM-dd).
+     * @param precioMax el precio por día maximo, opcional.
+     * @param after el cursor de la pagina anterior (id del ultimo vehiculo), vacio para la primera pagina.
+     * @param limit la cantidad maxima de vehiculos por pagina (maximo 500).
+     * @return la pagina con los vehiculos disponibles en esas fechas y el cursor para pedir la siguiente.
+     * @throws ReservaInvalidaException si la fecha de inicio es posterior a la fecha de fin.
+     */
+    @GetMapping("/disponibles")
+    public PaginaCursor<Vehiculo> obtenerDisponibles(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+                                                     @RequestParam(required = false) Double precioMax,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit) throws ReservaInvalidaException {
+        return vehiculoService.obtenerDisponibles(inicio, fin, precioMax, after, limit);
+    }
+
+    /**
+     * Endpoint para obtener la ocupación día por día de todos los vehiculos, por paginas.
+     * <br>
+     * El metodo llama al servicio para leer del calendario en memoria los días reservados de cada vehiculo de la pagina.
+     * <br>
+     * Ejemplo: GET /vehiculos/calendario?desde=2025-06-01&hasta=2025-08-29&limit=50
+     *
+     * @param desde el primer día del calendario (formato yyyy-MM-dd).
+     * @param hasta el último día del calendario (formato yyyy-MM-dd), a lo mucho 366 días en total.
+     * @param after el cursor de la pagina anterior (id del ultimo vehiculo), vacio para la primera pagina.
+     * @param limit la cantidad maxima de vehiculos por pagina (maximo 500).
+     * @return la pagina con la ocupación de cada vehiculo ('1' reservado, '0' libre, un carácter por día) y el cursor para pedir la siguiente.
+     * @throws ReservaInvalidaException si el rango está al revés o tiene más de 366 días.
+     */
+    @GetMapping("/calendario")
+    public PaginaCursor<CalendarioVehiculo> obtenerCalendarioFlota(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                                   @RequestParam(required = false) Long after,
+                                                                   @RequestParam(defaultValue = "" + PaginaCursor.LIMITE_POR_DEFECTO) int limit) throws ReservaInvalidaException {
+        return vehiculoService.obtenerCalendarioFlota(desde, hasta, after, limit);
+    }
+
+    /**
+     * Endpoint para obtener la ocupación día por día de un vehiculo.
+     * <br>
+     * El metodo llama al servicio para leer del calendario en memoria los días reservados del vehiculo, sin consultar las reservas.
+     * <br>
+     * Ejemplo: GET /vehiculos/1/calendario?desde=2025-06-01&hasta=2025-08-29
+     *
+     * @param id el id del vehiculo.
+     * @param desde el primer día del calendario (formato yyyy-MM-dd).
+     * @param hasta el último día del calendario (formato yyyy-MM-dd), a lo mucho 366 días en total.
+     * @return la ocupación del vehiculo ('1' reservado, '0' libre, un carácter por día).
+     * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     * @throws ReservaInvalidaException si el rango está al revés o tiene más de 366 días.
+     */
+    @GetMapping("/{id}/calendario")
+    public CalendarioVehiculo obtenerCalendario(@PathVariable Long id,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta)
+            throws RecursoNoEncontradoException, ReservaInvalidaException {
+        return vehiculoService.obtenerCalendario(id, desde, hasta);
     }
 
     /**
      * Endpoint para obtener un vehiculo almacenado en la base de datos.
      * <br>
      * El metodo llama al servicio para obtener un vehiculo por medio de su id y devuelve la información del vehiculo.
+     * Responde con ETag y Last-Modified; si la petición trae la version actual (If-None-Match o If-Modified-Since)
+     * responde 304 sin cuerpo, revisando solo la version sin cargar el vehiculo.
      *
      * @param id el id del vehiculo que se quiere obtener de la base de datos.
+     * @param peticion la petición, para revisar los encabezados condicionales.
      * @return el vehiculo con el id dado.
      * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
      */
     @GetMapping("/{id}")
-    public Vehiculo mostrarVehiculo(@PathVariable Long id) throws RecursoNoEncontradoException {
+    public Vehiculo mostrarVehiculo(@PathVariable Long id, WebRequest peticion) throws RecursoNoEncontradoException {
+        VersionRecurso version = vehiculoService.obtenerVersion(id);
+        if (peticion.checkNotModified(version.etag(), version.ultimaModificacionMillis())) {
+            return null; //304: el cliente ya tiene esta version, no se carga ni se serializa el vehiculo
+        }
         return vehiculoService.buscarPorId(id);
     }
 
@@ -61,15 +161,21 @@ public class VehiculoController {
      * El metodo recibe el id del vehiculo que se desea actualizar y un objeto "Vehiculo" con la información que se desea cambiar y llama al servicio para actualizar el vehiculo.
      * <br>
      * Solo se actualizan los datos que no sean null.
+     * Si la petición trae If-Match (el ETag de GET /{id}) solo se actualiza si el vehiculo sigue en esa version; si no, responde 412.
      *
      * @param id el id del vehiculo que se desea actualizar.
      * @param vehiculoActualizado el objeto "Vehiculo" con la información que se desea cambiar.
-     * @return el vehiculo con los cambios realizados.
+     * @param ifMatch el ETag de la version que se quiere actualizar (opcional).
+     * @return el vehiculo con los cambios realizados, con el ETag de su nueva version.
      * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     * @throws ConflictoVersionException si no es la version del If-Match (412) o si otra petición cambió los mismos datos (409).
      */
     @PutMapping("/{id}")
-    public Vehiculo actualizarVehiculo(@PathVariable Long id, @RequestBody Vehiculo vehiculoActualizado) throws RecursoNoEncontradoException {
-        return vehiculoService.actualizar(id, vehiculoActualizado);
+    public ResponseEntity<Vehiculo> actualizarVehiculo(@PathVariable Long id, @RequestBody Vehiculo vehiculoActualizado,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws RecursoNoEncontradoException, ConflictoVersionException {
+        Vehiculo vehiculo = vehiculoService.actualizar(id, vehiculoActualizado, VersionRecurso.versionDe(ifMatch));
+        //el ETag de la nueva version, para encadenar otra actualización con If-Match sin volver a consultar
+        return ResponseEntity.ok().eTag(new VersionRecurso(vehiculo.getVersion(), vehiculo.getUltimaModificacion()).etag()).body(vehiculo);
     }
 
     /**
@@ -91,23 +197,57 @@ public class VehiculoController {
      * El metodo llama al servicio para obtener todos los vehiculos que tengan un estado dado y devuelve la lista.
      *
      * @param estado el estado del vehiculo que se quiere obtener.
-     * @return una lista con todos los vehiculos almacenados en la base de datos que tengan un estado dado.
+     * @return una lista con el resumen de los vehiculos almacenados en la base de datos que tengan un estado dado.
      */
     @GetMapping("/estado/{estado}")
-    public List<Vehiculo> obtenerPorEstado(@PathVariable String estado) {
+    public List<VehiculoResumen> obtenerPorEstado(@PathVariable String estado) {
         return vehiculoService.obtenerPorEstado(estado);
     }
 
     /**
-     * Endpoint para obtener todos los vehiculos almacenados en la base de datos que tengan un precio por día maximo dado.
+     * Endpoint para obtener todos los vehiculos que tengan un precio por día maximo dado.
      * <br>
      * El metodo llama al servicio para obtener todos los vehiculos que tengan un precio por día maximo dado y devuelve la lista.
+     * La búsqueda se hace en memoria y se puede filtrar además por estado, marca y color.
+     * <br>
+     * Ejemplo: GET /vehiculos/precio-maximo/800?estado=DISPONIBLE&marca=Nissan
      *
      * @param precioPorDia el precio por día maximo del vehiculo que se quiere obtener.
-     * @return una lista con todos los vehiculos almacenados en la base de datos que tengan un precio por día maximo dado.
+     * @param estado el estado de los vehiculos (opcional).
+     * @param marca la marca de los vehiculos (opcional).
+     * @param color el color de los vehiculos (opcional).
+     * @return una lista con el resumen de los vehiculos que tengan un precio por día maximo dado, del más caro al más barato.
      */
     @GetMapping("/precio-maximo/{precioPorDia}")
-    public List<Vehiculo> obtenerPorPrecioMaximo(@PathVariable Double precioPorDia) {
-        return vehiculoService.obtenerPorPrecioMaximo(precioPorDia);
+    public List<VehiculoResumen> obtenerPorPrecioMaximo(@PathVariable Double precioPorDia,
+                                                        @RequestParam(required = false) String estado,
+                                                        @RequestParam(required = false) String marca,
+                                                        @RequestParam(required = false) String color) {
+        return vehiculoService.obtenerPorPrecioMaximo(precioPorDia, estado, marca, color);
+    }
+
+    /**
+     * Endpoint para obtener todos los vehiculos con un precio por día dentro de un rango.
+     * <br>
+     * El metodo llama al servicio para buscar en memoria los vehiculos con un precio por día entre min y max (incluidos).
+     * Los dos limites y los filtros de estado, marca y color son opcionales.
+     * <br>
+     * Ejemplo: GET /vehiculos/precio?min=300&max=800&color=Blanco
+     *
+     * @param min el precio por día minimo (opcional).
+     * @param max el precio por día maximo (opcional).
+     * @param estado el estado de los vehiculos (opcional).
+     * @param marca la marca de los vehiculos (opcional).
+     * @param color el color de los vehiculos (opcional).
+     * @return una lista con el resumen de los vehiculos dentro del rango de precios, del más caro al más barato.
+     * @throws ReservaInvalidaException si el precio minimo es mayor al maximo.
+     */
+    @GetMapping("/precio")
+    public List<VehiculoResumen> obtenerPorRangoDePrecio(@RequestParam(required = false) Double min,
+                                                         @RequestParam(required = false) Double max,
+                                                         @RequestParam(required = false) String estado,
+                                                         @RequestParam(required = false) String marca,
+                                                         @RequestParam(required = false) String color) throws ReservaInvalidaException {
+        return vehiculoService.obtenerPorRangoDePrecio(min, max, estado, marca, color);
     }
 }
@@ -0,0 +1,17 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Ocupación de un vehiculo día por día en un rango de fechas.
+ * <br>
+ * "ocupacion" tiene un carácter por día desde "desde" hasta "hasta" (ambos incluidos): '1' si el vehiculo está reservado ese día
+ * y '0' si está libre. Por ejemplo, con desde=2025-06-01 la posición 0 es el 1 de junio y la posición 4 el 5 de junio.
+ *
+ * @param vehiculoId el id del vehiculo.
+ * @param desde el primer día del rango.
+ * @param hasta el último día del rango.
+ * @param ocupacion la ocupación de cada día del rango.
+ */
+public record CalendarioVehiculo(long vehiculoId, LocalDate desde, LocalDate hasta, String ocupacion) {
+}
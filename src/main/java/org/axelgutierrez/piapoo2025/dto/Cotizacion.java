@@ -0,0 +1,22 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Precio de una posible reserva, calculado por MotorTarifas sin guardar nada.
+ * <br>
+ * Los montos son exactos a centavos: subtotal (tarifas de temporada y fin de semana) - descuento por duración = total.
+ *
+ * @param vehiculoId el id del vehiculo cotizado.
+ * @param fechaInicio el primer día de la reserva.
+ * @param fechaFin el último día de la reserva.
+ * @param dias los días que se cobran (incluye el último).
+ * @param precioPorDia el precio por día del vehiculo, sin tarifas.
+ * @param subtotal la suma del precio de cada día con su tarifa.
+ * @param descuento el descuento por la duración de la reserva.
+ * @param total el precio que se cobraría por la reserva.
+ */
+public record Cotizacion(long vehiculoId, LocalDate fechaInicio, LocalDate fechaFin, int dias, BigDecimal precioPorDia,
+                         BigDecimal subtotal, BigDecimal descuento, BigDecimal total) {
+}
@@ -0,0 +1,62 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Un cambio en una reserva o en un vehiculo, guardado en el registro de auditoría (ver RegistroEventos).
+ * <br>
+ * Solo llevan valor los campos que aplican al tipo de evento (los valores nuevos después del cambio), los demás son null.
+ *
+ * @param secuencia el número del evento en el registro, lo asigna RegistroEventos (0 antes de registrarse).
+ * @param instante cuando ocurrió el cambio (en milisegundos).
+ * @param tipo el tipo de cambio.
+ * @param entidadId el id de la reserva o del vehiculo que cambió, según el tipo.
+ * @param vehiculoId el vehiculo de la reserva.
+ * @param clienteId el cliente de la reserva.
+ * @param fechaInicio la fecha de inicio de la reserva.
+ * @param fechaFin la fecha de fin de la reserva.
+ * @param precio el precio total de la reserva o el precio por día del vehiculo.
+ * @param estado el estado del vehiculo.
+ */
+public record EventoAuditoria(long secuencia, Instant instante, Tipo tipo, long entidadId, Long vehiculoId, Long clienteId,
+                              LocalDate fechaInicio, LocalDate fechaFin, Double precio, String estado) {
+
+    public enum Tipo {
+        RESERVA_CREADA, RESERVA_FECHAS_CAMBIADAS, RESERVA_VEHICULO_CAMBIADO, RESERVA_ELIMINADA,
+        VEHICULO_ESTADO_CAMBIADO, VEHICULO_PRECIO_CAMBIADO
+    }
+
+    public static EventoAuditoria reservaCreada(long reservaId, long vehiculoId, long clienteId, LocalDate fechaInicio, LocalDate fechaFin, Double precioTotal) {
+        return new EventoAuditoria(0, ahora(), Tipo.RESERVA_CREADA, reservaId, vehiculoId, clienteId, fechaInicio, fechaFin, precioTotal, null);
+    }
+
+    public static EventoAuditoria reservaFechasCambiadas(long reservaId, LocalDate fechaInicio, LocalDate fechaFin, Double precioTotal) {
+        return new EventoAuditoria(0, ahora(), Tipo.RESERVA_FECHAS_CAMBIADAS, reservaId, null, null, fechaInicio, fechaFin, precioTotal, null);
+    }
+
+    public static EventoAuditoria reservaVehiculoCambiado(long reservaId, long vehiculoId, Double precioTotal) {
+        return new EventoAuditoria(0, ahora(), Tipo.RESERVA_VEHICULO_CAMBIADO, reservaId, vehiculoId, null, null, null, precioTotal, null);
+    }
+
+    public static EventoAuditoria reservaEliminada(long reservaId) {
+        return new EventoAuditoria(0, ahora(), Tipo.RESERVA_ELIMINADA, reservaId, null, null, null, null, null, null);
+    }
+
+    public static EventoAuditoria vehiculoEstadoCambiado(long vehiculoId, String estado) {
+        return new EventoAuditoria(0, ahora(), Tipo.VEHICULO_ESTADO_CAMBIADO, vehiculoId, null, null, null, null, null, estado);
+    }
+
+    public static EventoAuditoria vehiculoPrecioCambiado(long vehiculoId, Double precioPorDia) {
+        return new EventoAuditoria(0, ahora(), Tipo.VEHICULO_PRECIO_CAMBIADO, vehiculoId, null, null, null, null, precioPorDia, null);
+    }
+
+    public EventoAuditoria conSecuencia(long secuencia) {
+        return new EventoAuditoria(secuencia, instante, tipo, entidadId, vehiculoId, clienteId, fechaInicio, fechaFin, precio, estado);
+    }
+
+    //el registro guarda milisegundos, así el evento leido es igual al registrado
+    private static Instant ahora() {
+        return Instant.ofEpochMilli(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,35 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Un cambio en las reservas que se procesa en segundo plano (ver BandejaSalida).
+ * <br>
+ * Las fechas, el vehiculo, el cliente y el precio son los de la reserva después del cambio; en un evento ELIMINADA son null.
+ *
+ * @param secuencia el número del evento en el diario, lo asigna BandejaSalida al publicarlo (0 antes de publicarse).
+ * @param tipo el tipo de cambio.
+ * @param reservaId el id de la reserva.
+ * @param vehiculoId el id del vehiculo reservado.
+ * @param clienteId el id del cliente.
+ * @param fechaInicio la fecha de inicio de la reserva.
+ * @param fechaFin la fecha de fin de la reserva.
+ * @param precioTotal el precio total de la reserva.
+ * @param instante cuando ocurrió el cambio.
+ */
+public record EventoReserva(long secuencia, Tipo tipo, long reservaId, Long vehiculoId, Long clienteId,
+                            LocalDate fechaInicio, LocalDate fechaFin, Double precioTotal, Instant instante) {
+
+    public enum Tipo {
+        CREADA, ACTUALIZADA, ELIMINADA
+    }
+
+    public static EventoReserva eliminada(long reservaId) {
+        return new EventoReserva(0, Tipo.ELIMINADA, reservaId, null, null, null, null, null, Instant.now());
+    }
+
+    public EventoReserva conSecuencia(long secuencia) {
+        return new EventoReserva(secuencia, tipo, reservaId, vehiculoId, clienteId, fechaInicio, fechaFin, precioTotal, instante);
+    }
+}
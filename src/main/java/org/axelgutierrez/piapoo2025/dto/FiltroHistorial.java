@@ -0,0 +1,25 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros opcionales del historial de reservas de un cliente (null no filtra).
+ * <br>
+ * El rango de fechas incluye las reservas que se solapan con él, aunque empiecen antes o terminen después.
+ *
+ * @param desde las reservas que terminan en esta fecha o después.
+ * @param hasta las reservas que empiezan en esta fecha o antes.
+ * @param vehiculoId solo las reservas de este vehiculo.
+ * @param estado solo las reservas en este estado (se calcula con las fechas de la reserva y la fecha de hoy).
+ */
+public record FiltroHistorial(LocalDate desde, LocalDate hasta, Long vehiculoId, Estado estado) {
+
+    /**
+     * Estado de una reserva respecto a la fecha de hoy.
+     */
+    public enum Estado {
+        PROXIMA, //empieza despues de hoy
+        EN_CURSO, //empezo y termina hoy o despues
+        FINALIZADA //termino antes de hoy
+    }
+}
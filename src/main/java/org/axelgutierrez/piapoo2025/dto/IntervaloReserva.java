@@ -0,0 +1,16 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección mínima de una reserva: solo su id, el vehiculo y el rango de fechas.
+ * <br>
+ * Se usa para cargar los índices en memoria sin hidratar la entidad "Reserva" con su cliente y vehiculo.
+ *
+ * @param id el id de la reserva.
+ * @param vehiculoId el id del vehiculo reservado.
+ * @param fechaInicio la fecha de inicio de la reserva.
+ * @param fechaFin la fecha de fin de la reserva.
+ */
+public record IntervaloReserva(long id, long vehiculoId, LocalDate fechaInicio, LocalDate fechaFin) {
+}
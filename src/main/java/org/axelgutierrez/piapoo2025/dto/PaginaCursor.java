@@ -0,0 +1,47 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Una página de resultados paginada por cursor (keyset).
+ * <br>
+ * Los elementos vienen ordenados por id; para pedir la siguiente página se manda el "siguienteCursor"
+ * en el parámetro "after". Cuando ya no hay más elementos el cursor es null.
+ *
+ * @param elementos los elementos de la página.
+ * @param siguienteCursor el id del último elemento de la página, o null si es la última página.
+ * @param <T> el tipo de los elementos.
+ */
+public record PaginaCursor<T>(List<T> elementos, Long siguienteCursor) {
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 500;
+
+    /**
+     * Ajusta el límite pedido para que esté entre 1 y el límite máximo.
+     *
+     * @param limite el límite que pidió el usuario.
+     * @return el límite que se va a usar.
+     */
+    public static int normalizarLimite(int limite) {
+        return Math.clamp(limite, 1, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Arma una página a partir de las filas consultadas.
+     * <br>
+     * Se consulta un elemento de más (limite + 1) para saber si hay otra página sin tener que contar.
+     *
+     * @param filas las filas consultadas, ordenadas por id, como máximo limite + 1.
+     * @param limite la cantidad de elementos por página.
+     * @param id función para obtener el id de un elemento.
+     * @return la página con a lo más "limite" elementos y el cursor de la siguiente.
+     */
+    public static <T> PaginaCursor<T> de(List<T> filas, int limite, ToLongFunction<T> id) {
+        if (filas.size() <= limite) {
+            return new PaginaCursor<>(filas, null); //es la ultima pagina
+        }
+        List<T> elementos = filas.subList(0, limite);
+        return new PaginaCursor<>(elementos, id.applyAsLong(elementos.get(limite - 1)));
+    }
+}
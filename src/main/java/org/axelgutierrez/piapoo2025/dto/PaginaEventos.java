@@ -0,0 +1,19 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.util.List;
+
+/**
+ * Una página de eventos del registro de auditoría, en orden de secuencia.
+ * <br>
+ * Para seguir leyendo se manda "siguiente" en el parámetro "desde"; a diferencia de PaginaCursor nunca es null,
+ * así un cliente puede seguir la cola del registro pidiendo la siguiente página aunque esta haya salido vacía.
+ *
+ * @param elementos los eventos de la página.
+ * @param siguiente la secuencia desde la que se pide la siguiente página.
+ */
+public record PaginaEventos(List<EventoAuditoria> elementos, long siguiente) {
+
+    public static PaginaEventos de(List<EventoAuditoria> eventos, long desde) {
+        return new PaginaEventos(eventos, eventos.isEmpty() ? desde : eventos.getLast().secuencia() + 1);
+    }
+}
@@ -0,0 +1,36 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Una página del historial de reservas de un cliente, paginada por cursor (keyset).
+ * <br>
+ * Las reservas vienen de la más reciente a la más antigua (por fecha de inicio y luego por id);
+ * para pedir la siguiente página se mandan "siguienteFecha" y "siguienteId" en los parámetros "afterFecha" y "afterId".
+ * Cuando ya no hay más reservas el cursor es null.
+ *
+ * @param elementos el resumen de las reservas de la página.
+ * @param siguienteFecha la fecha de inicio de la última reserva de la página, o null si es la última página.
+ * @param siguienteId el id de la última reserva de la página, o null si es la última página.
+ */
+public record PaginaHistorial(List<ReservaResumen> elementos, LocalDate siguienteFecha, Long siguienteId) {
+
+    /**
+     * Arma una página a partir de las filas consultadas.
+     * <br>
+     * Igual que en PaginaCursor, se consulta una fila de más (limite + 1) para saber si hay otra página sin tener que contar.
+     *
+     * @param filas las filas consultadas, en el orden del historial, como máximo limite + 1.
+     * @param limite la cantidad de elementos por página.
+     * @return la página con a lo más "limite" elementos y el cursor de la siguiente.
+     */
+    public static PaginaHistorial de(List<ReservaResumen> filas, int limite) {
+        if (filas.size() <= limite) {
+            return new PaginaHistorial(filas, null, null); //es la ultima pagina
+        }
+        List<ReservaResumen> elementos = filas.subList(0, limite);
+        ReservaResumen ultima = elementos.get(limite - 1);
+        return new PaginaHistorial(elementos, ultima.fechaInicio(), ultima.id());
+    }
+}
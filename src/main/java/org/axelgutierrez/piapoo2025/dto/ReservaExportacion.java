@@ -0,0 +1,16 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Fila plana de una reserva para la exportación: solo los ids del cliente y del vehiculo, sin sus datos.
+ *
+ * @param id el id de la reserva.
+ * @param fechaInicio la fecha de inicio de la reserva.
+ * @param fechaFin la fecha de fin de la reserva.
+ * @param precioTotal el precio total de la reserva.
+ * @param clienteId el id del cliente que hizo la reserva.
+ * @param vehiculoId el id del vehiculo reservado.
+ */
+public record ReservaExportacion(long id, LocalDate fechaInicio, LocalDate fechaFin, Double precioTotal, long clienteId, long vehiculoId) {
+}
@@ -0,0 +1,24 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Resumen de una reserva para los listados: las fechas, el total y solo el nombre del cliente y el vehiculo.
+ * <br>
+ * El detalle completo (cliente con su dirección y vehiculo) se obtiene con GET /reservas/{id}.
+ *
+ * @param id el id de la reserva.
+ * @param fechaInicio la fecha de inicio de la reserva.
+ * @param fechaFin la fecha de fin de la reserva.
+ * @param precioTotal el precio total de la reserva.
+ * @param clienteId el id del cliente que hizo la reserva.
+ * @param clienteNombre el nombre del cliente.
+ * @param clienteApellidos los apellidos del cliente.
+ * @param vehiculoId el id del vehiculo reservado.
+ * @param vehiculoMarca la marca del vehiculo.
+ * @param vehiculoModelo el modelo del vehiculo.
+ */
+public record ReservaResumen(long id, LocalDate fechaInicio, LocalDate fechaFin, Double precioTotal,
+                             long clienteId, String clienteNombre, String clienteApellidos,
+                             long vehiculoId, String vehiculoMarca, String vehiculoModelo) {
+}
@@ -0,0 +1,20 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+/**
+ * Resultado de una reserva dentro de un lote.
+ *
+ * @param indice la posición de la reserva en el lote que se mandó (empieza en 0).
+ * @param exito true si la reserva se guardó.
+ * @param reservaId el id de la reserva guardada, o null si no se guardó.
+ * @param mensaje el motivo por el que no se guardó, o null si se guardó.
+ */
+public record ResultadoLote(int indice, boolean exito, Long reservaId, String mensaje) {
+
+    public static ResultadoLote exitoso(int indice, long reservaId) {
+        return new ResultadoLote(indice, true, reservaId, null);
+    }
+
+    public static ResultadoLote fallido(int indice, String mensaje) {
+        return new ResultadoLote(indice, false, null, mensaje);
+    }
+}
@@ -0,0 +1,12 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+/**
+ * Lo que se necesita saber para aceptar una reserva, obtenido en una sola consulta.
+ *
+ * @param estado el estado del vehiculo (DISPONIBLE o EN MANTENIMIENTO).
+ * @param precioPorDia el precio por dia del vehiculo.
+ * @param clienteExiste true si el cliente de la reserva existe.
+ * @param enConflicto true si el vehiculo ya tiene una reserva que se solapa con las fechas.
+ */
+public record ValidacionReserva(String estado, Double precioPorDia, boolean clienteExiste, boolean enConflicto) {
+}
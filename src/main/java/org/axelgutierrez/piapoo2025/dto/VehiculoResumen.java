@@ -0,0 +1,15 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+/**
+ * Resumen de un vehiculo para los listados del catálogo.
+ * <br>
+ * El detalle completo (placa y color) se obtiene con GET /vehiculos/{id}.
+ *
+ * @param id el id del vehiculo.
+ * @param marca la marca del vehiculo.
+ * @param modelo el modelo del vehiculo.
+ * @param estado el estado del vehiculo (DISPONIBLE o EN MANTENIMIENTO).
+ * @param precioPorDia el precio por dia de renta.
+ */
+public record VehiculoResumen(long id, String marca, String modelo, String estado, Double precioPorDia) {
+}
@@ -0,0 +1,64 @@
+package org.axelgutierrez.piapoo2025.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version de un recurso para las peticiones condicionales (If-None-Match / If-Modified-Since), obtenida sin cargar la entidad.
+ * <br>
+ * Para una entidad es su columna version; para un listado es la cantidad de filas de la tabla, que junto con la
+ * ultima modificacion cambia al guardar, actualizar o eliminar cualquier elemento.
+ *
+ * @param version la version de la entidad, o la cantidad de elementos del listado.
+ * @param ultimaModificacion la fecha de la ultima modificacion, o null si el listado está vacío.
+ */
+public record VersionRecurso(Long version, LocalDateTime ultimaModificacion) {
+
+    /**
+     * El ETag del recurso: cambia cada vez que cambia la version o la fecha de ultima modificacion.
+     * <br>
+     * Es débil (W/) porque la misma version se puede enviar comprimida o sin comprimir (Tomcat no comprime respuestas con ETag fuerte).
+     *
+     * @return el ETag, listo para el encabezado.
+     */
+    public String etag() {
+        return "W/\"" + version + "-" + ultimaModificacionMillis() + "\"";
+    }
+
+    /**
+     * La fecha de ultima modificacion en milisegundos, para el encabezado Last-Modified.
+     *
+     * @return los milisegundos desde 1970, o 0 si no hay fecha.
+     */
+    public long ultimaModificacionMillis() {
+        return ultimaModificacion == null ? 0 : ultimaModificacion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Obtiene la version de un ETag generado por etag(), para el encabezado If-Match de las actualizaciones.
+     * <br>
+     * Se acepta con o sin W/: aunque el ETag sea débil por la compresión, la version identifica exactamente el estado de la entidad.
+     * Una lista de ETags o uno que no generó este servidor nunca coincide.
+     *
+     * @param etag el valor del encabezado If-Match.
+     * @return la version, null si no hay encabezado o es "*" (cualquier version), o -1 si no es un ETag de este servidor.
+     */
+    public static Long versionDe(String etag) {
+        if (etag == null || etag.isBlank() || etag.trim().equals("*")) {
+            return null;
+        }
+        String valor = etag.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        int guion = valor.indexOf('-');
+        if (valor.length() < 3 || !valor.startsWith("\"") || !valor.endsWith("\"") || guion < 0) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(valor.substring(1, guion));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.axelgutierrez.piapoo2025.exception;
+
+//Reserva rechazada porque el vehiculo ya esta reservado en esas fechas (se responde igual que ReservaInvalidaException)
+public class ConflictoReservaException extends ReservaInvalidaException {
+    public ConflictoReservaException(String message) {
+        super(message);
+    }
+}
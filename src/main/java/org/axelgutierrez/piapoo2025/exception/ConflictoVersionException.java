@@ -0,0 +1,15 @@
+package org.axelgutierrez.piapoo2025.exception;
+
+//La entidad cambio mientras se actualizaba: 412 si la petición traía If-Match con otra version, 409 si se agotaron los reintentos
+public class ConflictoVersionException extends Exception {
+    private final boolean precondicionFallida;
+
+    public ConflictoVersionException(String message, boolean precondicionFallida) {
+        super(message);
+        this.precondicionFallida = precondicionFallida;
+    }
+
+    public boolean isPrecondicionFallida() {
+        return precondicionFallida;
+    }
+}
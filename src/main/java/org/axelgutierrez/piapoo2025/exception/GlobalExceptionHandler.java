@@ -1,5 +1,7 @@
 package org.axelgutierrez.piapoo2025.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -8,21 +10,41 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    //contador api.errores por tipo: no_encontrado, conflicto (reserva doble), version (If-Match o reintentos), reserva_invalida y validacion
+    private static final String METRICA_ERRORES = "api.errores";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @ExceptionHandler(RecursoNoEncontradoException.class)
     public ResponseEntity<String> manejoRecursoNoEncontrado(RecursoNoEncontradoException ex) {
+        contarError("no_encontrado");
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(ReservaInvalidaException.class)
     public ResponseEntity<String> manejoReservaInvalida(ReservaInvalidaException ex) {
+        contarError(ex instanceof ConflictoReservaException ? "conflicto" : "reserva_invalida");
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    //412 si el If-Match ya no es la version actual, 409 si otra petición cambió los mismos datos
+    @ExceptionHandler(ConflictoVersionException.class)
+    public ResponseEntity<String> manejoConflictoVersion(ConflictoVersionException ex) {
+        contarError("version");
+        return new ResponseEntity<>(ex.getMessage(), ex.isPrecondicionFallida() ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+    }
+
     //Manejar errores de validación lanzados por @Valid
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> handleValidationErrors(MethodArgumentNotValidException ex) {
+        contarError("validacion");
         StringBuilder errores = new StringBuilder(); //concatenar los posibles errores
         ex.getBindingResult().getFieldErrors().forEach(error -> {errores.append(error.getField()).append(": ").append(error.getDefaultMessage()).append("; ");});
         return new ResponseEntity<>(errores.toString(), HttpStatus.BAD_REQUEST); //transformamos el StringBuilder a string y mostramos al cliente
     }
+
+    private void contarError(String tipo) {
+        meterRegistry.counter(METRICA_ERRORES, "tipo", tipo).increment();
+    }
 }
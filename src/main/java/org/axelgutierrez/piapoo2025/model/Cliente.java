@@ -1,9 +1,11 @@
 package org.axelgutierrez.piapoo2025.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.NoArgsConstructor;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) //campos internos del proxy de Hibernate cuando se carga LAZY
 @NoArgsConstructor //constructor sin argumentos usando Lombok
 public class Cliente extends Usuario{
     //atributos heredados de Usuario
@@ -1,12 +1,17 @@
 package org.axelgutierrez.piapoo2025.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "direccion") //cache de segundo nivel de Hibernate (region en application.conf)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) //campos internos del proxy de Hibernate cuando se carga LAZY
 @NoArgsConstructor
 @Getter @Setter //Getters y setters y constructor sin argumentos usando Lombok
 public class Direccion {
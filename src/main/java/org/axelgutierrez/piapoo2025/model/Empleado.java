@@ -1,6 +1,8 @@
 package org.axelgutierrez.piapoo2025.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -8,11 +10,12 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) //campos internos del proxy de Hibernate cuando se carga LAZY
 @NoArgsConstructor
 @Getter @Setter
 public class Empleado extends Usuario{
     //atributos basicos de Usuario
     @NotNull(message = "El rol es obligatorio")
-    @ManyToOne //Un empleado tiene un rol, un rol tiene muchos empleados.
+    @ManyToOne(fetch = FetchType.LAZY) //Un empleado tiene un rol, un rol tiene muchos empleados.
     private RolEmpleado rol;
 }
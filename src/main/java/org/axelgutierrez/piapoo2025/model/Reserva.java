@@ -6,15 +6,20 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @NoArgsConstructor
 @Getter @Setter //Getters y setters usando Lombok
 public class Reserva {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //ids por bloques de 50 desde una tabla, así se conocen antes del insert y se pueden guardar en lote (IDENTITY no lo permite)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "reserva_id")
+    @TableGenerator(name = "reserva_id", table = "secuencia_id", pkColumnName = "nombre", valueColumnName = "siguiente_valor",
+            pkColumnValue = "reserva", allocationSize = 50)
     private long id;
 
     @NotNull(message = "La fecha de inicio es obligatoria")
@@ -27,12 +32,22 @@ public class Reserva {
     private Double precioTotal; //precioPorDia de vehiculo x cantidadDias(fecha fin - fecha inicio)
 
     @NotNull(message = "El cliente es obligatorio")
-    @ManyToOne //una reserva tiene un cliente, un cliente puede tener varias reservas
+    //LAZY: las consultas de lectura traen el cliente y el vehiculo con @EntityGraph (ver ReservaRepository)
+    @ManyToOne(fetch = FetchType.LAZY) //una reserva tiene un cliente, un cliente puede tener varias reservas
     @JoinColumn(name = "cliente_id")
     private Cliente cliente;
 
     @NotNull(message = "El vehiculo es obligatorio")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehiculo_id")
     private Vehiculo vehiculo;
+
+    //bloqueo optimista y ETag: aumenta con cada actualización
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @UpdateTimestamp //se asigna al guardar y al actualizar
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime ultimaModificacion;
 }
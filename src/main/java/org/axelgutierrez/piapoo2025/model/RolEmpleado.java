@@ -1,11 +1,16 @@
 package org.axelgutierrez.piapoo2025.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "rolEmpleado") //los roles casi nunca cambian, se leen de la cache de segundo nivel (region en application.conf)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) //campos internos del proxy de Hibernate cuando se carga LAZY
 @NoArgsConstructor
 @Getter @Setter
 public class RolEmpleado {
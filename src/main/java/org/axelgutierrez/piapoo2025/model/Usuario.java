@@ -1,9 +1,13 @@
 package org.axelgutierrez.piapoo2025.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 @MappedSuperclass
 @Getter @Setter //Getters y setters usando Lombok
@@ -29,7 +33,16 @@ public abstract class Usuario {
 
     //relación con la tabla dirección, un cliente/empleado una dirección
     @NotNull(message = "La dirección es obligatoria")
-    @OneToOne(cascade = CascadeType.ALL)//si elimino al cliente/empleado, se elimina su direccion tambien
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)//si elimino al cliente/empleado, se elimina su direccion tambien
     @JoinColumn(name = "direccion_id")
     private Direccion direccion;
+
+    //bloqueo optimista y ETag: aumenta con cada actualización
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @UpdateTimestamp //se asigna al guardar y al actualizar
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime ultimaModificacion;
 }
@@ -1,18 +1,32 @@
 package org.axelgutierrez.piapoo2025.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vehiculo") //cache de segundo nivel de Hibernate (region en application.conf)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) //campos internos del proxy de Hibernate cuando se carga LAZY
 @NoArgsConstructor
 @Getter @Setter //Getters y setters usando Lombok
 public class Vehiculo {
+    //los dos estados que acepta el campo estado, para usarlos en las consultas y validaciones sin repetir el texto
+    public static final String ESTADO_DISPONIBLE = "DISPONIBLE";
+    public static final String ESTADO_MANTENIMIENTO = "EN MANTENIMIENTO";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -37,4 +51,12 @@ public class Vehiculo {
     @Positive(message = "El precio por día debe ser un número positivo")
     private Double precioPorDia; //precio por cada día de renta
 
+    //bloqueo optimista y ETag: aumenta con cada actualización
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @UpdateTimestamp //se asigna al guardar y al actualizar
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime ultimaModificacion;
 }
@@ -1,7 +1,36 @@
 package org.axelgutierrez.piapoo2025.repository;
 
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
 import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ClienteRepository extends CrudRepository<Cliente, Long> {
+    //Pagina por id (keyset): los clientes con id mayor al dado, ordenados por id
+    @EntityGraph(attributePaths = "direccion")
+    List<Cliente> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    //La direccion es LAZY, las lecturas la traen con un join
+    @Override
+    @EntityGraph(attributePaths = "direccion")
+    Optional<Cliente> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "direccion")
+    Iterable<Cliente> findAll();
+
+    //De los ids dados, devuelve solo los que existen (sin cargar los clientes ni sus direcciones)
+    @Query("SELECT c.id FROM Cliente c WHERE c.id IN :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    //Version y ultima modificacion del cliente, para los ETag (sin cargar la entidad)
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VersionRecurso(c.version, c.ultimaModificacion) FROM Cliente c WHERE c.id = :id")
+    Optional<VersionRecurso> obtenerVersion(@Param("id") Long id);
 }
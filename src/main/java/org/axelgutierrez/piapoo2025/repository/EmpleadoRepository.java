@@ -1,7 +1,31 @@
 package org.axelgutierrez.piapoo2025.repository;
 
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
 import org.axelgutierrez.piapoo2025.model.Empleado;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface EmpleadoRepository extends CrudRepository<Empleado, Long> {
+    //Pagina por id (keyset): los empleados con id mayor al dado, ordenados por id
+    @EntityGraph(attributePaths = {"direccion", "rol"})
+    List<Empleado> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    //La direccion y el rol son LAZY, las lecturas los traen con un join
+    @Override
+    @EntityGraph(attributePaths = {"direccion", "rol"})
+    Optional<Empleado> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"direccion", "rol"})
+    Iterable<Empleado> findAll();
+
+    //Version y ultima modificacion del empleado, para los ETag (sin cargar la entidad)
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VersionRecurso(e.version, e.ultimaModificacion) FROM Empleado e WHERE e.id = :id")
+    Optional<VersionRecurso> obtenerVersion(@Param("id") Long id);
 }
@@ -1,40 +1,120 @@
 package org.axelgutierrez.piapoo2025.repository;
 
+import jakarta.persistence.QueryHint;
+import org.axelgutierrez.piapoo2025.dto.IntervaloReserva;
+import org.axelgutierrez.piapoo2025.dto.ReservaExportacion;
+import org.axelgutierrez.piapoo2025.dto.ReservaResumen;
+import org.axelgutierrez.piapoo2025.dto.ValidacionReserva;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
 import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReservaRepository extends CrudRepository<Reserva, Long> {
-    /*Para cada reserva de ese vehiculo revisamos si
-      la nueva fecha de inicio no este entre las fechas de una reserva ya hecha.
-      la nueva fecha de fin no este entre las fechas de una reserva ya hecha
-      la fecha de inicio de una reserva no este entre las fechas de la nueva reserva
+    /*Todo lo necesario para aceptar una reserva en una sola consulta: el estado y precio del vehiculo,
+      si existe el cliente y si alguna reserva del vehiculo (excepto la que se actualiza, si se da) se solapa.
+      Hay solapamiento si la reserva empieza antes (o el mismo dia) de que termine la nueva
+      y termina despues (o el mismo dia) de que empiece la nueva.
+      Si el vehiculo no existe no devuelve nada.
     */
-    @Query("SELECT r FROM Reserva r WHERE r.vehiculo.id = :vehiculoId AND " +
-            "(:nuevaFechaInicio BETWEEN r.fechaInicio AND r.fechaFin OR " +
-            ":nuevaFechaFin BETWEEN r.fechaInicio AND r.fechaFin OR " +
-            "r.fechaInicio BETWEEN :nuevaFechaInicio AND :nuevaFechaFin)")
-    List<Reserva> buscarReservasEnConflicto(@Param("vehiculoId") Long vehiculoId, @Param("nuevaFechaInicio") LocalDate nuevaFechaInicio, @Param("nuevaFechaFin") LocalDate nuevaFechaFin);
-
-    /*Para cada reserva de ese vehiculo excepto la reserva que se quiere actualizar,
-      si no, siempre se solaparían con la nueva fecha revisamos que:
-      la nueva fecha de inicio no este entre las fechas de una reserva ya hecha.
-      la nueva fecha de fin no este entre las fechas de una reserva ya hecha
-      la fecha de inicio de una reserva no este entre las fechas de la nueva reserva
-     */
-    @Query("SELECT r FROM Reserva r WHERE r.vehiculo.id = :vehiculoId AND r.id <> :reservaId AND " +
-            "(:nuevaFechaInicio BETWEEN r.fechaInicio AND r.fechaFin OR " +
-            ":nuevaFechaFin BETWEEN r.fechaInicio AND r.fechaFin OR " +
-            "r.fechaInicio BETWEEN :nuevaFechaInicio AND :nuevaFechaFin)")
-    List<Reserva> buscarReservasEnConflictoAlActualizar(@Param("vehiculoId") Long vehiculoId,
-                                                        @Param("nuevaFechaInicio") LocalDate nuevaFechaInicio,
-                                                        @Param("nuevaFechaFin") LocalDate nuevaFechaFin,
-                                                        @Param("reservaId") Long reservaId);
-
-    //Obtiene el historial de reservas para un cliente en específico
-    List<Reserva> findByClienteId(Long clienteId);
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.ValidacionReserva(v.estado, v.precioPorDia, " +
+            "CASE WHEN EXISTS (SELECT c.id FROM Cliente c WHERE c.id = :clienteId) THEN true ELSE false END, " +
+            "CASE WHEN EXISTS (SELECT r.id FROM Reserva r WHERE r.vehiculo.id = v.id AND " +
+            "(:reservaExcluida IS NULL OR r.id <> :reservaExcluida) AND " +
+            "r.fechaInicio <= :nuevaFechaFin AND r.fechaFin >= :nuevaFechaInicio) THEN true ELSE false END) " +
+            "FROM Vehiculo v WHERE v.id = :vehiculoId")
+    Optional<ValidacionReserva> validarReserva(@Param("vehiculoId") Long vehiculoId,
+                                               @Param("clienteId") Long clienteId,
+                                               @Param("nuevaFechaInicio") LocalDate nuevaFechaInicio,
+                                               @Param("nuevaFechaFin") LocalDate nuevaFechaFin,
+                                               @Param("reservaExcluida") Long reservaExcluida);
+
+    //Obtiene solo el id del vehiculo de una reserva, para bloquearlo antes de eliminarla; si no existe no devuelve nada
+    @Query("SELECT r.vehiculo.id FROM Reserva r WHERE r.id = :reservaId")
+    Optional<Long> obtenerVehiculoId(@Param("reservaId") Long reservaId);
+
+    //Obtiene solo el id, vehiculo y fechas de todas las reservas para cargar el indice en memoria
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.IntervaloReserva(r.id, r.vehiculo.id, r.fechaInicio, r.fechaFin) FROM Reserva r")
+    List<IntervaloReserva> obtenerIntervalos();
+
+    //Obtiene las fechas de las reservas de varios vehiculos que se solapan con un rango, para validar un lote en una sola consulta
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.IntervaloReserva(r.id, r.vehiculo.id, r.fechaInicio, r.fechaFin) FROM Reserva r " +
+            "WHERE r.vehiculo.id IN :vehiculoIds AND r.fechaInicio <= :hasta AND r.fechaFin >= :desde")
+    List<IntervaloReserva> obtenerIntervalosEnRango(@Param("vehiculoIds") Collection<Long> vehiculoIds,
+                                                    @Param("desde") LocalDate desde,
+                                                    @Param("hasta") LocalDate hasta);
+
+    /*Pagina (keyset) del historial de reservas de un cliente, de la mas reciente a la mas antigua, solo las columnas del resumen.
+      Los limites de fechas y el vehiculo son opcionales (null no filtra); el cursor es la fecha de inicio y el id
+      de la ultima reserva de la pagina anterior. Filtra y ordena sobre idx_reserva_cliente_fecha (cliente_id, fecha_inicio).
+    */
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.ReservaResumen(r.id, r.fechaInicio, r.fechaFin, r.precioTotal, " +
+            "c.id, c.nombre, c.apellidos, v.id, v.marca, v.modelo) " +
+            "FROM Reserva r JOIN r.cliente c JOIN r.vehiculo v WHERE r.cliente.id = :clienteId " +
+            "AND (:vehiculoId IS NULL OR r.vehiculo.id = :vehiculoId) " +
+            "AND (:inicioDesde IS NULL OR r.fechaInicio >= :inicioDesde) AND (:inicioHasta IS NULL OR r.fechaInicio <= :inicioHasta) " +
+            "AND (:finDesde IS NULL OR r.fechaFin >= :finDesde) AND (:finHasta IS NULL OR r.fechaFin <= :finHasta) " +
+            "AND (:despuesDeFecha IS NULL OR r.fechaInicio < :despuesDeFecha OR (r.fechaInicio = :despuesDeFecha AND r.id < :despuesDeId)) " +
+            "ORDER BY r.fechaInicio DESC, r.id DESC")
+    List<ReservaResumen> obtenerHistorialCliente(@Param("clienteId") Long clienteId,
+                                                 @Param("vehiculoId") Long vehiculoId,
+                                                 @Param("inicioDesde") LocalDate inicioDesde,
+                                                 @Param("inicioHasta") LocalDate inicioHasta,
+                                                 @Param("finDesde") LocalDate finDesde,
+                                                 @Param("finHasta") LocalDate finHasta,
+                                                 @Param("despuesDeFecha") LocalDate despuesDeFecha,
+                                                 @Param("despuesDeId") Long despuesDeId,
+                                                 Limit limite);
+
+    //Pagina por id (keyset) de los resumenes de las reservas, solo las columnas que necesita el listado
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.ReservaResumen(r.id, r.fechaInicio, r.fechaFin, r.precioTotal, " +
+            "c.id, c.nombre, c.apellidos, v.id, v.marca, v.modelo) " +
+            "FROM Reserva r JOIN r.cliente c JOIN r.vehiculo v WHERE r.id > :despuesDe ORDER BY r.id")
+    List<ReservaResumen> listarResumenes(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    //Pagina por id (keyset): las reservas con id mayor al dado, ordenados por id
+    @EntityGraph(attributePaths = {"cliente", "cliente.direccion", "vehiculo"})
+    List<Reserva> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    //Las asociaciones son LAZY, las lecturas de CrudRepository traen el cliente (con su direccion) y el vehiculo con un join
+    @Override
+    @EntityGraph(attributePaths = {"cliente", "cliente.direccion", "vehiculo"})
+    Optional<Reserva> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"cliente", "cliente.direccion", "vehiculo"})
+    Iterable<Reserva> findAll();
+
+    /*Recorre todas las reservas como filas planas para exportarlas, sin cargarlas todas en memoria.
+      El fetch size hace que el driver las traiga por bloques (en MySQL requiere useCursorFetch=true).
+      Se debe usar dentro de una transaccion y cerrar el Stream al terminar.
+    */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.ReservaExportacion(r.id, r.fechaInicio, r.fechaFin, r.precioTotal, r.cliente.id, r.vehiculo.id) " +
+            "FROM Reserva r ORDER BY r.id")
+    Stream<ReservaExportacion> recorrerParaExportar();
+
+    //Version y ultima modificacion de la reserva, para los ETag (sin cargar la entidad)
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VersionRecurso(r.version, r.ultimaModificacion) FROM Reserva r WHERE r.id = :id")
+    Optional<VersionRecurso> obtenerVersion(@Param("id") Long id);
+
+    /*Ultima modificacion de todo lo que muestra el listado: las reservas, los clientes (nombre y apellidos) y los vehiculos (marca y modelo).
+      Un solo viaje a la base de datos; cada MAX se lee del final de su indice (idx_*_ultima_modificacion), puede ser null si la tabla está vacía.
+    */
+    @Query("SELECT MAX(r.ultimaModificacion) FROM Reserva r " +
+            "UNION ALL SELECT MAX(c.ultimaModificacion) FROM Cliente c " +
+            "UNION ALL SELECT MAX(v.ultimaModificacion) FROM Vehiculo v")
+    List<LocalDateTime> obtenerUltimasModificacionesListado();
 }
@@ -1,12 +1,62 @@
 package org.axelgutierrez.piapoo2025.repository;
 
+import jakarta.persistence.QueryHint;
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
 import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
+/*Las paginas del catalogo usan la cache de consultas de Hibernate: los resultados se guardan
+  en la region default-query-results-region y Hibernate los descarta en cuanto se modifica la tabla vehiculo.
+  La busqueda por estado no, ya la guarda la cache vehiculosPorEstado de VehiculoService.
+*/
 public interface VehiculoRepository extends CrudRepository<Vehiculo, Long> {
-    //Mostrar los vehiculos dependiendo de su estado (DISPONIBLE O EN_MANTENIMIENTO)
-    List<Vehiculo> findByEstado(String estado);
-    //Mostrar los vehiculos con un precio menor a x Ordenados de mayor a menor
-    List<Vehiculo> findByPrecioPorDiaLessThanEqualOrderByPrecioPorDiaDesc(Double precioPorDia);
+    //Mostrar los vehiculos dependiendo de su estado (DISPONIBLE O EN MANTENIMIENTO), solo las columnas del resumen
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VehiculoResumen(v.id, v.marca, v.modelo, v.estado, v.precioPorDia) " +
+            "FROM Vehiculo v WHERE v.estado = :estado ORDER BY v.id")
+    List<VehiculoResumen> obtenerResumenesPorEstado(@Param("estado") String estado);
+
+    //Pagina por id (keyset) de los resumenes de los vehiculos
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VehiculoResumen(v.id, v.marca, v.modelo, v.estado, v.precioPorDia) " +
+            "FROM Vehiculo v WHERE v.id > :despuesDe ORDER BY v.id")
+    List<VehiculoResumen> listarResumenes(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /*Vehiculos que se pueden reservar en un rango de fechas, en una sola consulta:
+      que esten en el estado dado (Vehiculo.ESTADO_DISPONIBLE, como parametro y no como texto en la consulta), que no pasen del precio maximo (si se da)
+      y que no tengan ninguna reserva que se solape con las fechas.
+      Se pagina por id igual que el listado de vehiculos.
+    */
+    @Query("SELECT v FROM Vehiculo v WHERE v.estado = :estado AND " +
+            "(:precioMaximo IS NULL OR v.precioPorDia <= :precioMaximo) AND " +
+            "NOT EXISTS (SELECT r.id FROM Reserva r WHERE r.vehiculo = v AND " +
+            "r.fechaInicio <= :fechaFin AND r.fechaFin >= :fechaInicio) AND " +
+            "v.id > :despuesDe ORDER BY v.id")
+    List<Vehiculo> buscarDisponibles(@Param("estado") String estado,
+                                     @Param("fechaInicio") LocalDate fechaInicio,
+                                     @Param("fechaFin") LocalDate fechaFin,
+                                     @Param("precioMaximo") Double precioMaximo,
+                                     @Param("despuesDe") Long despuesDe,
+                                     Limit limite);
+
+    //Pagina por id (keyset): los vehiculos con id mayor al dado, ordenados por id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Vehiculo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    //Version y ultima modificacion del vehiculo, para los ETag (sin cargar la entidad)
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VersionRecurso(v.version, v.ultimaModificacion) FROM Vehiculo v WHERE v.id = :id")
+    Optional<VersionRecurso> obtenerVersion(@Param("id") Long id);
+
+    //Version del listado completo: cambia si se agrega, modifica o elimina cualquier vehiculo (MAX usa idx_vehiculo_ultima_modificacion)
+    @Query("SELECT new org.axelgutierrez.piapoo2025.dto.VersionRecurso(COUNT(v), MAX(v.ultimaModificacion)) FROM Vehiculo v")
+    VersionRecurso obtenerVersionListado();
 }
@@ -0,0 +1,310 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.axelgutierrez.piapoo2025.config.PropiedadesBandejaSalida;
+import org.axelgutierrez.piapoo2025.dto.EventoReserva;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bandeja de salida de los eventos de las reservas: los efectos secundarios de guardar, actualizar o eliminar una reserva
+ * (analítica, confirmaciones, auditoría) se procesan en segundo plano, fuera del tiempo de respuesta de la petición.
+ * <br>
+ * Al publicar, los eventos se numeran y se escriben en el diario en disco (DiarioEventos) y después se ponen en una cola en memoria con límite.
+ * Los trabajadores toman los eventos de la cola por lotes y los entregan a cada IManejadorEventosReserva.
+ * Cada cierto tiempo el diario se fuerza al disco y se guarda el punto de control: la secuencia hasta la que ya se procesó todo.
+ * Al iniciar, los eventos del diario posteriores al punto de control (los que no se alcanzaron a procesar) se vuelven a poner en la cola.
+ * <br>
+ * Si la cola está llena la petición espera como máximo esperaMaxima (contrapresión); si sigue llena el evento queda solo en el diario.
+ * Lo mismo pasa con un lote cuyo manejador lanza una excepción. Cada intervaloReintento esos eventos se vuelven a leer del diario
+ * y a poner en la cola, así el punto de control sigue avanzando y el diario se puede vaciar sin esperar a reiniciar.
+ * <br>
+ * Métricas: bandeja.salida.eventos (con la etiqueta resultado: publicado, procesado, rechazado, fallido, reintentado, reprocesado
+ * o perdido, si no estaba en el diario porque falló la escritura),
+ * bandeja.salida.cola (eventos en la cola), bandeja.salida.pendientes (publicados sin procesar, incluye los rechazados),
+ * bandeja.salida.espera (lo que esperan las peticiones con la cola llena), bandeja.salida.lote (lo que tarda cada lote)
+ * y bandeja.salida.diario.errores (escrituras o sincronizaciones del diario que fallaron).
+ */
+@Component
+public class BandejaSalida {
+    static final String METRICA_EVENTOS = "bandeja.salida.eventos";
+
+    private final PropiedadesBandejaSalida propiedades;
+    private final List<IManejadorEventosReserva> manejadores;
+    private final BlockingQueue<EventoReserva> cola;
+    //secuencias publicadas que todavia no se procesan, la menor marca hasta donde puede avanzar el punto de control
+    private final ConcurrentSkipListSet<Long> pendientes = new ConcurrentSkipListSet<>();
+    //pendientes que no estan en la cola ni en un trabajador (rechazados o de un lote que fallo), los vuelve a encolar reintentar()
+    private final ConcurrentSkipListSet<Long> varados = new ConcurrentSkipListSet<>();
+
+    private final Counter publicados;
+    private final Counter procesados;
+    private final Counter rechazados;
+    private final Counter fallidos;
+    private final Counter reintentados;
+    private final Counter reprocesados;
+    private final Counter perdidos;
+    private final Counter erroresDiario;
+    private final Timer espera;
+    private final Timer tiempoLote;
+
+    private DiarioEventos diario;
+    private long ultimaSecuencia; //se usa con synchronized, junto con la escritura en el diario
+    private ExecutorService trabajadores;
+    private ScheduledExecutorService sincronizacion;
+    private volatile boolean activa;
+
+    public BandejaSalida(PropiedadesBandejaSalida propiedades, List<IManejadorEventosReserva> manejadores, MeterRegistry meterRegistry) {
+        this.propiedades = propiedades;
+        this.manejadores = manejadores;
+        this.cola = new ArrayBlockingQueue<>(propiedades.capacidad());
+
+        publicados = contador(meterRegistry, "publicado");
+        procesados = contador(meterRegistry, "procesado");
+        rechazados = contador(meterRegistry, "rechazado");
+        fallidos = contador(meterRegistry, "fallido");
+        reintentados = contador(meterRegistry, "reintentado");
+        reprocesados = contador(meterRegistry, "reprocesado");
+        perdidos = contador(meterRegistry, "perdido");
+        erroresDiario = Counter.builder("bandeja.salida.diario.errores").register(meterRegistry);
+        espera = Timer.builder("bandeja.salida.espera").register(meterRegistry);
+        tiempoLote = Timer.builder("bandeja.salida.lote").register(meterRegistry);
+        Gauge.builder("bandeja.salida.cola", cola, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("bandeja.salida.pendientes", pendientes, ConcurrentSkipListSet::size).register(meterRegistry);
+    }
+
+    /**
+     * Abre el diario, arranca los trabajadores y vuelve a poner en la cola los eventos que no se procesaron antes de detener la aplicación.
+     *
+     * @throws IOException si no se puede abrir o leer el diario.
+     */
+    @PostConstruct
+    public void iniciar() throws IOException {
+        diario = DiarioEventos.abrir(propiedades.directorio());
+        long puntoDeControl = diario.leerPuntoDeControl();
+        List<EventoReserva> sinProcesar = diario.leerDespuesDe(puntoDeControl);
+        ultimaSecuencia = sinProcesar.isEmpty() ? puntoDeControl : sinProcesar.getLast().secuencia();
+        sinProcesar.forEach(evento -> pendientes.add(evento.secuencia()));
+
+        activa = true;
+        trabajadores = Executors.newFixedThreadPool(propiedades.trabajadores(), Thread.ofPlatform().name("bandeja-salida-", 1).daemon().factory());
+        for (int i = 0; i < propiedades.trabajadores(); i++) {
+            trabajadores.execute(this::trabajar);
+        }
+        sincronizacion = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("bandeja-salida-sincronizacion").daemon().factory());
+        long intervalo = propiedades.intervaloSincronizacion().toMillis();
+        sincronizacion.scheduleWithFixedDelay(this::sincronizar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        //en el mismo hilo que sincronizar, asi nunca lee el diario mientras se vacia
+        long intervaloReintento = propiedades.intervaloReintento().toMillis();
+        sincronizacion.scheduleWithFixedDelay(this::reintentar, intervaloReintento, intervaloReintento, TimeUnit.MILLISECONDS);
+
+        //los trabajadores ya estan vaciando la cola, aqui si se espera aunque este llena
+        for (int i = 0; i < sinProcesar.size(); i++) {
+            try {
+                cola.put(sinProcesar.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sinProcesar.subList(i, sinProcesar.size()).forEach(evento -> varados.add(evento.secuencia())); //se reintentan despues
+                return;
+            }
+            reprocesados.increment();
+        }
+    }
+
+    /**
+     * Publica un evento para procesarlo en segundo plano.
+     *
+     * @param evento el evento, sin secuencia.
+     */
+    public void publicar(EventoReserva evento) {
+        publicar(List.of(evento));
+    }
+
+    /**
+     * Publica varios eventos para procesarlos en segundo plano, escribiéndolos juntos en el diario.
+     * <br>
+     * Regresa en cuanto los eventos están en el diario y en la cola; solo espera si la cola está llena, a lo más esperaMaxima por evento.
+     *
+     * @param eventos los eventos, sin secuencia.
+     */
+    public void publicar(List<EventoReserva> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        List<EventoReserva> numerados = new ArrayList<>(eventos.size());
+        synchronized (this) {
+            for (EventoReserva evento : eventos) {
+                numerados.add(evento.conSecuencia(++ultimaSecuencia));
+            }
+            try {
+                diario.escribir(numerados);
+            } catch (IOException e) {
+                erroresDiario.increment(); //la reserva ya se guardo, los eventos se procesan aunque no queden en el diario
+            }
+            //dentro del bloqueo, asi el punto de control nunca pasa un evento escrito que aun no esta pendiente
+            numerados.forEach(evento -> pendientes.add(evento.secuencia()));
+        }
+        publicados.increment(numerados.size());
+
+        for (EventoReserva evento : numerados) {
+            if (!encolar(evento)) {
+                varados.add(evento.secuencia()); //sigue pendiente en el diario, lo vuelve a encolar reintentar()
+                rechazados.increment();
+            }
+        }
+    }
+
+    private boolean encolar(EventoReserva evento) {
+        if (cola.offer(evento)) {
+            return true;
+        }
+        //cola llena: esperamos un poco a que los trabajadores hagan lugar
+        long inicio = System.nanoTime();
+        try {
+            return cola.offer(evento, propiedades.esperaMaxima().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            espera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    //ciclo de cada trabajador: toma un lote de la cola y lo entrega, hasta que se detiene la bandeja y la cola queda vacia
+    private void trabajar() {
+        while (activa || !cola.isEmpty()) {
+            EventoReserva primero;
+            try {
+                primero = cola.poll(propiedades.intervaloSincronizacion().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return; //los eventos que queden en la cola siguen en el diario
+            }
+            if (primero == null) {
+                continue;
+            }
+            //una lista nueva por lote, los manejadores la pueden guardar
+            List<EventoReserva> lote = new ArrayList<>(propiedades.tamanoLote());
+            lote.add(primero);
+            cola.drainTo(lote, propiedades.tamanoLote() - 1);
+            tiempoLote.record(() -> procesar(Collections.unmodifiableList(lote)));
+        }
+    }
+
+    private void procesar(List<EventoReserva> lote) {
+        try {
+            for (IManejadorEventosReserva manejador : manejadores) {
+                manejador.procesar(lote);
+            }
+        } catch (RuntimeException e) {
+            lote.forEach(evento -> varados.add(evento.secuencia())); //el lote queda pendiente en el diario y se reintenta
+            fallidos.increment(lote.size());
+            return;
+        }
+        lote.forEach(evento -> pendientes.remove(evento.secuencia()));
+        procesados.increment(lote.size());
+    }
+
+    /**
+     * Vuelve a poner en la cola los eventos rechazados con la cola llena o de lotes que fallaron, leyéndolos del diario.
+     * <br>
+     * Solo encola mientras haya lugar, sin esperar; los que no quepan se intentan en la siguiente vuelta.
+     * Un evento que no está en el diario (falló la escritura al publicarlo) ya no se puede recuperar: deja de estar pendiente.
+     */
+    void reintentar() {
+        if (varados.isEmpty()) {
+            return;
+        }
+        NavigableSet<Long> porReintentar = new TreeSet<>(varados);
+        List<EventoReserva> eventos;
+        try {
+            eventos = diario.leerEntre(porReintentar.first(), porReintentar.last());
+        } catch (IOException e) {
+            erroresDiario.increment(); //se intenta de nuevo en la siguiente vuelta
+            return;
+        }
+        for (EventoReserva evento : eventos) {
+            if (!porReintentar.remove(evento.secuencia())) {
+                continue; //del rango, pero en la cola o ya procesado
+            }
+            //se quita antes de encolar: si el trabajador lo toma y vuelve a fallar, lo marca otra vez
+            varados.remove(evento.secuencia());
+            if (!cola.offer(evento)) {
+                varados.add(evento.secuencia()); //la cola sigue llena
+                return;
+            }
+            reintentados.increment();
+        }
+        for (Long secuencia : porReintentar) {
+            varados.remove(secuencia);
+            pendientes.remove(secuencia);
+            perdidos.increment();
+        }
+    }
+
+    /**
+     * Fuerza el diario al disco y guarda el punto de control.
+     * <br>
+     * Si ya se procesó todo y el diario pasó de tamanoMaximoDiario, se vacía.
+     */
+    void sincronizar() {
+        try {
+            long puntoDeControl;
+            synchronized (this) {
+                diario.forzar();
+                puntoDeControl = pendientes.isEmpty() ? ultimaSecuencia : pendientes.first() - 1;
+            }
+            diario.guardarPuntoDeControl(puntoDeControl);
+            synchronized (this) {
+                //solo si nadie publico mientras se guardaba el punto de control
+                if (puntoDeControl == ultimaSecuencia && diario.tamano() > propiedades.tamanoMaximoDiario().toBytes()) {
+                    diario.vaciar();
+                }
+            }
+        } catch (IOException e) {
+            erroresDiario.increment(); //se intenta de nuevo en la siguiente sincronizacion
+        }
+    }
+
+    /**
+     * Deja de recibir eventos, espera a que los trabajadores vacíen la cola y guarda el punto de control.
+     *
+     * @throws IOException si no se puede cerrar el diario.
+     * @throws InterruptedException si se interrumpe mientras espera a los trabajadores.
+     */
+    @PreDestroy
+    public void detener() throws IOException, InterruptedException {
+        activa = false;
+        trabajadores.shutdown();
+        sincronizacion.shutdown();
+        try {
+            //lo que no alcance a procesarse sigue en el diario
+            trabajadores.awaitTermination(10, TimeUnit.SECONDS);
+            sincronizacion.awaitTermination(10, TimeUnit.SECONDS);
+            sincronizar();
+        } finally {
+            diario.close();
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder(METRICA_EVENTOS).tag("resultado", resultado).register(meterRegistry);
+    }
+}
@@ -0,0 +1,82 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloqueos por franjas para serializar las reservas de un mismo vehiculo.
+ * <br>
+ * Cada vehiculo cae en una de las franjas según su id; solo las reservas que caen en la misma franja
+ * esperan entre ellas, las de vehiculos en otras franjas se procesan en paralelo.
+ * <br>
+ * Revisar el conflicto y guardar la reserva dentro del bloqueo evita que dos peticiones
+ * para el mismo vehiculo pasen la revisión al mismo tiempo y lo reserven dos veces.
+ * <br>
+ * VehiculoService también guarda los cambios de un vehiculo dentro de su bloqueo, para actualizar IndicePrecios en el mismo orden.
+ * <br>
+ * Se usa con try-with-resources: {@code try (Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(id)) { ... }}
+ */
+@Component
+public class BloqueosPorVehiculo {
+    private static final int FRANJAS = 256;
+
+    private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+
+    public BloqueosPorVehiculo() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Bloquea el vehiculo dado hasta que se cierre el bloqueo devuelto.
+     *
+     * @param vehiculoId el id del vehiculo que se quiere bloquear.
+     * @return el bloqueo, se libera al cerrarlo.
+     */
+    public Bloqueo bloquear(long vehiculoId) {
+        return bloquear(List.of(vehiculoId));
+    }
+
+    /**
+     * Bloquea todos los vehiculos dados hasta que se cierre el bloqueo devuelto.
+     * <br>
+     * Las franjas siempre se bloquean en el mismo orden (de menor a mayor) para que dos operaciones
+     * que bloquean varios vehiculos no se queden esperando una a la otra.
+     *
+     * @param vehiculoIds los ids de los vehiculos que se quieren bloquear.
+     * @return el bloqueo, se liberan todos los vehiculos al cerrarlo.
+     */
+    public Bloqueo bloquear(Collection<Long> vehiculoIds) {
+        int[] indices = vehiculoIds.stream().mapToInt(this::franja).distinct().sorted().toArray();
+        for (int indice : indices) {
+            franjas[indice].lock();
+        }
+        return new Bloqueo(indices);
+    }
+
+    private int franja(long vehiculoId) {
+        return Math.floorMod(Long.hashCode(vehiculoId), FRANJAS);
+    }
+
+    /**
+     * Las franjas bloqueadas por una operación; al cerrarlo se liberan en orden inverso.
+     */
+    public final class Bloqueo implements AutoCloseable {
+        private final int[] indices;
+
+        private Bloqueo(int[] indices) {
+            this.indices = indices;
+        }
+
+        @Override
+        public void close() {
+            for (int i = indices.length - 1; i >= 0; i--) {
+                franjas[indices[i]].unlock();
+            }
+        }
+    }
+}
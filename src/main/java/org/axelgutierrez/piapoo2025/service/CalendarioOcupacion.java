@@ -0,0 +1,97 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.dto.IntervaloReserva;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendario en memoria de los días ocupados de cada vehiculo.
+ * <br>
+ * Por cada vehiculo se guarda un BitSet con un bit por día (contando desde el 1 de enero de 2000): el bit está encendido
+ * si ese día hay una reserva. Así la ocupación de un rango de fechas se lee copiando un tramo de bits,
+ * sin consultar la base de datos ni recorrer las reservas.
+ * <br>
+ * El calendario no guarda las reservas: lo mantiene IndiceReservas, que marca los días de cada reserva que agrega
+ * y libera los de cada reserva que quita (también al cargarse al iniciar la aplicación).
+ * Las reservas de un mismo vehiculo no se solapan, por lo que al quitar una reserva basta apagar sus días.
+ */
+@Component
+public class CalendarioOcupacion {
+    static final LocalDate ORIGEN = LocalDate.of(2000, 1, 1); //los dias anteriores no se guardan, siempre salen libres
+    public static final int DIAS_MAXIMOS = 366; //dias que se pueden pedir en una sola consulta
+
+    //cada BitSet se usa con synchronized sobre si mismo, las escrituras de un vehiculo son pocas y muy cortas
+    private final Map<Long, BitSet> diasPorVehiculo = new ConcurrentHashMap<>();
+
+    //marca los dias de una reserva, lo llama IndiceReservas al agregarla
+    void marcar(IntervaloReserva intervalo) {
+        if (intervalo.fechaFin().isBefore(ORIGEN)) {
+            return; //no tiene dias dentro del calendario
+        }
+        BitSet dias = diasPorVehiculo.computeIfAbsent(intervalo.vehiculoId(), id -> new BitSet());
+        synchronized (dias) {
+            dias.set(indiceDesdeOrigen(intervalo.fechaInicio()), (int) indice(intervalo.fechaFin()) + 1);
+        }
+    }
+
+    //libera los dias de una reserva, lo llama IndiceReservas al quitarla o antes de moverla
+    void liberar(IntervaloReserva intervalo) {
+        BitSet dias = diasPorVehiculo.get(intervalo.vehiculoId());
+        if (dias != null && !intervalo.fechaFin().isBefore(ORIGEN)) {
+            synchronized (dias) {
+                dias.clear(indiceDesdeOrigen(intervalo.fechaInicio()), (int) indice(intervalo.fechaFin()) + 1);
+            }
+        }
+    }
+
+    //borra todo el calendario, IndiceReservas lo vuelve a llenar al cargarse
+    void vaciar() {
+        diasPorVehiculo.clear();
+    }
+
+    /**
+     * Obtiene los días ocupados de un vehiculo en un rango de fechas.
+     * <br>
+     * El resultado tiene un carácter por día, desde "desde" hasta "hasta" (ambos incluidos): '1' si el vehiculo está reservado ese día
+     * y '0' si está libre.
+     *
+     * @param vehiculoId el id del vehiculo.
+     * @param desde el primer día del rango.
+     * @param hasta el último día del rango, a lo más DIAS_MAXIMOS días después de "desde".
+     * @return la ocupación de cada día del rango.
+     */
+    public String ocupacion(long vehiculoId, LocalDate desde, LocalDate hasta) {
+        long primero = indice(desde); //puede ser negativo si el rango empieza antes del origen
+        long ultimo = indice(hasta);
+        char[] resultado = new char[(int) (ultimo - primero) + 1];
+        Arrays.fill(resultado, '0');
+        BitSet dias = diasPorVehiculo.get(vehiculoId);
+        if (dias != null && ultimo >= 0) {
+            int inicioTramo = indiceDesdeOrigen(desde);
+            BitSet tramo;
+            synchronized (dias) {
+                tramo = dias.get(inicioTramo, (int) ultimo + 1);
+            }
+            int desplazamiento = (int) (inicioTramo - primero); //dias del rango anteriores al origen, siempre libres
+            for (int dia = tramo.nextSetBit(0); dia >= 0; dia = tramo.nextSetBit(dia + 1)) {
+                resultado[dia + desplazamiento] = '1';
+            }
+        }
+        return new String(resultado);
+    }
+
+    //dias entre el origen y la fecha (negativo si la fecha es anterior al origen)
+    private static long indice(LocalDate fecha) {
+        return fecha.toEpochDay() - ORIGEN.toEpochDay();
+    }
+
+    //posicion del dia en el BitSet, las fechas anteriores al origen empiezan en el primer bit
+    private static int indiceDesdeOrigen(LocalDate fecha) {
+        return (int) Math.max(0, indice(fecha));
+    }
+}
@@ -1,12 +1,18 @@
 package org.axelgutierrez.piapoo2025.service;
 
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
 import org.axelgutierrez.piapoo2025.model.Cliente;
 import org.axelgutierrez.piapoo2025.model.Direccion;
 import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +46,24 @@ public class ClienteService implements IFuncionesCompartidas<Cliente> {
         return (List<Cliente>) clienteRepository.findAll();
     }
 
+    /**
+     * Obtiene una pagina de los clientes en la base de datos.
+     * <br>
+     * El metodo consulta a través del repositorio solo los clientes con id mayor al cursor dado, ordenados por id,
+     * así cada pagina cuesta lo mismo sin importar cuantos registros haya en la tabla.
+     *
+     * @param despuesDe el id del ultimo elemento de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con los clientes y el cursor para pedir la siguiente.
+     */
+    @Override
+    public PaginaCursor<Cliente> listarPagina(Long despuesDe, int limite) {
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        //pedimos uno de mas para saber si hay otra pagina
+        List<Cliente> filas = clienteRepository.findByIdGreaterThanOrderByIdAsc(despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, Cliente::getId);
+    }
+
     /**
      * Obtiene un cliente de la base de datos.
      * <br>
@@ -59,58 +83,99 @@ public class ClienteService implements IFuncionesCompartidas<Cliente> {
         return cliente.get(); //si existe, obtenemos al cliente
     }
 
+    /**
+     * Obtiene la version y la fecha de ultima modificacion del cliente.
+     * <br>
+     * El metodo consulta solo esas dos columnas a través del repositorio, sin cargar el cliente ni sus relaciones,
+     * para responder las peticiones condicionales (ETag) sin serializar nada.
+     *
+     * @param id el id del cliente.
+     * @return la version del cliente.
+     * @throws RecursoNoEncontradoException si no existe el cliente con el id dado en la base de datos.
+     */
+    @Override
+    public VersionRecurso obtenerVersion(Long id) throws RecursoNoEncontradoException {
+        return clienteRepository.obtenerVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Cliente no encontrado con id: " + id));
+    }
+
     /**
      * Actualiza un cliente en la base de datos.
      * <br>
      * El metodo recibe el id del cliente que se desea actualizar y un objeto "Cliente" con la información que se desea cambiar y lo actualiza en la base de datos a través del repositorio.
      *<br>
      * Solo se actualizan los datos que no sean null.
+     * Si otra petición guarda el mismo cliente al mismo tiempo se vuelve a leer y se vuelven a copiar los cambios (ver ReintentoOptimista).
      *
      * @param id el id del cliente que se desea actualizar.
      * @param clienteActualizado el objeto "Cliente" con la información que se desea cambiar.
+     * @param versionEsperada la version del encabezado If-Match, o null si no importa la version.
      * @return el cliente con los cambios realizados.
      * @throws RecursoNoEncontradoException si no existe el cliente con el id dado en la base de datos.
+     * @throws ConflictoVersionException si no es la version esperada o si otra petición cambió los mismos datos.
      */
     @Override
-    public Cliente actualizar(Long id, Cliente clienteActualizado) throws RecursoNoEncontradoException {
-        Cliente cliente = buscarPorId(id); //buscamos si existe
+    public Cliente actualizar(Long id, Cliente clienteActualizado, Long versionEsperada) throws RecursoNoEncontradoException, ConflictoVersionException {
+        ReintentoOptimista<Cliente> reintento = new ReintentoOptimista<>("Cliente", id, versionEsperada, Cliente::getVersion,
+                cliente -> camposEditados(cliente, clienteActualizado));
+        while (true) {
+            Cliente cliente = buscarPorId(id); //buscamos si existe
+            reintento.revisar(cliente); //412 si no es la version del If-Match
 
-        //si es null no lo quiere actualizar, si NO es null, actualizamos el atributo
-        if (clienteActualizado.getNombre() != null) {
-            cliente.setNombre(clienteActualizado.getNombre());
-        }
-        if (clienteActualizado.getApellidos() != null) {
-            cliente.setApellidos(clienteActualizado.getApellidos());
-        }
-        if (clienteActualizado.getEmail() != null) {
-            cliente.setEmail(clienteActualizado.getEmail());
-        }
-        if (clienteActualizado.getTelefono() != null) {
-            cliente.setTelefono(clienteActualizado.getTelefono());
-        }
-        if (clienteActualizado.getDireccion() != null) {
-            Direccion direccionNueva = clienteActualizado.getDireccion();
-            if(direccionNueva.getCalle() != null) {
-                cliente.getDireccion().setCalle(direccionNueva.getCalle());
+            //si es null no lo quiere actualizar, si NO es null, actualizamos el atributo
+            if (clienteActualizado.getNombre() != null) {
+                cliente.setNombre(clienteActualizado.getNombre());
             }
-            if(direccionNueva.getNumCasa() != null) {
-                cliente.getDireccion().setNumCasa(direccionNueva.getNumCasa());
+            if (clienteActualizado.getApellidos() != null) {
+                cliente.setApellidos(clienteActualizado.getApellidos());
             }
-            if(direccionNueva.getColonia() != null) {
-                cliente.getDireccion().setColonia(direccionNueva.getColonia());
+            if (clienteActualizado.getEmail() != null) {
+                cliente.setEmail(clienteActualizado.getEmail());
             }
-            if(direccionNueva.getMunicipio() != null) {
-                cliente.getDireccion().setMunicipio(direccionNueva.getMunicipio());
+            if (clienteActualizado.getTelefono() != null) {
+                cliente.setTelefono(clienteActualizado.getTelefono());
             }
-            if(direccionNueva.getEstado() != null) {
-                cliente.getDireccion().setEstado(direccionNueva.getEstado());
+            if (clienteActualizado.getDireccion() != null) {
+                Direccion direccionNueva = clienteActualizado.getDireccion();
+                if(direccionNueva.getCalle() != null) {
+                    cliente.getDireccion().setCalle(direccionNueva.getCalle());
+                }
+                if(direccionNueva.getNumCasa() != null) {
+                    cliente.getDireccion().setNumCasa(direccionNueva.getNumCasa());
+                }
+                if(direccionNueva.getColonia() != null) {
+                    cliente.getDireccion().setColonia(direccionNueva.getColonia());
+                }
+                if(direccionNueva.getMunicipio() != null) {
+                    cliente.getDireccion().setMunicipio(direccionNueva.getMunicipio());
+                }
+                if(direccionNueva.getEstado() != null) {
+                    cliente.getDireccion().setEstado(direccionNueva.getEstado());
+                }
+                if(direccionNueva.getCodigoPostal() != null) {
+                    cliente.getDireccion().setCodigoPostal(direccionNueva.getCodigoPostal());
+                }
             }
-            if(direccionNueva.getCodigoPostal() != null) {
-                cliente.getDireccion().setCodigoPostal(direccionNueva.getCodigoPostal());
+
+            try {
+                return clienteRepository.save(cliente); //sobreescribimos (solo los datos nuevos)
+            } catch (OptimisticLockingFailureException e) {
+                reintento.registrarConflicto(); //otra petición lo guardó primero: se vuelve a leer y a copiar, o se lanza el conflicto
             }
         }
+    }
 
-        return clienteRepository.save(cliente); //sobreescribimos (solo los datos nuevos)
+    //valores actuales de los campos que la petición quiere cambiar, para saber si otra petición los cambió al mismo tiempo
+    private static List<Object> camposEditados(Cliente cliente, Cliente cambios) {
+        //null en los campos que no se cambian, así las dos listas siempre tienen el mismo tamaño
+        return Arrays.asList(
+                cambios.getNombre() != null ? cliente.getNombre() : null,
+                cambios.getApellidos() != null ? cliente.getApellidos() : null,
+                cambios.getEmail() != null ? cliente.getEmail() : null,
+                cambios.getTelefono() != null ? cliente.getTelefono() : null,
+                cambios.getDireccion() != null ? Arrays.asList(cliente.getDireccion().getCalle(), cliente.getDireccion().getNumCasa(),
+                        cliente.getDireccion().getColonia(), cliente.getDireccion().getMunicipio(), cliente.getDireccion().getEstado(),
+                        cliente.getDireccion().getCodigoPostal()) : null);
     }
 
     /**
@@ -0,0 +1,36 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.axelgutierrez.piapoo2025.dto.EventoReserva;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Contadores de analítica de las reservas, alimentados por BandejaSalida fuera de las peticiones.
+ * <br>
+ * Registra reservas.eventos (cuantas reservas se crean, actualizan y eliminan, con la etiqueta tipo)
+ * y reservas.dias (la duración de las reservas creadas).
+ */
+@Component
+public class ContadoresEventosReserva implements IManejadorEventosReserva {
+    static final String METRICA_EVENTOS = "reservas.eventos";
+    static final String METRICA_DIAS = "reservas.dias";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public void procesar(List<EventoReserva> lote) {
+        DistributionSummary dias = DistributionSummary.builder(METRICA_DIAS).baseUnit("dias").register(meterRegistry);
+        for (EventoReserva evento : lote) {
+            meterRegistry.counter(METRICA_EVENTOS, "tipo", evento.tipo().name()).increment();
+            if (evento.tipo() == EventoReserva.Tipo.CREADA) {
+                dias.record(ChronoUnit.DAYS.between(evento.fechaInicio(), evento.fechaFin()) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.dto.EventoReserva;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diario en disco de los eventos de BandejaSalida: un archivo de texto con un evento por línea, solo se agrega al final.
+ * <br>
+ * Cada evento se escribe directo al archivo (sin buffer en memoria), así sobrevive si el proceso se cae; forzar() lo lleva al disco
+ * para que sobreviva también a un corte de luz. El punto de control es la secuencia del último evento procesado,
+ * se guarda en otro archivo que se reemplaza completo para que nunca quede a medias.
+ * <br>
+ * El directorio se bloquea mientras el diario está abierto, dos instancias no pueden escribir en el mismo.
+ */
+final class DiarioEventos implements Closeable {
+    static final String ARCHIVO_EVENTOS = "eventos.diario";
+    static final String ARCHIVO_PUNTO_DE_CONTROL = "punto-de-control";
+    private static final String SEPARADOR = ";";
+
+    private final Path directorio;
+    private final FileChannel eventos;
+    private final FileChannel candado;
+    private final FileLock bloqueo;
+
+    private DiarioEventos(Path directorio, FileChannel eventos, FileChannel candado, FileLock bloqueo) {
+        this.directorio = directorio;
+        this.eventos = eventos;
+        this.candado = candado;
+        this.bloqueo = bloqueo;
+    }
+
+    /**
+     * Abre (o crea) el diario del directorio dado.
+     * <br>
+     * Si la aplicación se cayó mientras escribía, la última línea puede haber quedado incompleta: se recorta para que
+     * el siguiente evento empiece en una línea nueva.
+     *
+     * @param directorio el directorio del diario, se crea si no existe.
+     * @return el diario abierto, listo para escribir al final.
+     * @throws IOException si no se puede abrir o si otra instancia ya tiene abierto el directorio.
+     */
+    static DiarioEventos abrir(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        FileChannel candado = FileChannel.open(directorio.resolve(".bloqueo"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock bloqueo = candado.tryLock();
+        if (bloqueo == null) {
+            candado.close();
+            throw new IOException("Otra instancia de la aplicación está usando el diario de eventos en " + directorio.toAbsolutePath());
+        }
+        FileChannel eventos = FileChannel.open(directorio.resolve(ARCHIVO_EVENTOS), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        eventos.truncate(finDeLaUltimaLinea(eventos));
+        eventos.position(eventos.size());
+        return new DiarioEventos(directorio, eventos, candado, bloqueo);
+    }
+
+    /**
+     * Agrega los eventos al final del diario en una sola escritura.
+     * <br>
+     * Si la escritura falla a la mitad (por ejemplo, con el disco lleno) se recorta lo que alcanzó a escribirse,
+     * así el siguiente lote no se pega a una línea incompleta.
+     *
+     * @param lote los eventos ya numerados.
+     * @throws IOException si no se pudieron escribir.
+     */
+    void escribir(List<EventoReserva> lote) throws IOException {
+        StringBuilder lineas = new StringBuilder(lote.size() * 96);
+        for (EventoReserva evento : lote) {
+            codificar(evento, lineas);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lineas.toString().getBytes(StandardCharsets.UTF_8));
+        long inicio = eventos.position();
+        try {
+            while (buffer.hasRemaining()) {
+                eventos.write(buffer);
+            }
+        } catch (IOException e) {
+            try {
+                eventos.truncate(inicio);
+                eventos.position(inicio);
+            } catch (IOException alRecortar) {
+                e.addSuppressed(alRecortar); //queda la linea a medias, leerEntre la salta
+            }
+            throw e;
+        }
+    }
+
+    //lleva al disco lo escrito en el diario
+    void forzar() throws IOException {
+        eventos.force(false);
+    }
+
+    long tamano() throws IOException {
+        return eventos.size();
+    }
+
+    //borra todos los eventos, solo se llama cuando ya se procesaron todos y el punto de control está guardado
+    void vaciar() throws IOException {
+        eventos.truncate(0);
+        eventos.position(0);
+        eventos.force(true);
+    }
+
+    /**
+     * Lee los eventos del diario con secuencia mayor a la dada, en el orden en el que se escribieron.
+     *
+     * @param secuencia el punto de control: la secuencia del último evento procesado.
+     * @return los eventos que faltan por procesar.
+     * @throws IOException si no se pudo leer el diario.
+     */
+    List<EventoReserva> leerDespuesDe(long secuencia) throws IOException {
+        return leerEntre(secuencia + 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Lee los eventos del diario con secuencia entre las dadas (incluidas), en el orden en el que se escribieron.
+     * <br>
+     * Se puede llamar mientras se escribe: deja de leer en el primer evento posterior a "hasta".
+     * Las líneas que no se pueden leer (la que todavía está a medias, o una que quedó dañada) se saltan.
+     *
+     * @param desde la secuencia del primer evento.
+     * @param hasta la secuencia del último evento.
+     * @return los eventos del rango que están en el diario.
+     * @throws IOException si no se pudo leer el diario.
+     */
+    List<EventoReserva> leerEntre(long desde, long hasta) throws IOException {
+        List<EventoReserva> leidos = new ArrayList<>();
+        //se lee con otro canal para no mover la posicion de escritura
+        try (BufferedReader lector = Files.newBufferedReader(directorio.resolve(ARCHIVO_EVENTOS), StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                long secuencia;
+                EventoReserva evento = null;
+                try {
+                    secuencia = Long.parseLong(linea.substring(0, linea.indexOf(SEPARADOR)));
+                    if (secuencia >= desde && secuencia <= hasta) {
+                        evento = decodificar(linea); //solo se decodifican las del rango
+                    }
+                } catch (RuntimeException e) {
+                    continue; //linea a medias o dañada, se salta y se sigue con el resto del diario
+                }
+                if (secuencia > hasta) {
+                    break;
+                }
+                if (evento != null) {
+                    leidos.add(evento);
+                }
+            }
+        }
+        return leidos;
+    }
+
+    long leerPuntoDeControl() throws IOException {
+        Path archivo = directorio.resolve(ARCHIVO_PUNTO_DE_CONTROL);
+        return Files.exists(archivo) ? Long.parseLong(Files.readString(archivo).trim()) : 0;
+    }
+
+    //escribe el punto de control en un archivo temporal y lo cambia por el anterior de una vez
+    void guardarPuntoDeControl(long secuencia) throws IOException {
+        Path temporal = directorio.resolve(ARCHIVO_PUNTO_DE_CONTROL + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            canal.write(ByteBuffer.wrap(Long.toString(secuencia).getBytes(StandardCharsets.UTF_8)));
+            canal.force(true);
+        }
+        Files.move(temporal, directorio.resolve(ARCHIVO_PUNTO_DE_CONTROL), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (candado; eventos) {
+            bloqueo.release();
+        }
+    }
+
+    //secuencia;tipo;reservaId;vehiculoId;clienteId;fechaInicio;fechaFin;precioTotal;instante, los null quedan vacios
+    private static void codificar(EventoReserva evento, StringBuilder destino) {
+        destino.append(evento.secuencia()).append(SEPARADOR)
+                .append(evento.tipo()).append(SEPARADOR)
+                .append(evento.reservaId()).append(SEPARADOR)
+                .append(texto(evento.vehiculoId())).append(SEPARADOR)
+                .append(texto(evento.clienteId())).append(SEPARADOR)
+                .append(texto(evento.fechaInicio())).append(SEPARADOR)
+                .append(texto(evento.fechaFin())).append(SEPARADOR)
+                .append(texto(evento.precioTotal())).append(SEPARADOR)
+                .append(evento.instante()).append('\n');
+    }
+
+    private static EventoReserva decodificar(String linea) {
+        String[] campos = linea.split(SEPARADOR, -1);
+        return new EventoReserva(Long.parseLong(campos[0]), EventoReserva.Tipo.valueOf(campos[1]), Long.parseLong(campos[2]),
+                campos[3].isEmpty() ? null : Long.valueOf(campos[3]),
+                campos[4].isEmpty() ? null : Long.valueOf(campos[4]),
+                campos[5].isEmpty() ? null : LocalDate.parse(campos[5]),
+                campos[6].isEmpty() ? null : LocalDate.parse(campos[6]),
+                campos[7].isEmpty() ? null : Double.valueOf(campos[7]),
+                Instant.parse(campos[8]));
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? "" : valor.toString();
+    }
+
+    //posicion despues del ultimo salto de linea (0 si no hay ninguno), se busca desde el final por bloques
+    private static long finDeLaUltimaLinea(FileChannel canal) throws IOException {
+        ByteBuffer bloque = ByteBuffer.allocate(4096);
+        long fin = canal.size();
+        while (fin > 0) {
+            long inicio = Math.max(0, fin - bloque.capacity());
+            bloque.clear().limit((int) (fin - inicio));
+            while (bloque.hasRemaining()) {
+                canal.read(bloque, inicio + bloque.position()); //lectura por posicion, no mueve la del canal
+            }
+            for (int i = bloque.position() - 1; i >= 0; i--) {
+                if (bloque.get(i) == '\n') {
+                    return inicio + i + 1;
+                }
+            }
+            fin = inicio;
+        }
+        return 0;
+    }
+}
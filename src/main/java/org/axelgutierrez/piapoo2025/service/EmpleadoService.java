@@ -1,13 +1,20 @@
 package org.axelgutierrez.piapoo2025.service;
 
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
 import org.axelgutierrez.piapoo2025.model.Direccion;
 import org.axelgutierrez.piapoo2025.model.Empleado;
+import org.axelgutierrez.piapoo2025.model.RolEmpleado;
 import org.axelgutierrez.piapoo2025.repository.EmpleadoRepository;
 import org.axelgutierrez.piapoo2025.repository.RolEmpleadoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,10 +36,8 @@ public class EmpleadoService implements IFuncionesCompartidas<Empleado> {
      */
     @Override
     public Empleado guardar(Empleado empleado) throws RecursoNoEncontradoException{
-        //busca si existe el rol del empleado en la base de datos antes de guardar
-        if(!rolEmpleadoRepository.existsById(empleado.getRol().getId())) {
-            throw new RecursoNoEncontradoException("Rol no encontrado con id: " + empleado.getRol().getId());
-        }
+        //busca el rol del empleado antes de guardar, normalmente en la cache de segundo nivel sin ir a la base de datos
+        empleado.setRol(buscarRol(empleado.getRol().getId()));
 
         return empleadoRepository.save(empleado);
     }
@@ -49,6 +54,24 @@ public class EmpleadoService implements IFuncionesCompartidas<Empleado> {
         return (List<Empleado>) empleadoRepository.findAll();
     }
 
+    /**
+     * Obtiene una pagina de los empleados en la base de datos.
+     * <br>
+     * El metodo consulta a través del repositorio solo los empleados con id mayor al cursor dado, ordenados por id,
+     * así cada pagina cuesta lo mismo sin importar cuantos registros haya en la tabla.
+     *
+     * @param despuesDe el id del ultimo elemento de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con los empleados y el cursor para pedir la siguiente.
+     */
+    @Override
+    public PaginaCursor<Empleado> listarPagina(Long despuesDe, int limite) {
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        //pedimos uno de mas para saber si hay otra pagina
+        List<Empleado> filas = empleadoRepository.findByIdGreaterThanOrderByIdAsc(despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, Empleado::getId);
+    }
+
     /**
      * Obtiene un empleado de la base de datos.
      * <br>
@@ -68,64 +91,109 @@ public class EmpleadoService implements IFuncionesCompartidas<Empleado> {
         return empleado.get(); //si existe, obtenemos al empleado
     }
 
+    /**
+     * Obtiene la version y la fecha de ultima modificacion del empleado.
+     * <br>
+     * El metodo consulta solo esas dos columnas a través del repositorio, sin cargar el empleado ni sus relaciones,
+     * para responder las peticiones condicionales (ETag) sin serializar nada.
+     *
+     * @param id el id del empleado.
+     * @return la version del empleado.
+     * @throws RecursoNoEncontradoException si no existe el empleado con el id dado en la base de datos.
+     */
+    @Override
+    public VersionRecurso obtenerVersion(Long id) throws RecursoNoEncontradoException {
+        return empleadoRepository.obtenerVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Empleado no encontrado con id: " + id));
+    }
+
     /**
      * Actualiza un empleado en la base de datos.
      * <br>
      * El metodo recibe el id del empleado que se desea actualizar y un objeto "Empleado" con la información que se desea cambiar y lo actualiza en la base de datos a través del repositorio.
      * <br>
      * Solo se actualizan los datos que no sean null.
+     * Si otra petición guarda el mismo empleado al mismo tiempo se vuelve a leer y se vuelven a copiar los cambios (ver ReintentoOptimista).
      *
      * @param id el id del empleado que se desea actualizar.
      * @param empleadoActualizado el objeto "Empleado" con la información que se desea cambiar.
+     * @param versionEsperada la version del encabezado If-Match, o null si no importa la version.
      * @return el empleado con los cambios realizados.
      * @throws RecursoNoEncontradoException si no existe el empleado con el id dado en la base de datos.
+     * @throws ConflictoVersionException si no es la version esperada o si otra petición cambió los mismos datos.
     */
     @Override
-    public Empleado actualizar(Long id, Empleado empleadoActualizado) throws RecursoNoEncontradoException {
-        Empleado empleado = buscarPorId(id); //buscamos si existe
+    public Empleado actualizar(Long id, Empleado empleadoActualizado, Long versionEsperada) throws RecursoNoEncontradoException, ConflictoVersionException {
+        ReintentoOptimista<Empleado> reintento = new ReintentoOptimista<>("Empleado", id, versionEsperada, Empleado::getVersion,
+                empleado -> camposEditados(empleado, empleadoActualizado));
+        while (true) {
+            Empleado empleado = buscarPorId(id); //buscamos si existe
+            reintento.revisar(empleado); //412 si no es la version del If-Match
 
-        //si no es null actualiza ese campo
-        if(empleadoActualizado.getNombre() != null) {
-            empleado.setNombre(empleadoActualizado.getNombre());
-        }
-        if(empleadoActualizado.getApellidos() != null) {
-            empleado.setApellidos(empleadoActualizado.getApellidos());
-        }
-        if(empleadoActualizado.getEmail() != null) {
-            empleado.setEmail(empleadoActualizado.getEmail());
-        }
-        if(empleadoActualizado.getTelefono() != null) {
-            empleado.setTelefono(empleadoActualizado.getTelefono());
-        }
-        if(empleadoActualizado.getDireccion() != null) {
-            Direccion direccionNueva = empleadoActualizado.getDireccion();
-            if(direccionNueva.getCalle() != null) {
-                empleado.getDireccion().setCalle(direccionNueva.getCalle());
+            //si no es null actualiza ese campo
+            if(empleadoActualizado.getNombre() != null) {
+                empleado.setNombre(empleadoActualizado.getNombre());
             }
-            if(direccionNueva.getNumCasa() != null) {
-                empleado.getDireccion().setNumCasa(direccionNueva.getNumCasa());
+            if(empleadoActualizado.getApellidos() != null) {
+                empleado.setApellidos(empleadoActualizado.getApellidos());
             }
-            if(direccionNueva.getColonia() != null) {
-                empleado.getDireccion().setColonia(direccionNueva.getColonia());
+            if(empleadoActualizado.getEmail() != null) {
+                empleado.setEmail(empleadoActualizado.getEmail());
             }
-            if(direccionNueva.getMunicipio() != null) {
-                empleado.getDireccion().setMunicipio(direccionNueva.getMunicipio());
+            if(empleadoActualizado.getTelefono() != null) {
+                empleado.setTelefono(empleadoActualizado.getTelefono());
             }
-            if(direccionNueva.getEstado() != null) {
-                empleado.getDireccion().setEstado(direccionNueva.getEstado());
+            if(empleadoActualizado.getDireccion() != null) {
+                Direccion direccionNueva = empleadoActualizado.getDireccion();
+                if(direccionNueva.getCalle() != null) {
+                    empleado.getDireccion().setCalle(direccionNueva.getCalle());
+                }
+                if(direccionNueva.getNumCasa() != null) {
+                    empleado.getDireccion().setNumCasa(direccionNueva.getNumCasa());
+                }
+                if(direccionNueva.getColonia() != null) {
+                    empleado.getDireccion().setColonia(direccionNueva.getColonia());
+                }
+                if(direccionNueva.getMunicipio() != null) {
+                    empleado.getDireccion().setMunicipio(direccionNueva.getMunicipio());
+                }
+                if(direccionNueva.getEstado() != null) {
+                    empleado.getDireccion().setEstado(direccionNueva.getEstado());
+                }
+                if(direccionNueva.getCodigoPostal() != null) {
+                    empleado.getDireccion().setCodigoPostal(direccionNueva.getCodigoPostal());
+                }
             }
-            if(direccionNueva.getCodigoPostal() != null) {
-                empleado.getDireccion().setCodigoPostal(direccionNueva.getCodigoPostal());
+            if(empleadoActualizado.getRol() != null) { //valida que exista el nuevo rol
+                empleado.setRol(buscarRol(empleadoActualizado.getRol().getId()));
             }
-        }
-        if(empleadoActualizado.getRol() != null) { //valida que exista el nuevo rol
-            if(!rolEmpleadoRepository.existsById(empleadoActualizado.getRol().getId())) {
-                throw new RecursoNoEncontradoException("Rol no encontrado con id: " + empleadoActualizado.getRol().getId());
+
+            try {
+                return empleadoRepository.save(empleado);
+            } catch (OptimisticLockingFailureException e) {
+                reintento.registrarConflicto(); //otra petición lo guardó primero: se vuelve a leer y a copiar, o se lanza el conflicto
             }
-            empleado.setRol(empleadoActualizado.getRol());
         }
+    }
 
-        return empleadoRepository.save(empleado);
+    //findById lee el rol de la cache de segundo nivel (region rolEmpleado); existsById siempre consultaria la base de datos
+    private RolEmpleado buscarRol(Long rolId) throws RecursoNoEncontradoException {
+        return rolEmpleadoRepository.findById(rolId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Rol no encontrado con id: " + rolId));
+    }
+
+    //valores actuales de los campos que la petición quiere cambiar, para saber si otra petición los cambió al mismo tiempo
+    private static List<Object> camposEditados(Empleado empleado, Empleado cambios) {
+        //null en los campos que no se cambian, así las dos listas siempre tienen el mismo tamaño
+        return Arrays.asList(
+                cambios.getNombre() != null ? empleado.getNombre() : null,
+                cambios.getApellidos() != null ? empleado.getApellidos() : null,
+                cambios.getEmail() != null ? empleado.getEmail() : null,
+                cambios.getTelefono() != null ? empleado.getTelefono() : null,
+                cambios.getDireccion() != null ? Arrays.asList(empleado.getDireccion().getCalle(), empleado.getDireccion().getNumCasa(),
+                        empleado.getDireccion().getColonia(), empleado.getDireccion().getMunicipio(), empleado.getDireccion().getEstado(),
+                        empleado.getDireccion().getCodigoPostal()) : null,
+                cambios.getRol() != null ? empleado.getRol().getId() : null);
     }
 
     /**
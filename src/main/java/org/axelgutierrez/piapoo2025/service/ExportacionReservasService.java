@@ -0,0 +1,75 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.axelgutierrez.piapoo2025.dto.ReservaExportacion;
+import org.axelgutierrez.piapoo2025.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ExportacionReservasService {
+    @Autowired
+    private ReservaRepository reservaRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Exporta todas las reservas en formato NDJSON (un objeto JSON por línea).
+     * <br>
+     * Las reservas se leen de la base de datos por bloques y se escriben directo en la salida conforme llegan,
+     * así la memoria usada no depende de cuantas reservas haya.
+     *
+     * @param salida el stream donde se escriben las reservas (la respuesta HTTP).
+     * @throws IOException si falla la escritura en la salida.
+     */
+    @Transactional(readOnly = true)
+    public void exportarNdjson(OutputStream salida) throws IOException {
+        try (Stream<ReservaExportacion> reservas = reservaRepository.recorrerParaExportar();
+             SequenceWriter escritor = objectMapper.writer().withRootValueSeparator("\n").writeValues(salida)) {
+            Iterator<ReservaExportacion> iterador = reservas.iterator();
+            if (!iterador.hasNext()) {
+                return; //sin reservas la exportacion queda vacia, sin lineas en blanco
+            }
+            while (iterador.hasNext()) {
+                escritor.write(iterador.next());
+            }
+            escritor.flush();
+            salida.write('\n'); //el separador va entre objetos, la ultima linea tambien termina en salto de linea
+        }
+    }
+
+    /**
+     * Exporta todas las reservas en formato CSV, con una línea de encabezados.
+     * <br>
+     * Igual que en NDJSON, las reservas se escriben conforme se leen de la base de datos.
+     *
+     * @param salida el stream donde se escriben las reservas (la respuesta HTTP).
+     * @throws IOException si falla la escritura en la salida.
+     */
+    @Transactional(readOnly = true)
+    public void exportarCsv(OutputStream salida) throws IOException {
+        try (Stream<ReservaExportacion> reservas = reservaRepository.recorrerParaExportar();
+             Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8))) {
+            escritor.write("id,fechaInicio,fechaFin,precioTotal,clienteId,vehiculoId\n");
+            Iterator<ReservaExportacion> iterador = reservas.iterator();
+            while (iterador.hasNext()) {
+                ReservaExportacion reserva = iterador.next();
+                //todos los campos son numeros o fechas, no hace falta escapar comas ni comillas
+                escritor.write(reserva.id() + "," + reserva.fechaInicio() + "," + reserva.fechaFin() + ","
+                        + (reserva.precioTotal() == null ? "" : reserva.precioTotal()) + ","
+                        + reserva.clienteId() + "," + reserva.vehiculoId() + "\n");
+            }
+        }
+    }
+}
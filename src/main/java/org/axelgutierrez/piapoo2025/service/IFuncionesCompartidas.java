@@ -1,11 +1,19 @@
 package org.axelgutierrez.piapoo2025.service;
 
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+
 import java.util.List;
 
 public interface IFuncionesCompartidas<T> {
     T guardar(T entidad) throws Exception;
     List<T> listar() throws Exception;
+    //pagina por id: los elementos con id mayor a "despuesDe" (null para la primera pagina), como maximo "limite"
+    PaginaCursor<T> listarPagina(Long despuesDe, int limite) throws Exception;
     T buscarPorId(Long id) throws Exception;
-    T actualizar(Long id, T entidad) throws Exception;
+    //version y ultima modificacion del elemento, sin cargarlo (para los ETag)
+    VersionRecurso obtenerVersion(Long id) throws Exception;
+    //versionEsperada: la version del If-Match, o null si no importa (ver ReintentoOptimista)
+    T actualizar(Long id, T entidad, Long versionEsperada) throws Exception;
     void eliminar(Long id) throws Exception;
 }
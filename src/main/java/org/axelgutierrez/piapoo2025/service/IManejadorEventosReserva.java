@@ -0,0 +1,17 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.dto.EventoReserva;
+
+import java.util.List;
+
+/**
+ * Procesa en segundo plano los eventos de las reservas que publica BandejaSalida.
+ * <br>
+ * Cada componente que implementa esta interfaz recibe todos los eventos, por lotes y en el orden en el que se publicaron
+ * dentro de cada lote. Si un manejador lanza una excepción el lote queda pendiente y se vuelve a entregar en un lote posterior
+ * (o al reiniciar la aplicación), así un evento se puede recibir más de una vez y después de eventos más nuevos:
+ * los manejadores deben tolerar los repetidos (por ejemplo con la secuencia).
+ */
+public interface IManejadorEventosReserva {
+    void procesar(List<EventoReserva> lote);
+}
@@ -0,0 +1,247 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.annotation.PostConstruct;
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice en memoria de los vehiculos ordenados por precio por dia.
+ * <br>
+ * Los precios y los ids se guardan en dos arreglos primitivos (double[] y long[]) ordenados por precio y luego por id,
+ * así buscar por precio maximo o por rango de precios es una búsqueda binaria y un recorrido del tramo, sin ir a la base de datos.
+ * Junto a ellos, en la misma posición, se guardan el estado, la marca, el modelo y el color (para los filtros y el resumen),
+ * sin mapas ni llaves en objetos y sin guardar las entidades.
+ * <br>
+ * Las lecturas no usan candados: cada cambio crea arreglos nuevos y los publica de una vez (copia al escribir),
+ * lo cual es barato porque los vehiculos cambian pocas veces al día.
+ * El índice se carga al iniciar la aplicación y se mantiene al día desde VehiculoService, que registra y quita
+ * con el vehiculo bloqueado; por eso aquí no se comparan versiones.
+ */
+@Component
+public class IndicePrecios {
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+
+    //los arreglos de una instantanea nunca se modifican despues de publicarse, todos tienen el mismo largo y orden
+    private record Instantanea(double[] precios, long[] ids, String[] estados, String[] marcas, String[] modelos, String[] colores) {
+
+        //la posicion del vehiculo, o -1 si no esta; recorre los ids, igual que copiar los arreglos al escribir
+        int posicionDe(long vehiculoId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == vehiculoId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Instantanea conVehiculo(int posicion, Vehiculo vehiculo) {
+            return new Instantanea(insertar(precios, posicion, vehiculo.getPrecioPorDia()), insertar(ids, posicion, vehiculo.getId()),
+                    insertar(estados, posicion, vehiculo.getEstado()), insertar(marcas, posicion, vehiculo.getMarca()),
+                    insertar(modelos, posicion, vehiculo.getModelo()), insertar(colores, posicion, vehiculo.getColor()));
+        }
+
+        Instantanea sinPosicion(int posicion) {
+            return new Instantanea(quitar(precios, posicion), quitar(ids, posicion), quitar(estados, posicion),
+                    quitar(marcas, posicion), quitar(modelos, posicion), quitar(colores, posicion));
+        }
+    }
+
+    private static final String[] SIN_TEXTOS = new String[0];
+    private volatile Instantanea actual = new Instantanea(new double[0], new long[0], SIN_TEXTOS, SIN_TEXTOS, SIN_TEXTOS, SIN_TEXTOS);
+
+    /**
+     * Carga en el índice todos los vehiculos de la base de datos.
+     */
+    @PostConstruct
+    public void cargar() {
+        List<Vehiculo> vehiculos = new ArrayList<>();
+        vehiculoRepository.findAll().forEach(vehiculo -> {
+            if (vehiculo.getPrecioPorDia() != null) {
+                vehiculos.add(vehiculo);
+            }
+        });
+        vehiculos.sort(Comparator.comparingDouble(Vehiculo::getPrecioPorDia).thenComparingLong(Vehiculo::getId));
+
+        int tamano = vehiculos.size();
+        Instantanea cargada = new Instantanea(new double[tamano], new long[tamano], new String[tamano], new String[tamano],
+                new String[tamano], new String[tamano]);
+        for (int i = 0; i < tamano; i++) {
+            Vehiculo vehiculo = vehiculos.get(i);
+            cargada.precios()[i] = vehiculo.getPrecioPorDia();
+            cargada.ids()[i] = vehiculo.getId();
+            cargada.estados()[i] = vehiculo.getEstado();
+            cargada.marcas()[i] = vehiculo.getMarca();
+            cargada.modelos()[i] = vehiculo.getModelo();
+            cargada.colores()[i] = vehiculo.getColor();
+        }
+        synchronized (this) {
+            actual = cargada;
+        }
+    }
+
+    /**
+     * Busca los vehiculos con un precio por dia dentro de un rango, ordenados de mayor a menor precio.
+     * <br>
+     * Los filtros de estado, marca y color son opcionales (null no filtra) y no distinguen mayúsculas.
+     *
+     * @param precioMinimo el precio por dia minimo, o null si no hay minimo.
+     * @param precioMaximo el precio por dia maximo, o null si no hay maximo.
+     * @param estado el estado de los vehiculos, o null.
+     * @param marca la marca de los vehiculos, o null.
+     * @param color el color de los vehiculos, o null.
+     * @return el resumen de los vehiculos que cumplen con el rango y los filtros, del más caro al más barato.
+     */
+    public List<VehiculoResumen> buscar(Double precioMinimo, Double precioMaximo, String estado, String marca, String color) {
+        Instantanea instantanea = actual; //leemos una sola vez, la instantanea no cambia mientras la recorremos
+        double[] precios = instantanea.precios();
+        int desde = precioMinimo == null ? 0 : primeroNoMenorA(precios, precioMinimo);
+        int hasta = precioMaximo == null ? precios.length : primeroMayorA(precios, precioMaximo);
+
+        List<VehiculoResumen> resultado = new ArrayList<>();
+        for (int i = hasta - 1; i >= desde; i--) { //recorremos el tramo al reves para ir de mayor a menor precio
+            if (coincide(estado, instantanea.estados()[i]) && coincide(marca, instantanea.marcas()[i]) && coincide(color, instantanea.colores()[i])) {
+                resultado.add(new VehiculoResumen(instantanea.ids()[i], instantanea.marcas()[i], instantanea.modelos()[i],
+                        instantanea.estados()[i], precios[i]));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Registra (o reemplaza si ya existía) un vehiculo guardado en el índice.
+     *
+     * @param vehiculo el vehiculo ya guardado en la base de datos.
+     */
+    public synchronized void registrar(Vehiculo vehiculo) {
+        Instantanea sinAnterior = sinVehiculo(actual, vehiculo.getId());
+        if (vehiculo.getPrecioPorDia() == null) {
+            actual = sinAnterior;
+            return;
+        }
+        int posicion = -(posicion(sinAnterior.precios(), sinAnterior.ids(), vehiculo.getPrecioPorDia(), vehiculo.getId()) + 1);
+        actual = sinAnterior.conVehiculo(posicion, vehiculo);
+    }
+
+    /**
+     * Quita un vehiculo del índice.
+     *
+     * @param vehiculoId el id del vehiculo eliminado.
+     */
+    public synchronized void quitar(long vehiculoId) {
+        actual = sinVehiculo(actual, vehiculoId);
+    }
+
+    private static Instantanea sinVehiculo(Instantanea instantanea, long vehiculoId) {
+        int posicion = instantanea.posicionDe(vehiculoId);
+        return posicion < 0 ? instantanea : instantanea.sinPosicion(posicion);
+    }
+
+    //busqueda binaria por (precio, id): la posicion si existe, o -(posicion donde iria)-1 si no, igual que Arrays.binarySearch
+    private static int posicion(double[] precios, long[] ids, double precio, long id) {
+        int bajo = 0;
+        int alto = precios.length - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = Double.compare(precios[medio], precio);
+            if (comparacion == 0) {
+                comparacion = Long.compare(ids[medio], id);
+            }
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    //primera posicion con precio >= al dado (o el largo del arreglo si no hay)
+    private static int primeroNoMenorA(double[] precios, double precio) {
+        int bajo = 0;
+        int alto = precios.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (precios[medio] < precio) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    //primera posicion con precio > al dado (o el largo del arreglo si no hay)
+    private static int primeroMayorA(double[] precios, double precio) {
+        int bajo = 0;
+        int alto = precios.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (precios[medio] <= precio) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static boolean coincide(String filtro, String valor) {
+        return filtro == null || filtro.equalsIgnoreCase(valor);
+    }
+
+    //copias de un arreglo con un elemento de mas o de menos en la posicion dada, una por cada tipo de arreglo
+    private static double[] insertar(double[] valores, int posicion, double valor) {
+        double[] nuevos = new double[valores.length + 1];
+        System.arraycopy(valores, 0, nuevos, 0, posicion);
+        nuevos[posicion] = valor;
+        System.arraycopy(valores, posicion, nuevos, posicion + 1, valores.length - posicion);
+        return nuevos;
+    }
+
+    private static long[] insertar(long[] valores, int posicion, long valor) {
+        long[] nuevos = new long[valores.length + 1];
+        System.arraycopy(valores, 0, nuevos, 0, posicion);
+        nuevos[posicion] = valor;
+        System.arraycopy(valores, posicion, nuevos, posicion + 1, valores.length - posicion);
+        return nuevos;
+    }
+
+    private static String[] insertar(String[] valores, int posicion, String valor) {
+        String[] nuevos = new String[valores.length + 1];
+        System.arraycopy(valores, 0, nuevos, 0, posicion);
+        nuevos[posicion] = valor;
+        System.arraycopy(valores, posicion, nuevos, posicion + 1, valores.length - posicion);
+        return nuevos;
+    }
+
+    private static double[] quitar(double[] valores, int posicion) {
+        double[] nuevos = new double[valores.length - 1];
+        System.arraycopy(valores, 0, nuevos, 0, posicion);
+        System.arraycopy(valores, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+        return nuevos;
+    }
+
+    private static long[] quitar(long[] valores, int posicion) {
+        long[] nuevos = new long[valores.length - 1];
+        System.arraycopy(valores, 0, nuevos, 0, posicion);
+        System.arraycopy(valores, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+        return nuevos;
+    }
+
+    private static String[] quitar(String[] valores, int posicion) {
+        String[] nuevos = new String[valores.length - 1];
+        System.arraycopy(valores, 0, nuevos, 0, posicion);
+        System.arraycopy(valores, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+        return nuevos;
+    }
+}
@@ -0,0 +1,155 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.annotation.PostConstruct;
+import org.axelgutierrez.piapoo2025.dto.IntervaloReserva;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Índice en memoria de las reservas de cada vehiculo.
+ * <br>
+ * Por cada vehiculo se guardan sus reservas ordenadas por fecha de inicio, así revisar si unas fechas
+ * se solapan es una búsqueda O(log n) en memoria en lugar de una consulta a la base de datos.
+ * <br>
+ * El índice se carga al iniciar la aplicación y se mantiene al día desde ReservaService cada vez que
+ * se guarda, actualiza o elimina una reserva. Cada cambio también se refleja en CalendarioOcupacion,
+ * así las reservas en memoria se cargan una sola vez y viven en un solo lugar.
+ */
+@Component
+public class IndiceReservas {
+    //ordena por fecha de inicio y, si empatan, por id para no perder reservas con el mismo inicio
+    private static final Comparator<IntervaloReserva> POR_INICIO =
+            Comparator.comparing(IntervaloReserva::fechaInicio).thenComparingLong(IntervaloReserva::id);
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    private final CalendarioOcupacion calendarioOcupacion;
+    private final Map<Long, NavigableSet<IntervaloReserva>> intervalosPorVehiculo = new ConcurrentHashMap<>();
+    private final Map<Long, IntervaloReserva> intervalosPorReserva = new ConcurrentHashMap<>();
+
+    /**
+     * Crea un índice temporal, sin calendario (por ejemplo para revisar los choques dentro de un lote).
+     */
+    public IndiceReservas() {
+        this(null);
+    }
+
+    /**
+     * Crea el índice de la aplicación, que mantiene al día el calendario de ocupación.
+     *
+     * @param calendarioOcupacion el calendario donde se marcan los días de cada reserva.
+     */
+    @Autowired
+    public IndiceReservas(CalendarioOcupacion calendarioOcupacion) {
+        this.calendarioOcupacion = calendarioOcupacion;
+    }
+
+    /**
+     * Carga en el índice todas las reservas de la base de datos.
+     * <br>
+     * Solo se consultan el id, el vehiculo y las fechas de cada reserva.
+     */
+    @PostConstruct
+    public void cargar() {
+        intervalosPorVehiculo.clear();
+        intervalosPorReserva.clear();
+        if (calendarioOcupacion != null) {
+            calendarioOcupacion.vaciar();
+        }
+        reservaRepository.obtenerIntervalos().forEach(this::agregar);
+    }
+
+    /**
+     * Revisa si un vehiculo tiene alguna reserva que se solape con las fechas dadas.
+     * <br>
+     * Las reservas de un mismo vehiculo no se solapan entre sí, por lo que basta revisar la última reserva
+     * que empieza antes (o el mismo día) de la nueva fecha de fin: si termina después de la nueva fecha de inicio hay conflicto.
+     * <br>
+     * Si el índice dice que no hay conflicto la base de datos se vuelve a revisar antes de guardar.
+     *
+     * @param vehiculoId el id del vehiculo que se quiere reservar.
+     * @param fechaInicio la fecha de inicio de la nueva reserva.
+     * @param fechaFin la fecha de fin de la nueva reserva.
+     * @param reservaExcluida el id de la reserva que se está actualizando (no cuenta como conflicto), o null si es nueva.
+     * @return true si ya hay una reserva para esas fechas.
+     */
+    public boolean hayConflicto(long vehiculoId, LocalDate fechaInicio, LocalDate fechaFin, Long reservaExcluida) {
+        NavigableSet<IntervaloReserva> intervalos = intervalosPorVehiculo.get(vehiculoId);
+        if (intervalos == null) {
+            return false;
+        }
+        //limite: cualquier reserva que empiece a más tardar en la nueva fecha de fin
+        IntervaloReserva limite = new IntervaloReserva(Long.MAX_VALUE, vehiculoId, fechaFin, fechaFin);
+        for (IntervaloReserva intervalo : intervalos.headSet(limite, true).descendingSet()) {
+            if (reservaExcluida != null && intervalo.id() == reservaExcluida) {
+                continue; //la reserva que se actualiza no choca consigo misma
+            }
+            return !intervalo.fechaFin().isBefore(fechaInicio);
+        }
+        return false;
+    }
+
+    /**
+     * Registra (o reemplaza si ya existía) una reserva guardada en el índice.
+     *
+     * @param reserva la reserva ya guardada en la base de datos.
+     */
+    public void registrar(Reserva reserva) {
+        registrar(new IntervaloReserva(reserva.getId(), reserva.getVehiculo().getId(), reserva.getFechaInicio(), reserva.getFechaFin()));
+    }
+
+    /**
+     * Registra (o reemplaza si ya existía) el intervalo de una reserva en el índice.
+     *
+     * @param intervalo el id, vehiculo y fechas de la reserva.
+     */
+    public void registrar(IntervaloReserva intervalo) {
+        quitar(intervalo.id());
+        agregar(intervalo);
+    }
+
+    /**
+     * Quita una reserva del índice.
+     *
+     * @param reservaId el id de la reserva eliminada.
+     */
+    public void quitar(long reservaId) {
+        IntervaloReserva anterior = intervalosPorReserva.remove(reservaId);
+        if (anterior != null) {
+            NavigableSet<IntervaloReserva> intervalos = intervalosPorVehiculo.get(anterior.vehiculoId());
+            if (intervalos != null) {
+                intervalos.remove(anterior);
+            }
+            if (calendarioOcupacion != null) {
+                calendarioOcupacion.liberar(anterior);
+            }
+        }
+    }
+
+    /**
+     * La cantidad de reservas en el índice, es decir, las reservas que hay en la base de datos.
+     *
+     * @return la cantidad de reservas.
+     */
+    public int cantidad() {
+        return intervalosPorReserva.size();
+    }
+
+    private void agregar(IntervaloReserva intervalo) {
+        intervalosPorReserva.put(intervalo.id(), intervalo);
+        intervalosPorVehiculo.computeIfAbsent(intervalo.vehiculoId(), id -> new ConcurrentSkipListSet<>(POR_INICIO)).add(intervalo);
+        if (calendarioOcupacion != null) {
+            calendarioOcupacion.marcar(intervalo);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.config.PropiedadesTarifas;
+import org.axelgutierrez.piapoo2025.dto.Cotizacion;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Calcula el precio de una reserva con las tarifas de temporada, de fin de semana y los descuentos por duración.
+ * <br>
+ * Al iniciar, las tablas de PropiedadesTarifas se compilan en arreglos primitivos: el factor de cada día desde 2000 hasta 2099
+ * (en puntos base) se guarda como suma acumulada, así la suma de los factores de cualquier rango es una resta, y el descuento
+ * se busca por la cantidad de días. Cotizar cuesta lo mismo para una reserva de un día que para una de un año.
+ * <br>
+ * Todo se calcula en centavos con long (sin Double), redondeando a la mitad hacia arriba solo al final del subtotal y del descuento.
+ */
+@Component
+public class MotorTarifas {
+    static final LocalDate PRIMER_DIA = LocalDate.of(2000, 1, 1);
+    static final LocalDate ULTIMO_DIA = LocalDate.of(2099, 12, 31);
+    private static final long PUNTOS_BASE = 10_000; //100%
+
+    //factoresAcumulados[i] es la suma de los factores de los dias anteriores al dia i (contando desde PRIMER_DIA)
+    private final long[] factoresAcumulados;
+    //descuentoPorDias[d] es el descuento de una reserva de d dias; las reservas más largas usan el último
+    private final int[] descuentoPorDias;
+
+    public MotorTarifas(PropiedadesTarifas propiedades) {
+        factoresAcumulados = compilarFactores(propiedades);
+        descuentoPorDias = compilarDescuentos(propiedades.descuentos());
+    }
+
+    /**
+     * Cotiza una reserva con el detalle del subtotal y el descuento.
+     *
+     * @param vehiculoId el id del vehiculo que se cotiza.
+     * @param precioPorDia el precio por día del vehiculo.
+     * @param fechaInicio el primer día de la reserva.
+     * @param fechaFin el último día de la reserva (se cobra también).
+     * @return la cotización con los montos exactos en pesos.
+     * @throws ReservaInvalidaException si las fechas están al revés o fuera de 2000-2099.
+     */
+    public Cotizacion cotizar(long vehiculoId, double precioPorDia, LocalDate fechaInicio, LocalDate fechaFin) throws ReservaInvalidaException {
+        validarFechas(fechaInicio, fechaFin);
+        long precioCentavos = centavos(precioPorDia);
+        int dias = dias(fechaInicio, fechaFin);
+        long subtotal = subtotalCentavos(precioCentavos, fechaInicio, fechaFin);
+        long descuento = descuentoCentavos(subtotal, dias);
+        return new Cotizacion(vehiculoId, fechaInicio, fechaFin, dias, BigDecimal.valueOf(precioCentavos, 2),
+                BigDecimal.valueOf(subtotal, 2), BigDecimal.valueOf(descuento, 2), BigDecimal.valueOf(subtotal - descuento, 2));
+    }
+
+    /**
+     * Calcula el precio total de una reserva, el mismo que daría cotizar.
+     *
+     * @param precioPorDia el precio por día del vehiculo.
+     * @param fechaInicio el primer día de la reserva.
+     * @param fechaFin el último día de la reserva (se cobra también).
+     * @return el precio total en pesos (centavos exactos).
+     * @throws ReservaInvalidaException si las fechas están al revés o fuera de 2000-2099.
+     */
+    public double precioTotal(double precioPorDia, LocalDate fechaInicio, LocalDate fechaFin) throws ReservaInvalidaException {
+        validarFechas(fechaInicio, fechaFin);
+        long subtotal = subtotalCentavos(centavos(precioPorDia), fechaInicio, fechaFin);
+        return (subtotal - descuentoCentavos(subtotal, dias(fechaInicio, fechaFin))) / 100.0;
+    }
+
+    private long subtotalCentavos(long precioCentavos, LocalDate fechaInicio, LocalDate fechaFin) {
+        long factores = factoresAcumulados[indice(fechaFin) + 1] - factoresAcumulados[indice(fechaInicio)];
+        return redondear(precioCentavos * factores);
+    }
+
+    private long descuentoCentavos(long subtotal, int dias) {
+        return redondear(subtotal * descuentoPorDias[Math.min(dias, descuentoPorDias.length - 1)]);
+    }
+
+    private static void validarFechas(LocalDate fechaInicio, LocalDate fechaFin) throws ReservaInvalidaException {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new ReservaInvalidaException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        if (fechaInicio.isBefore(PRIMER_DIA) || fechaFin.isAfter(ULTIMO_DIA)) {
+            throw new ReservaInvalidaException("Solo se pueden cotizar fechas entre " + PRIMER_DIA + " y " + ULTIMO_DIA);
+        }
+    }
+
+    private static long[] compilarFactores(PropiedadesTarifas propiedades) {
+        validarFactor(propiedades.finDeSemana(), "tarifas.fin-de-semana");
+        List<PropiedadesTarifas.Temporada> temporadas = propiedades.temporadas();
+        int[] temporadaDesde = new int[temporadas.size()];
+        int[] temporadaHasta = new int[temporadas.size()];
+        for (int t = 0; t < temporadas.size(); t++) {
+            PropiedadesTarifas.Temporada temporada = temporadas.get(t);
+            validarFactor(temporada.factor(), "la temporada " + temporada.nombre());
+            temporadaDesde[t] = mesDia(temporada.desde());
+            temporadaHasta[t] = mesDia(temporada.hasta());
+        }
+
+        long[] acumulados = new long[indice(ULTIMO_DIA) + 2];
+        LocalDate dia = PRIMER_DIA;
+        for (int i = 0; i < acumulados.length - 1; i++, dia = dia.plusDays(1)) {
+            long factor = PUNTOS_BASE;
+            int mesDia = dia.getMonthValue() * 100 + dia.getDayOfMonth();
+            for (int t = 0; t < temporadas.size(); t++) {
+                boolean cruzaElAnio = temporadaDesde[t] > temporadaHasta[t]; //por ejemplo de diciembre a enero
+                if (cruzaElAnio ? mesDia >= temporadaDesde[t] || mesDia <= temporadaHasta[t]
+                        : mesDia >= temporadaDesde[t] && mesDia <= temporadaHasta[t]) {
+                    factor = temporadas.get(t).factor();
+                    break; //gana la primera temporada de la lista
+                }
+            }
+            if (dia.getDayOfWeek() == DayOfWeek.SATURDAY || dia.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                factor = factor * propiedades.finDeSemana() / PUNTOS_BASE;
+            }
+            acumulados[i + 1] = acumulados[i] + factor;
+        }
+        return acumulados;
+    }
+
+    private static int[] compilarDescuentos(List<PropiedadesTarifas.DescuentoEstancia> descuentos) {
+        List<PropiedadesTarifas.DescuentoEstancia> ordenados = descuentos.stream()
+                .sorted(Comparator.comparingInt(PropiedadesTarifas.DescuentoEstancia::diasMinimos)).toList();
+        int diasMaximos = ordenados.isEmpty() ? 1 : ordenados.getLast().diasMinimos();
+        int[] porDias = new int[diasMaximos + 1];
+        for (PropiedadesTarifas.DescuentoEstancia descuento : ordenados) {
+            if (descuento.diasMinimos() < 1 || descuento.descuento() < 0 || descuento.descuento() > PUNTOS_BASE) {
+                throw new IllegalStateException("Descuento por duración no valido: " + descuento);
+            }
+            //vale desde sus dias minimos en adelante, hasta que lo reemplace uno de más dias
+            for (int d = descuento.diasMinimos(); d < porDias.length; d++) {
+                porDias[d] = descuento.descuento();
+            }
+        }
+        return porDias;
+    }
+
+    private static void validarFactor(int factor, String origen) {
+        if (factor <= 0) {
+            throw new IllegalStateException("El factor de " + origen + " debe ser mayor a 0 (en puntos base, 10000 = 100%)");
+        }
+    }
+
+    //"MM-dd" -> MMdd como entero, para comparar fechas dentro del año
+    private static int mesDia(String texto) {
+        MonthDay mesDia = MonthDay.parse("--" + texto);
+        return mesDia.getMonthValue() * 100 + mesDia.getDayOfMonth();
+    }
+
+    private static int indice(LocalDate fecha) {
+        return (int) (fecha.toEpochDay() - PRIMER_DIA.toEpochDay());
+    }
+
+    private static int dias(LocalDate fechaInicio, LocalDate fechaFin) {
+        return indice(fechaFin) - indice(fechaInicio) + 1; //se cobra también el último día
+    }
+
+    private static long centavos(double pesos) {
+        return Math.round(pesos * 100);
+    }
+
+    //cantidad en centavos x puntos base -> centavos, redondeando a la mitad hacia arriba
+    private static long redondear(long centavosPorPuntosBase) {
+        return (centavosPorPuntosBase + PUNTOS_BASE / 2) / PUNTOS_BASE;
+    }
+}
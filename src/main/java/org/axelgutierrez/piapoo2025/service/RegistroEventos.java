@@ -0,0 +1,462 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.axelgutierrez.piapoo2025.config.PropiedadesRegistroEventos;
+import org.axelgutierrez.piapoo2025.dto.EventoAuditoria;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Registro de auditoría de los cambios en las reservas y los vehiculos: un archivo binario en el que solo se agrega al final.
+ * <br>
+ * El registro se divide en segmentos de tamanoSegmento, cada uno nombrado con la secuencia de su primer evento. El segmento actual
+ * está mapeado en memoria: registrar un evento es copiar unos bytes en el mapa (sin llamadas al sistema), por eso aguanta
+ * cientos de miles de eventos por segundo. Cada intervaloSincronizacion lo escrito se fuerza al disco desde otro hilo, también
+ * los segmentos que se llenaron (nunca al registrar); si el proceso se cae lo escrito sigue en la memoria del sistema operativo,
+ * solo un corte de luz puede perder el último intervalo.
+ * <br>
+ * Cada evento se guarda como: longitud (int), CRC32C (int) y el cuerpo: secuencia (long), instante (long, milisegundos),
+ * tipo (byte), campos presentes (byte, un bit por campo), entidadId (long) y solo los campos presentes
+ * (vehiculo y cliente como long, fechas como int en días, precio como double, estado como short + UTF-8).
+ * Una longitud 0 o un CRC que no coincide marca el final del segmento; al abrir, el registro sigue escribiendo ahí.
+ * <br>
+ * Para leer cada segmento guarda la posición de uno de cada MARCA_CADA eventos, así no se recorre desde el principio.
+ * Los segmentos anteriores se mapean solo para leer cuando se necesitan y solo se quedan mapeados los SEGMENTOS_LEIDOS usados
+ * más recientemente; los demás se sueltan y el recolector de basura los desmapea cuando ningún lector los está usando.
+ */
+@Component
+public class RegistroEventos {
+    static final String EXTENSION = ".registro";
+    private static final int ENCABEZADO = 8; //longitud y CRC
+    private static final int CUERPO_MINIMO = 8 + 8 + 1 + 1 + 8; //secuencia, instante, tipo, campos presentes y entidadId
+    private static final int MARCA_CADA = 1024;
+    private static final int SEGMENTOS_LEIDOS = 4;
+    //un bit por cada campo opcional
+    private static final int CON_VEHICULO = 1;
+    private static final int CON_CLIENTE = 2;
+    private static final int CON_FECHA_INICIO = 4;
+    private static final int CON_FECHA_FIN = 8;
+    private static final int CON_PRECIO = 16;
+    private static final int CON_ESTADO = 32;
+    private static final EventoAuditoria.Tipo[] TIPOS = EventoAuditoria.Tipo.values();
+
+    private final PropiedadesRegistroEventos propiedades;
+    private final ConcurrentSkipListMap<Long, Segmento> segmentos = new ConcurrentSkipListMap<>();
+    private final CRC32C crcEscritura = new CRC32C();
+    //segmentos llenos que falta forzar al disco, los fuerza y suelta el hilo de sincronizacion
+    private final Queue<Segmento> porForzar = new ConcurrentLinkedQueue<>();
+    //segmentos anteriores mapeados para leer, del usado hace más tiempo al más reciente (se usa con synchronized sobre el mapa)
+    private final Map<Long, Segmento> leidos = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Segmento> masViejo) {
+            if (size() > SEGMENTOS_LEIDOS) {
+                masViejo.getValue().soltar();
+                return true;
+            }
+            return false;
+        }
+    };
+    //se ejecutan una sola vez (en otro hilo) cuando se registra el siguiente evento
+    private final Set<Runnable> avisos = ConcurrentHashMap.newKeySet();
+
+    //estos campos se usan con synchronized
+    private Segmento actual;
+    private int posicion; //el siguiente byte libre del segmento actual
+    private long secuenciaEscrita;
+
+    private volatile long ultimaSecuencia; //hasta aqui los eventos están completos y se pueden leer
+    private volatile boolean sinSincronizar;
+    private FileChannel candado;
+    private FileLock bloqueo;
+    private ScheduledExecutorService sincronizacion;
+
+    public RegistroEventos(PropiedadesRegistroEventos propiedades) {
+        this.propiedades = propiedades;
+    }
+
+    /**
+     * Abre los segmentos del directorio y se coloca al final del último para seguir escribiendo.
+     *
+     * @throws IOException si no se pueden abrir los segmentos o si otra instancia ya tiene abierto el directorio.
+     */
+    @PostConstruct
+    public synchronized void abrir() throws IOException {
+        Path directorio = propiedades.directorio();
+        Files.createDirectories(directorio);
+        candado = FileChannel.open(directorio.resolve(".bloqueo"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        bloqueo = candado.tryLock();
+        if (bloqueo == null) {
+            candado.close();
+            throw new IOException("Otra instancia de la aplicación está usando el registro de eventos en " + directorio.toAbsolutePath());
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.filter(archivo -> archivo.getFileName().toString().endsWith(EXTENSION))
+                    .map(Segmento::new)
+                    .forEach(segmento -> segmentos.put(segmento.base, segmento));
+        }
+
+        if (segmentos.isEmpty()) {
+            actual = crearSegmento(1);
+            secuenciaEscrita = 0;
+        } else {
+            //el ultimo segmento se recorre completo para encontrar donde termina
+            actual = segmentos.lastEntry().getValue();
+            actual.mapa = mapear(actual.archivo, FileChannel.MapMode.READ_WRITE, Files.size(actual.archivo));
+            ByteBuffer datos = actual.mapa.duplicate();
+            CRC32C crc = new CRC32C();
+            secuenciaEscrita = actual.base - 1;
+            for (int siguiente; (siguiente = siguienteEvento(datos, posicion, crc)) >= 0; posicion = siguiente) {
+                secuenciaEscrita = datos.getLong(posicion + ENCABEZADO);
+                marcar(actual, secuenciaEscrita, posicion);
+            }
+            if (posicion + ENCABEZADO <= datos.limit()) {
+                datos.putLong(posicion, 0); //borra el encabezado de un evento a medio escribir, si lo hay
+            }
+        }
+        ultimaSecuencia = secuenciaEscrita;
+
+        sincronizacion = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("registro-eventos-sincronizacion").daemon().factory());
+        long intervalo = propiedades.intervaloSincronizacion().toMillis();
+        sincronizacion.scheduleWithFixedDelay(this::sincronizar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Agrega un evento al final del registro.
+     *
+     * @param evento el evento, sin secuencia.
+     */
+    public void registrar(EventoAuditoria evento) {
+        registrar(List.of(evento));
+    }
+
+    /**
+     * Agrega varios eventos al final del registro, con secuencias consecutivas.
+     * <br>
+     * Los lectores ven todos los eventos a la vez, cuando ya están completos.
+     *
+     * @param eventos los eventos, sin secuencia.
+     * @throws UncheckedIOException si no se pudo crear el siguiente segmento.
+     */
+    public void registrar(List<EventoAuditoria> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (EventoAuditoria evento : eventos) {
+                escribir(evento);
+            }
+            ultimaSecuencia = secuenciaEscrita;
+            sinSincronizar = true;
+        }
+        //despues de publicar ultimaSecuencia: quien se apunto antes recibe el aviso y quien se apunta despues ya ve los eventos al leer
+        if (!avisos.isEmpty()) {
+            for (Runnable aviso : avisos) {
+                if (avisos.remove(aviso)) {
+                    ForkJoinPool.commonPool().execute(aviso);
+                }
+            }
+        }
+    }
+
+    private void escribir(EventoAuditoria evento) {
+        byte[] estado = evento.estado() == null ? null : evento.estado().getBytes(StandardCharsets.UTF_8);
+        int longitud = longitudCuerpo(evento, estado);
+        if (posicion + ENCABEZADO + longitud > actual.mapa.capacity()) {
+            if (posicion == 0) {
+                throw new IllegalArgumentException("El evento no cabe en un segmento del registro: " + evento);
+            }
+            rotar();
+        }
+
+        long secuencia = ++secuenciaEscrita;
+        ByteBuffer mapa = actual.mapa;
+        int cuerpo = posicion + ENCABEZADO;
+        int campos = (evento.vehiculoId() != null ? CON_VEHICULO : 0) | (evento.clienteId() != null ? CON_CLIENTE : 0)
+                | (evento.fechaInicio() != null ? CON_FECHA_INICIO : 0) | (evento.fechaFin() != null ? CON_FECHA_FIN : 0)
+                | (evento.precio() != null ? CON_PRECIO : 0) | (estado != null ? CON_ESTADO : 0);
+        mapa.position(cuerpo);
+        mapa.putLong(secuencia).putLong(evento.instante().toEpochMilli())
+                .put((byte) evento.tipo().ordinal()).put((byte) campos).putLong(evento.entidadId());
+        if (evento.vehiculoId() != null) {
+            mapa.putLong(evento.vehiculoId());
+        }
+        if (evento.clienteId() != null) {
+            mapa.putLong(evento.clienteId());
+        }
+        if (evento.fechaInicio() != null) {
+            mapa.putInt((int) evento.fechaInicio().toEpochDay());
+        }
+        if (evento.fechaFin() != null) {
+            mapa.putInt((int) evento.fechaFin().toEpochDay());
+        }
+        if (evento.precio() != null) {
+            mapa.putDouble(evento.precio());
+        }
+        if (estado != null) {
+            mapa.putShort((short) estado.length).put(estado);
+        }
+        crcEscritura.reset();
+        crcEscritura.update(mapa.slice(cuerpo, longitud));
+        mapa.putInt(posicion + 4, (int) crcEscritura.getValue());
+        mapa.putInt(posicion, longitud); //la longitud al final: mientras sea 0 el evento no existe
+
+        marcar(actual, secuencia, posicion);
+        posicion = cuerpo + longitud;
+    }
+
+    //empieza un segmento nuevo con la siguiente secuencia, el lleno lo fuerza al disco el hilo de sincronizacion
+    private void rotar() {
+        porForzar.add(actual);
+        try {
+            actual = crearSegmento(secuenciaEscrita + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el siguiente segmento del registro de eventos", e);
+        }
+        posicion = 0;
+    }
+
+    private Segmento crearSegmento(long base) throws IOException {
+        Segmento segmento = new Segmento(propiedades.directorio().resolve(String.format("%020d", base) + EXTENSION));
+        segmento.mapa = mapear(segmento.archivo, FileChannel.MapMode.READ_WRITE, propiedades.tamanoSegmento().toBytes());
+        segmentos.put(base, segmento);
+        return segmento;
+    }
+
+    /**
+     * Lee los eventos del registro a partir de una secuencia.
+     *
+     * @param desde la secuencia del primer evento que se quiere leer.
+     * @param limite la cantidad máxima de eventos.
+     * @return los eventos en orden de secuencia, vacía si todavía no hay eventos desde esa secuencia.
+     */
+    public List<EventoAuditoria> leer(long desde, int limite) {
+        long hasta = ultimaSecuencia; //no se leen eventos que se estén escribiendo
+        List<EventoAuditoria> eventos = new ArrayList<>();
+        if (desde > hasta || segmentos.isEmpty()) {
+            return eventos;
+        }
+        Long primero = segmentos.floorKey(desde);
+        CRC32C crc = new CRC32C();
+        for (Segmento segmento : segmentos.tailMap(primero == null ? segmentos.firstKey() : primero, true).values()) {
+            ByteBuffer datos = datos(segmento);
+            Map.Entry<Long, Integer> marca = segmento.marcas.floorEntry(desde);
+            int posicionEvento = marca == null ? 0 : marca.getValue();
+            for (int siguiente; (siguiente = siguienteEvento(datos, posicionEvento, crc)) >= 0; posicionEvento = siguiente) {
+                long secuencia = datos.getLong(posicionEvento + ENCABEZADO);
+                if (secuencia > hasta || eventos.size() == limite) {
+                    return eventos;
+                }
+                marcar(segmento, secuencia, posicionEvento); //los segmentos de antes de iniciar se marcan al leerlos
+                if (secuencia >= desde) {
+                    eventos.add(decodificar(datos, posicionEvento));
+                }
+            }
+        }
+        return eventos;
+    }
+
+    //una vista propia del segmento (con su propia posicion) para leer; mapea los anteriores cuando se necesitan
+    private ByteBuffer datos(Segmento segmento) {
+        MappedByteBuffer mapa = segmento.mapa;
+        if (mapa == null) {
+            synchronized (segmento) {
+                mapa = segmento.mapa;
+                if (mapa == null) {
+                    try {
+                        mapa = mapear(segmento.archivo, FileChannel.MapMode.READ_ONLY, Files.size(segmento.archivo));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("No se pudo leer el segmento " + segmento.archivo, e);
+                    }
+                    segmento.mapa = mapa;
+                }
+            }
+            synchronized (leidos) {
+                leidos.put(segmento.base, segmento); //suelta el usado hace más tiempo si ya hay SEGMENTOS_LEIDOS
+            }
+        }
+        return mapa.duplicate(); //si el segmento se suelta mientras tanto, este lector lo sigue usando hasta terminar
+    }
+
+    /**
+     * Ejecuta una acción una sola vez, en otro hilo, en cuanto se registre el siguiente evento, para seguir la cola del registro
+     * sin ocupar un hilo esperando.
+     * <br>
+     * Para no perder un evento que se registre al mismo tiempo, después de apuntarse hay que volver a leer.
+     *
+     * @param aviso la acción, no debe bloquear.
+     */
+    public void avisarAlRegistrar(Runnable aviso) {
+        avisos.add(aviso);
+    }
+
+    /**
+     * Quita una acción de avisarAlRegistrar que todavía no se ejecutó, por ejemplo porque ya no hay quien espere.
+     *
+     * @param aviso la acción.
+     */
+    public void cancelarAviso(Runnable aviso) {
+        avisos.remove(aviso);
+    }
+
+    /**
+     * Obtiene la secuencia del último evento registrado.
+     *
+     * @return la última secuencia, 0 si el registro está vacío.
+     */
+    public long ultimaSecuencia() {
+        return ultimaSecuencia;
+    }
+
+    //fuerza al disco los segmentos que se llenaron (y los suelta) y lo escrito en el actual desde la ultima sincronizacion
+    void sincronizar() {
+        for (Segmento lleno; (lleno = porForzar.peek()) != null; porForzar.poll()) {
+            try {
+                lleno.mapa.force();
+            } catch (UncheckedIOException e) {
+                return; //se intenta de nuevo en la siguiente
+            }
+            lleno.soltar(); //ya no se escribe, si se lee se vuelve a mapear solo para leer
+        }
+        if (!sinSincronizar) {
+            return;
+        }
+        sinSincronizar = false;
+        MappedByteBuffer mapa;
+        synchronized (this) {
+            mapa = actual.mapa;
+        }
+        try {
+            mapa.force();
+        } catch (UncheckedIOException e) {
+            sinSincronizar = true; //se intenta de nuevo en la siguiente
+        }
+    }
+
+    /**
+     * Fuerza al disco lo que falte y libera el directorio.
+     *
+     * @throws IOException si no se puede liberar el directorio.
+     * @throws InterruptedException si se interrumpe mientras espera a la sincronización en curso.
+     */
+    @PreDestroy
+    public void cerrar() throws IOException, InterruptedException {
+        sincronizacion.shutdown();
+        sincronizacion.awaitTermination(10, TimeUnit.SECONDS);
+        sincronizar(); //los segmentos llenos que falten
+        synchronized (this) {
+            actual.mapa.force();
+        }
+        try {
+            bloqueo.release();
+        } finally {
+            candado.close();
+        }
+    }
+
+    //posicion del evento que sigue al de la posicion dada, o -1 si ahi no hay un evento completo
+    private static int siguienteEvento(ByteBuffer datos, int posicionEvento, CRC32C crc) {
+        if (posicionEvento + ENCABEZADO > datos.limit()) {
+            return -1;
+        }
+        int longitud = datos.getInt(posicionEvento);
+        if (longitud < CUERPO_MINIMO || longitud > datos.limit() - posicionEvento - ENCABEZADO) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(datos.slice(posicionEvento + ENCABEZADO, longitud));
+        if ((int) crc.getValue() != datos.getInt(posicionEvento + 4)) {
+            return -1; //evento a medio escribir cuando se cayo la aplicacion
+        }
+        return posicionEvento + ENCABEZADO + longitud;
+    }
+
+    private static EventoAuditoria decodificar(ByteBuffer datos, int posicionEvento) {
+        ByteBuffer cuerpo = datos.slice(posicionEvento + ENCABEZADO, datos.getInt(posicionEvento));
+        long secuencia = cuerpo.getLong();
+        Instant instante = Instant.ofEpochMilli(cuerpo.getLong());
+        EventoAuditoria.Tipo tipo = TIPOS[cuerpo.get()];
+        int campos = cuerpo.get();
+        long entidadId = cuerpo.getLong();
+        Long vehiculoId = (campos & CON_VEHICULO) != 0 ? cuerpo.getLong() : null;
+        Long clienteId = (campos & CON_CLIENTE) != 0 ? cuerpo.getLong() : null;
+        LocalDate fechaInicio = (campos & CON_FECHA_INICIO) != 0 ? LocalDate.ofEpochDay(cuerpo.getInt()) : null;
+        LocalDate fechaFin = (campos & CON_FECHA_FIN) != 0 ? LocalDate.ofEpochDay(cuerpo.getInt()) : null;
+        Double precio = (campos & CON_PRECIO) != 0 ? cuerpo.getDouble() : null;
+        String estado = null;
+        if ((campos & CON_ESTADO) != 0) {
+            byte[] bytes = new byte[cuerpo.getShort()];
+            cuerpo.get(bytes);
+            estado = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new EventoAuditoria(secuencia, instante, tipo, entidadId, vehiculoId, clienteId, fechaInicio, fechaFin, precio, estado);
+    }
+
+    private static int longitudCuerpo(EventoAuditoria evento, byte[] estado) {
+        return CUERPO_MINIMO
+                + (evento.vehiculoId() != null ? 8 : 0) + (evento.clienteId() != null ? 8 : 0)
+                + (evento.fechaInicio() != null ? 4 : 0) + (evento.fechaFin() != null ? 4 : 0)
+                + (evento.precio() != null ? 8 : 0) + (estado != null ? 2 + estado.length : 0);
+    }
+
+    private static void marcar(Segmento segmento, long secuencia, int posicionEvento) {
+        if (secuencia % MARCA_CADA == 0) {
+            segmento.marcas.putIfAbsent(secuencia, posicionEvento);
+        }
+    }
+
+    private static MappedByteBuffer mapear(Path archivo, FileChannel.MapMode modo, long tamano) throws IOException {
+        //el mapa sigue siendo valido despues de cerrar el canal
+        try (FileChannel canal = modo == FileChannel.MapMode.READ_ONLY ? FileChannel.open(archivo, StandardOpenOption.READ)
+                : FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return canal.map(modo, 0, tamano);
+        }
+    }
+
+    //un archivo del registro, los anteriores al actual se mapean solo para leer y hasta que se necesitan
+    private static final class Segmento {
+        final long base;
+        final Path archivo;
+        final ConcurrentSkipListMap<Long, Integer> marcas = new ConcurrentSkipListMap<>(); //secuencia -> posicion
+        volatile MappedByteBuffer mapa; //null si no está mapeado
+
+        Segmento(Path archivo) {
+            this.archivo = archivo;
+            String nombre = archivo.getFileName().toString();
+            this.base = Long.parseLong(nombre.substring(0, nombre.length() - EXTENSION.length()));
+            marcas.put(base, 0);
+        }
+
+        //suelta el mapa, Java no deja desmapearlo a mano: el recolector de basura lo desmapea cuando ya nadie lo usa
+        void soltar() {
+            mapa = null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Control de una actualización parcial con bloqueo optimista (@Version).
+ * <br>
+ * Las actualizaciones leen la entidad, copian los campos que llegaron y la guardan; el UPDATE falla si otra petición
+ * guardó la misma entidad entre la lectura y el guardado. Como solo se copian los campos que mandó el usuario,
+ * volver a leer y volver a copiar conserva los cambios de la otra petición, así que se reintenta hasta INTENTOS_MAXIMOS veces,
+ * siempre que la otra petición no haya cambiado los mismos campos (eso sí es un conflicto y se responde 409).
+ * <br>
+ * Si la petición trae If-Match no se reintenta: el cliente pidió cambiar una version exacta y ya no es la actual (412).
+ *
+ * @param <T> la entidad que se actualiza.
+ */
+final class ReintentoOptimista<T> {
+    static final int INTENTOS_MAXIMOS = 3;
+
+    private final String recurso;
+    private final Long id;
+    private final Long versionEsperada;
+    private final ToLongFunction<T> version;
+    private final Function<T, List<Object>> camposEditados;
+    private List<Object> valoresLeidos; //valores de los campos editados en la lectura anterior
+    private int intentos;
+
+    /**
+     * @param recurso el nombre de la entidad, para los mensajes de error.
+     * @param id el id de la entidad que se actualiza.
+     * @param versionEsperada la version del encabezado If-Match, o null si la petición no lo trae.
+     * @param version obtiene la version de la entidad.
+     * @param camposEditados obtiene de la entidad los valores actuales de los campos que la petición quiere cambiar.
+     */
+    ReintentoOptimista(String recurso, Long id, Long versionEsperada, ToLongFunction<T> version, Function<T, List<Object>> camposEditados) {
+        this.recurso = recurso;
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+        this.version = version;
+        this.camposEditados = camposEditados;
+    }
+
+    /**
+     * Revisa la entidad recién leída, antes de copiarle los cambios.
+     *
+     * @param entidad la entidad leída de la base de datos.
+     * @throws ConflictoVersionException si no es la version del If-Match, o si en un reintento otra petición cambió los mismos campos.
+     */
+    void revisar(T entidad) throws ConflictoVersionException {
+        long versionActual = version.applyAsLong(entidad);
+        if (versionEsperada != null && versionEsperada != versionActual) {
+            throw new ConflictoVersionException(recurso + " con id " + id + " ya no está en la version " + versionEsperada
+                    + " (version actual: " + versionActual + ")", true);
+        }
+        List<Object> valores = camposEditados.apply(entidad);
+        if (valoresLeidos != null && !valoresLeidos.equals(valores)) {
+            throw new ConflictoVersionException("Otra petición modificó los mismos datos de " + recurso + " con id " + id, false);
+        }
+        valoresLeidos = valores;
+    }
+
+    /**
+     * Registra que el guardado falló porque otra petición guardó la entidad primero.
+     *
+     * @throws ConflictoVersionException si la petición traía If-Match o si ya se agotaron los intentos; si no, se puede volver a intentar.
+     */
+    void registrarConflicto() throws ConflictoVersionException {
+        intentos++;
+        if (versionEsperada != null) {
+            throw new ConflictoVersionException(recurso + " con id " + id + " cambió mientras se actualizaba", true);
+        }
+        if (intentos >= INTENTOS_MAXIMOS) {
+            throw new ConflictoVersionException(recurso + " con id " + id + " cambió en cada uno de los " + INTENTOS_MAXIMOS + " intentos", false);
+        }
+    }
+}
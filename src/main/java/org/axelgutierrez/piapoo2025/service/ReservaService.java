@@ -1,30 +1,64 @@
 package org.axelgutierrez.piapoo2025.service;
 
+import org.axelgutierrez.piapoo2025.dto.Cotizacion;
+import org.axelgutierrez.piapoo2025.dto.EventoAuditoria;
+import org.axelgutierrez.piapoo2025.dto.EventoReserva;
+import org.axelgutierrez.piapoo2025.dto.FiltroHistorial;
+import org.axelgutierrez.piapoo2025.dto.IntervaloReserva;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.PaginaHistorial;
+import org.axelgutierrez.piapoo2025.dto.ReservaResumen;
+import org.axelgutierrez.piapoo2025.dto.ResultadoLote;
+import org.axelgutierrez.piapoo2025.dto.ValidacionReserva;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoReservaException;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
 import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
 import org.axelgutierrez.piapoo2025.model.Reserva;
 import org.axelgutierrez.piapoo2025.model.Vehiculo;
 import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
 import org.axelgutierrez.piapoo2025.repository.ReservaRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ReservaService implements IFuncionesCompartidas<Reserva> {
+    private static final int TAMANO_MAXIMO_LOTE = 1000;
+
     @Autowired
     private ReservaRepository reservaRepository;
     @Autowired
-    private VehiculoService vehiculoService;
+    private ClienteRepository clienteRepository;
     @Autowired
-    private ClienteService clienteService;
+    private VehiculoRepository vehiculoRepository;
     @Autowired
-    private ClienteRepository clienteRepository;
+    private IndiceReservas indiceReservas;
+    @Autowired
+    private BloqueosPorVehiculo bloqueosPorVehiculo;
+    @Autowired
+    private MotorTarifas motorTarifas;
+    @Autowired
+    private BandejaSalida bandejaSalida;
+    @Autowired
+    private RegistroEventos registroEventos;
 
     /**
      * Guarda una reserva en la base de datos.
@@ -32,41 +66,166 @@ public class ReservaService implements IFuncionesCompartidas<Reserva> {
      * El método recibe un objeto "Reserva" y lo guarda en la base de datos usando el repositorio.
      * <br>
      * Primero se valida que el vehiculo exista y que no tenga una reserva para esas fechas.
+     * El conflicto se revisa primero en el índice en memoria y, si no hay, se confirma en la base de datos antes de guardar
+     * con una sola consulta que también valida el vehiculo y el cliente y obtiene el precio por dia.
+     * La revisión y el guardado se hacen con el vehiculo bloqueado, así dos peticiones no pueden reservar las mismas fechas.
      * <br>
      * Si no hay ningún problema, se calcula el precio total de la reserva y se guarda en el objeto "Reserva".
+     * El cambio queda en el registro de auditoría (RegistroEventos).
+     * Los efectos secundarios (analítica, confirmaciones) no se hacen aquí: se publica un evento en BandejaSalida que se procesa en segundo plano.
      *
      * @param reserva el objeto "Reserva" que se va a guardar en la base de datos.
      * @return el objeto "Reserva" guardado con su id generado automaticamente.
-     * @throws ReservaInvalidaException si el vehiculo ya tiene una reserva para esas fechas.
+     * @throws ReservaInvalidaException si las fechas no son validas o el vehiculo ya tiene una reserva para esas fechas.
      * @throws RecursoNoEncontradoException si el vehiculo o el cliente no existen en la base de datos.
      */
     @Override
     public Reserva guardar(Reserva reserva) throws ReservaInvalidaException, RecursoNoEncontradoException {
+        validarFechas(reserva.getFechaInicio(), reserva.getFechaFin());
+        long vehiculoId = reserva.getVehiculo().getId();
+        long clienteId = reserva.getCliente().getId();
+
+        //solo una reserva a la vez por vehiculo puede revisar y guardar
+        Reserva guardada;
+        try (BloqueosPorVehiculo.Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(vehiculoId)) {
+            //Buscamos que el vehiculo no este reservado para esa fecha, primero en memoria (sin ir a la base de datos)
+            if(indiceReservas.hayConflicto(vehiculoId, reserva.getFechaInicio(), reserva.getFechaFin(), null)) {
+                throw new ConflictoReservaException("El vehiculo ya esta reservado para esa fecha");
+            }
+
+            //en una sola consulta: que el vehiculo y el cliente existan, el estado y precio del vehiculo y si hay solapamiento en la base de datos
+            ValidacionReserva validacion = reservaRepository.validarReserva(vehiculoId, clienteId, reserva.getFechaInicio(), reserva.getFechaFin(), null)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + vehiculoId));
+            if(!validacion.clienteExiste()) {
+                throw new RecursoNoEncontradoException("Cliente no encontrado con id: " + clienteId);
+            }
+            //validamos que el vehiculo no se encuentre en mantenimiento
+            if(validacion.estado().equals(Vehiculo.ESTADO_MANTENIMIENTO)) {
+                throw new ReservaInvalidaException("El vehiculo se encuentra en mantenimiento");
+            }
+            if(validacion.enConflicto()) {
+                throw new ConflictoReservaException("El vehiculo ya esta reservado para esa fecha");
+            }
+
+            reserva.setPrecioTotal(motorTarifas.precioTotal(validacion.precioPorDia(), reserva.getFechaInicio(), reserva.getFechaFin()));
+            guardada = reservaRepository.save(reserva);
+            indiceReservas.registrar(guardada); //ya esta en la base de datos, la agregamos al indice (y al calendario)
+            registroEventos.registrar(auditoriaCreada(guardada));
+        }
+        //lo demas se procesa en segundo plano; fuera del bloqueo, la escritura en el diario no detiene a las otras reservas del vehiculo
+        bandejaSalida.publicar(evento(EventoReserva.Tipo.CREADA, guardada));
+        return guardada;
+    }
 
-        //validamos que el vehiculo exista en la base de datos
-        Vehiculo vehiculo = vehiculoService.buscarPorId(reserva.getVehiculo().getId());
-        //validamos que el cliente exista en la base de datos
-        clienteService.buscarPorId(reserva.getCliente().getId());
-        //validamos que el vehiculo no se encuentre en mantenimiento
-        if(vehiculo.getEstado().equals("EN_MANTENIMIENTO")) {
-            throw new ReservaInvalidaException("El vehiculo se encuentra en mantenimiento");
+    /**
+     * Guarda un lote de reservas en la base de datos.
+     * <br>
+     * Todas las reservas se validan juntas: los vehiculos se cargan en una sola consulta, los clientes se revisan en otra
+     * y las reservas existentes que podrían chocar se traen en una tercera. Después se revisa en memoria que cada reserva
+     * no choque con las existentes ni con las anteriores del mismo lote.
+     * <br>
+     * Las reservas validas se guardan juntas (en lote) y las invalidas se reportan sin detener a las demás.
+     *
+     * @param reservas las reservas que se quieren guardar.
+     * @return el resultado de cada reserva, en el mismo orden en el que llegaron.
+     * @throws ReservaInvalidaException si el lote esta vacio o tiene más reservas de las permitidas.
+     */
+    public List<ResultadoLote> guardarLote(List<Reserva> reservas) throws ReservaInvalidaException {
+        if (reservas == null || reservas.isEmpty() || reservas.size() > TAMANO_MAXIMO_LOTE) {
+            throw new ReservaInvalidaException("El lote debe tener entre 1 y " + TAMANO_MAXIMO_LOTE + " reservas");
         }
+        ResultadoLote[] resultados = new ResultadoLote[reservas.size()];
 
+        //juntamos los ids para buscarlos todos de una vez
+        Set<Long> vehiculoIds = new HashSet<>();
+        Set<Long> clienteIds = new HashSet<>();
+        for (int i = 0; i < reservas.size(); i++) {
+            String error = validarCampos(reservas.get(i));
+            if (error != null) {
+                resultados[i] = ResultadoLote.fallido(i, error);
+                continue;
+            }
+            vehiculoIds.add(reservas.get(i).getVehiculo().getId());
+            clienteIds.add(reservas.get(i).getCliente().getId());
+        }
+        Map<Long, Vehiculo> vehiculos = new HashMap<>();
+        vehiculoRepository.findAllById(vehiculoIds).forEach(vehiculo -> vehiculos.put(vehiculo.getId(), vehiculo));
+        Set<Long> clientesExistentes = clienteIds.isEmpty() ? Set.of() : new HashSet<>(clienteRepository.buscarIdsExistentes(clienteIds));
 
-        //Buscamos que el vehiculo no este reservado para esa fecha
-        List<Reserva> reservasEnConflicto = reservaRepository.buscarReservasEnConflicto(vehiculo.getId(), reserva.getFechaInicio(), reserva.getFechaFin());
+        //reservas que pasaron las validaciones que no dependen de otras reservas
+        List<Integer> candidatas = new ArrayList<>();
+        for (int i = 0; i < reservas.size(); i++) {
+            if (resultados[i] != null) {
+                continue;
+            }
+            Reserva reserva = reservas.get(i);
+            Vehiculo vehiculo = vehiculos.get(reserva.getVehiculo().getId());
+            if (vehiculo == null) {
+                resultados[i] = ResultadoLote.fallido(i, "Vehiculo no encontrado con id: " + reserva.getVehiculo().getId());
+            } else if (!clientesExistentes.contains(reserva.getCliente().getId())) {
+                resultados[i] = ResultadoLote.fallido(i, "Cliente no encontrado con id: " + reserva.getCliente().getId());
+            } else if (vehiculo.getEstado().equals(Vehiculo.ESTADO_MANTENIMIENTO)) {
+                resultados[i] = ResultadoLote.fallido(i, "El vehiculo se encuentra en mantenimiento");
+            } else {
+                try {
+                    reserva.setPrecioTotal(motorTarifas.precioTotal(vehiculo.getPrecioPorDia(), reserva.getFechaInicio(), reserva.getFechaFin()));
+                    candidatas.add(i);
+                } catch (ReservaInvalidaException e) {
+                    resultados[i] = ResultadoLote.fallido(i, e.getMessage()); //fechas fuera de las tablas de tarifas
+                }
+            }
+        }
 
-        //si la lista tiene elementos ya hay una reserva para esa fecha
-        if(!reservasEnConflicto.isEmpty()) {
-            throw new ReservaInvalidaException("El vehiculo ya esta reservado para esa fecha");
+        if (!candidatas.isEmpty()) {
+            Set<Long> vehiculosCandidatos = new HashSet<>();
+            candidatas.forEach(i -> vehiculosCandidatos.add(reservas.get(i).getVehiculo().getId()));
+            //bloqueamos todos los vehiculos del lote mientras se revisan los choques y se guarda
+            List<EventoReserva> eventos;
+            try (BloqueosPorVehiculo.Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(vehiculosCandidatos)) {
+                eventos = guardarCandidatas(reservas, candidatas, vehiculosCandidatos, resultados);
+            }
+            bandejaSalida.publicar(eventos); //todo el lote en una sola escritura del diario, ya sin los vehiculos bloqueados
         }
+        return List.of(resultados);
+    }
+
+    //revisa los choques de las reservas candidatas en una sola pasada y guarda las validas, se llama con los vehiculos bloqueados
+    //regresa los eventos de las reservas guardadas para publicarlos después de soltar los bloqueos
+    private List<EventoReserva> guardarCandidatas(List<Reserva> reservas, List<Integer> candidatas, Set<Long> vehiculoIds, ResultadoLote[] resultados) {
+        LocalDate desde = candidatas.stream().map(i -> reservas.get(i).getFechaInicio()).min(LocalDate::compareTo).orElseThrow();
+        LocalDate hasta = candidatas.stream().map(i -> reservas.get(i).getFechaFin()).max(LocalDate::compareTo).orElseThrow();
 
-        //Calcula los dias de la reserva (se le suma 1 por que no cuenta el ultimo)
-        long dias = ChronoUnit.DAYS.between(reserva.getFechaInicio(), reserva.getFechaFin()) + 1;
-        Double precioTotal = vehiculo.getPrecioPorDia() * dias;
-        reserva.setPrecioTotal(precioTotal);
+        //indice temporal con las reservas existentes que podrian chocar, y las del lote conforme se aceptan
+        IndiceReservas indiceLote = new IndiceReservas();
+        reservaRepository.obtenerIntervalosEnRango(vehiculoIds, desde, hasta).forEach(indiceLote::registrar);
 
-        return reservaRepository.save(reserva);
+        List<Integer> aceptadas = new ArrayList<>();
+        for (int i : candidatas) {
+            Reserva reserva = reservas.get(i);
+            long vehiculoId = reserva.getVehiculo().getId();
+            if (indiceLote.hayConflicto(vehiculoId, reserva.getFechaInicio(), reserva.getFechaFin(), null)) {
+                resultados[i] = ResultadoLote.fallido(i, "El vehiculo ya esta reservado para esa fecha");
+                continue;
+            }
+            //todavia no tiene id, usamos uno negativo para que no choque con los existentes
+            indiceLote.registrar(new IntervaloReserva(-(i + 1L), vehiculoId, reserva.getFechaInicio(), reserva.getFechaFin()));
+            aceptadas.add(i);
+        }
+
+        //se guardan todas juntas en una transaccion, los inserts se mandan en lotes
+        List<Reserva> porGuardar = aceptadas.stream().map(reservas::get).toList();
+        List<EventoReserva> eventos = new ArrayList<>(porGuardar.size());
+        List<EventoAuditoria> auditoria = new ArrayList<>(porGuardar.size());
+        reservaRepository.saveAll(porGuardar).forEach(guardada -> {
+            indiceReservas.registrar(guardada);
+            eventos.add(evento(EventoReserva.Tipo.CREADA, guardada));
+            auditoria.add(auditoriaCreada(guardada));
+        });
+        registroEventos.registrar(auditoria);
+        for (int i : aceptadas) {
+            resultados[i] = ResultadoLote.exitoso(i, reservas.get(i).getId());
+        }
+        return eventos;
     }
 
     /**
@@ -81,6 +240,40 @@ public class ReservaService implements IFuncionesCompartidas<Reserva> {
         return (List<Reserva>) reservaRepository.findAll();
     }
 
+    /**
+     * Obtiene una pagina con el resumen de las reservas en la base de datos.
+     * <br>
+     * El metodo consulta a través del repositorio solo las columnas del resumen (fechas, total, nombre del cliente y del vehiculo)
+     * de las reservas con id mayor al cursor dado, ordenadas por id, sin cargar las entidades completas.
+     *
+     * @param despuesDe el id del ultimo elemento de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con los resumenes de las reservas y el cursor para pedir la siguiente.
+     */
+    public PaginaCursor<ReservaResumen> listarResumenes(Long despuesDe, int limite) {
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        List<ReservaResumen> filas = reservaRepository.listarResumenes(despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, ReservaResumen::id);
+    }
+
+    /**
+     * Obtiene una pagina de las reservas en la base de datos.
+     * <br>
+     * El metodo consulta a través del repositorio solo las reservas con id mayor al cursor dado, ordenadas por id,
+     * así cada pagina cuesta lo mismo sin importar cuantos registros haya en la tabla.
+     *
+     * @param despuesDe el id del ultimo elemento de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con las reservas y el cursor para pedir la siguiente.
+     */
+    @Override
+    public PaginaCursor<Reserva> listarPagina(Long despuesDe, int limite) {
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        //pedimos uno de mas para saber si hay otra pagina
+        List<Reserva> filas = reservaRepository.findByIdGreaterThanOrderByIdAsc(despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, Reserva::getId);
+    }
+
     /**
      * Obtiene una reserva de la base de datos.
      * <br>
@@ -99,25 +292,88 @@ public class ReservaService implements IFuncionesCompartidas<Reserva> {
         return reserva.get();
     }
 
+    /**
+     * Obtiene la version y la fecha de ultima modificacion de la reserva.
+     * <br>
+     * El metodo consulta solo esas dos columnas a través del repositorio, sin cargar la reserva ni sus relaciones,
+     * para responder las peticiones condicionales (ETag) sin serializar nada.
+     *
+     * @param id el id de la reserva.
+     * @return la version de la reserva.
+     * @throws RecursoNoEncontradoException si no existe la reserva con el id dado en la base de datos.
+     */
+    @Override
+    public VersionRecurso obtenerVersion(Long id) throws RecursoNoEncontradoException {
+        return reservaRepository.obtenerVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Reserva no encontrada con id: " + id));
+    }
+
+    /**
+     * Obtiene la version del listado de las reservas.
+     * <br>
+     * La version es la cantidad de reservas del índice en memoria (cambia al guardar o eliminar, sin contar la tabla) y la fecha es
+     * la ultima modificacion de las reservas, los clientes y los vehiculos, porque el listado muestra el nombre del cliente y la marca
+     * y el modelo del vehiculo; así un listado sin cambios se responde con 304 y uno con un cliente renombrado no.
+     *
+     * @return la version del listado de las reservas.
+     */
+    public VersionRecurso obtenerVersionListado() {
+        LocalDateTime ultimaModificacion = reservaRepository.obtenerUltimasModificacionesListado().stream()
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        return new VersionRecurso((long) indiceReservas.cantidad(), ultimaModificacion);
+    }
+
     /**
      * Actualiza una reserva en la base de datos.
      * <br>
      * El metodo recibe el id de la reserva que se desea actualizar y un objeto "Reserva" con la información que se desea cambiar y lo actualiza en la base de datos a través del repositorio.
      *
+     * Si otra petición guarda la misma reserva al mismo tiempo se vuelve a leer, a validar y a copiar los cambios (ver ReintentoOptimista).
+     *
      * @param Id el id de la reserva que se desea actualizar.
      * @param reservaActualizada el objeto "Reserva" con la información que se desea cambiar.
+     * @param versionEsperada la version del encabezado If-Match, o null si no importa la version.
      * @return la reserva con los cambios realizados.
      * @throws RecursoNoEncontradoException si no existe la reserva  o el vehiculo con el id dado en la base de datos.
-     * @throws ReservaInvalidaException si el vehiculo ya tiene una reserva para esas fechas.
+     * @throws ReservaInvalidaException si las fechas no son validas o el vehiculo ya tiene una reserva para esas fechas.
+     * @throws ConflictoVersionException si no es la version esperada o si otra petición cambió los mismos datos.
      */
     @Override
-    public Reserva actualizar(Long Id, Reserva reservaActualizada) throws RecursoNoEncontradoException, ReservaInvalidaException {
-        Reserva reserva = buscarPorId(Id); //buscamos si existe, lanza excepcion si no
+    public Reserva actualizar(Long Id, Reserva reservaActualizada, Long versionEsperada) throws RecursoNoEncontradoException, ReservaInvalidaException, ConflictoVersionException {
+        ReintentoOptimista<Reserva> reintento = new ReintentoOptimista<>("Reserva", Id, versionEsperada, Reserva::getVersion,
+                reserva -> camposEditados(reserva, reservaActualizada));
+        while (true) {
+            Reserva reserva = buscarPorId(Id); //buscamos si existe, lanza excepcion si no
+            reintento.revisar(reserva); //412 si no es la version del If-Match
+            try {
+                return aplicarCambios(reserva, reservaActualizada);
+            } catch (OptimisticLockingFailureException e) {
+                reintento.registrarConflicto(); //otra petición la guardó primero: se vuelve a leer y a validar, o se lanza el conflicto
+            }
+        }
+    }
 
+    //valores actuales de los campos que la petición quiere cambiar, para saber si otra petición los cambió al mismo tiempo
+    private static List<Object> camposEditados(Reserva reserva, Reserva cambios) {
+        //null en los campos que no se cambian, así las dos listas siempre tienen el mismo tamaño
+        return Arrays.asList(
+                cambios.getFechaInicio() != null ? reserva.getFechaInicio() : null,
+                cambios.getFechaFin() != null ? reserva.getFechaFin() : null,
+                cambios.getVehiculo() != null ? reserva.getVehiculo().getId() : null);
+    }
+
+    //valida y guarda los cambios sobre la reserva recien leida, con el vehiculo anterior y el nuevo bloqueados
+    private Reserva aplicarCambios(Reserva reserva, Reserva reservaActualizada) throws RecursoNoEncontradoException, ReservaInvalidaException {
         //Guardamos los valores anteriores para facilitar la validacion
-        LocalDate nuevaFechaInicio = reserva.getFechaInicio();
-        LocalDate nuevaFechaFin = reserva.getFechaFin();
-        Vehiculo nuevoVehiculo = reserva.getVehiculo();
+        LocalDate fechaInicioAnterior = reserva.getFechaInicio();
+        LocalDate fechaFinAnterior = reserva.getFechaFin();
+        LocalDate nuevaFechaInicio = fechaInicioAnterior;
+        LocalDate nuevaFechaFin = fechaFinAnterior;
+        long vehiculoAnteriorId = reserva.getVehiculo().getId();
+        long nuevoVehiculoId = reservaActualizada.getVehiculo() != null ? reservaActualizada.getVehiculo().getId() : vehiculoAnteriorId;
+        double precioPorDia = reserva.getVehiculo().getPrecioPorDia();
         boolean validar = false;
 
         //si no es null, actualiza ese campo
@@ -130,69 +386,201 @@ public class ReservaService implements IFuncionesCompartidas<Reserva> {
             validar = true;
         }
         if (reservaActualizada.getVehiculo() != null) {
-            nuevoVehiculo = reservaActualizada.getVehiculo();
-            vehiculoService.buscarPorId(nuevoVehiculo.getId());
             validar = true;
         }
-
-        //si actualizan algun campo debemos re validar los datos y posibles solapamientos
-        List<Reserva> reservasEnConflictos = new ArrayList<>();
         if (validar) {
-            reservasEnConflictos = reservaRepository.buscarReservasEnConflictoAlActualizar(
-                    nuevoVehiculo.getId(), nuevaFechaInicio, nuevaFechaFin, reserva.getId());
-        }
-        if (!reservasEnConflictos.isEmpty()) {
-            throw new ReservaInvalidaException("No se puede actualizar, ya hay una reserva para el mismo vehiculo en esas fechas");
+            validarFechas(nuevaFechaInicio, nuevaFechaFin);
         }
 
-        //después de la validación, actualizamos los campos que mando el usuario
-        // Solo actualizamos los campos que llegaron
-        if (reservaActualizada.getFechaInicio() != null) {
-            reserva.setFechaInicio(nuevaFechaInicio);
-        }
-        if (reservaActualizada.getFechaFin() != null) {
-            reserva.setFechaFin(nuevaFechaFin);
-        }
-        if (reservaActualizada.getVehiculo() != null) {
-            reserva.setVehiculo(nuevoVehiculo);
-        }
+        //bloqueamos el vehiculo anterior y el nuevo mientras se valida y se guarda
+        Reserva guardada;
+        try (BloqueosPorVehiculo.Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(List.of(vehiculoAnteriorId, nuevoVehiculoId))) {
+            //si actualizan algun campo debemos re validar los datos y posibles solapamientos (primero en memoria)
+            if (validar) {
+                if (indiceReservas.hayConflicto(nuevoVehiculoId, nuevaFechaInicio, nuevaFechaFin, reserva.getId())) {
+                    throw new ConflictoReservaException("No se puede actualizar, ya hay una reserva para el mismo vehiculo en esas fechas");
+                }
+                //en una sola consulta: que el vehiculo exista, su estado y precio y si hay solapamiento en la base de datos
+                ValidacionReserva validacion = reservaRepository.validarReserva(nuevoVehiculoId, reserva.getCliente().getId(), nuevaFechaInicio, nuevaFechaFin, reserva.getId())
+                        .orElseThrow(() -> new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + nuevoVehiculoId));
+                if (nuevoVehiculoId != vehiculoAnteriorId && validacion.estado().equals(Vehiculo.ESTADO_MANTENIMIENTO)) {
+                    throw new ReservaInvalidaException("El vehiculo se encuentra en mantenimiento");
+                }
+                if (validacion.enConflicto()) {
+                    throw new ConflictoReservaException("No se puede actualizar, ya hay una reserva para el mismo vehiculo en esas fechas");
+                }
+                precioPorDia = validacion.precioPorDia();
+            }
+
+            //después de la validación, actualizamos los campos que mando el usuario
+            // Solo actualizamos los campos que llegaron
+            if (reservaActualizada.getFechaInicio() != null) {
+                reserva.setFechaInicio(nuevaFechaInicio);
+            }
+            if (reservaActualizada.getFechaFin() != null) {
+                reserva.setFechaFin(nuevaFechaFin);
+            }
+            if (reservaActualizada.getVehiculo() != null) {
+                reserva.setVehiculo(reservaActualizada.getVehiculo());
+            }
 
-        //Calcula los dias de la reserva (se le suma 1 por que no cuenta el ultimo)
-        long dias = ChronoUnit.DAYS.between(reserva.getFechaInicio(), reserva.getFechaFin()) + 1;
-        Double precioTotal = reserva.getVehiculo().getPrecioPorDia() * dias;
-        reserva.setPrecioTotal(precioTotal);
+            reserva.setPrecioTotal(motorTarifas.precioTotal(precioPorDia, reserva.getFechaInicio(), reserva.getFechaFin()));
 
-        return reservaRepository.save(reserva);
+            guardada = reservaRepository.save(reserva);
+            indiceReservas.registrar(guardada); //reemplaza las fechas anteriores en el indice y en el calendario
+            //en la auditoria, un evento por cada cosa que cambio
+            List<EventoAuditoria> auditoria = new ArrayList<>(2);
+            if (!guardada.getFechaInicio().equals(fechaInicioAnterior) || !guardada.getFechaFin().equals(fechaFinAnterior)) {
+                auditoria.add(EventoAuditoria.reservaFechasCambiadas(guardada.getId(), guardada.getFechaInicio(), guardada.getFechaFin(), guardada.getPrecioTotal()));
+            }
+            if (nuevoVehiculoId != vehiculoAnteriorId) {
+                auditoria.add(EventoAuditoria.reservaVehiculoCambiado(guardada.getId(), nuevoVehiculoId, guardada.getPrecioTotal()));
+            }
+            registroEventos.registrar(auditoria);
+        }
+        bandejaSalida.publicar(evento(EventoReserva.Tipo.ACTUALIZADA, guardada)); //fuera del bloqueo, igual que en guardar
+        return guardada;
     }
 
     /**
      * Elimina una reserva de la base de datos.
      * <br>
      * El metodo recibe el id de la reserva que se desea eliminar y lo elimina de la base de datos a través del repositorio.
+     * <br>
+     * Se elimina con el vehiculo de la reserva bloqueado, igual que en guardar y actualizar; así una actualización
+     * que termina al mismo tiempo no puede volver a registrar en el índice las fechas de una reserva que ya no existe.
      *
      * @param Id el id de la reserva que se desea eliminar.
      * @throws RecursoNoEncontradoException si no existe la reserva con el id dado en la base de datos.
      */
     @Override
     public void eliminar(Long Id) throws RecursoNoEncontradoException {
-        if(!reservaRepository.existsById(Id)) { //si no existe lanza excepcion
-            throw new RecursoNoEncontradoException("Reserva no encontrada con id: " + Id);
+        long vehiculoId = obtenerVehiculoId(Id); //si no existe lanza excepcion
+        while (true) {
+            try (BloqueosPorVehiculo.Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(vehiculoId)) {
+                //mientras esperabamos el bloqueo otra petición pudo cambiarle el vehiculo a la reserva (o eliminarla)
+                long vehiculoActualId = obtenerVehiculoId(Id);
+                if (vehiculoActualId == vehiculoId) {
+                    reservaRepository.deleteById(Id); //si existe la eliminamos
+                    indiceReservas.quitar(Id);
+                    registroEventos.registrar(EventoAuditoria.reservaEliminada(Id));
+                    break;
+                }
+                vehiculoId = vehiculoActualId; //se vuelve a intentar con el vehiculo nuevo bloqueado
+            }
         }
-        reservaRepository.deleteById(Id); //si existe la eliminamos
+        bandejaSalida.publicar(EventoReserva.eliminada(Id)); //fuera del bloqueo, igual que en guardar
+    }
+
+    private long obtenerVehiculoId(Long reservaId) throws RecursoNoEncontradoException {
+        return reservaRepository.obtenerVehiculoId(reservaId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Reserva no encontrada con id: " + reservaId));
     }
 
     /**
-     * Obtiene el historial de reservas de un cliente.
+     * Obtiene una pagina del historial de reservas de un cliente.
+     * <br>
+     * El metodo recibe el id del cliente, los filtros opcionales y el cursor de la pagina anterior, y consulta a través del repositorio
+     * solo las columnas del resumen de las reservas, de la más reciente a la más antigua (por fecha de inicio y luego por id).
+     * El estado del filtro se convierte en límites de fechas respecto a hoy, así todo se resuelve con el índice (cliente_id, fecha_inicio).
      * <br>
-     * El metodo recibe el id del cliente del cual desea conocer su historial de reservas y lo obtiene de la base de datos a través del repositorio.
+     * Solo si la pagina sale vacía se revisa si el cliente existe; cuando tiene reservas basta una consulta.
+     *
      * @param clienteId el id del cliente el cual se desee conocer su historial.
-     * @return la lista de reservas del cliente.
+     * @param filtro los filtros del historial (fechas, vehiculo y estado), cualquiera puede ser null.
+     * @param despuesDeFecha la fecha de inicio de la ultima reserva de la pagina anterior, o null para la primera pagina.
+     * @param despuesDeId el id de la ultima reserva de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con el resumen de las reservas del cliente y el cursor para pedir la siguiente.
      * @throws RecursoNoEncontradoException si el cliente no existe en la base de datos.
+     * @throws ReservaInvalidaException si el rango de fechas está al revés o el cursor viene incompleto.
      */
-    public List<Reserva> obtenerReservasPorCliente(Long clienteId) throws RecursoNoEncontradoException {
-        if(!clienteRepository.existsById(clienteId)) {
+    public PaginaHistorial obtenerHistorialCliente(Long clienteId, FiltroHistorial filtro, LocalDate despuesDeFecha,
+                                                   Long despuesDeId, int limite) throws RecursoNoEncontradoException, ReservaInvalidaException {
+        if (filtro.desde() != null && filtro.hasta() != null) {
+            validarFechas(filtro.desde(), filtro.hasta());
+        }
+        if ((despuesDeFecha == null) != (despuesDeId == null)) {
+            throw new ReservaInvalidaException("El cursor del historial necesita la fecha y el id de la ultima reserva");
+        }
+        //una reserva se solapa con [desde, hasta] si empieza a mas tardar en "hasta" y termina a partir de "desde"
+        LocalDate inicioDesde = null;
+        LocalDate inicioHasta = filtro.hasta();
+        LocalDate finDesde = filtro.desde();
+        LocalDate finHasta = null;
+        if (filtro.estado() != null) {
+            LocalDate hoy = LocalDate.now();
+            switch (filtro.estado()) {
+                case PROXIMA -> inicioDesde = hoy.plusDays(1);
+                case EN_CURSO -> {
+                    inicioHasta = inicioHasta == null || inicioHasta.isAfter(hoy) ? hoy : inicioHasta;
+                    finDesde = finDesde == null || finDesde.isBefore(hoy) ? hoy : finDesde;
+                }
+                case FINALIZADA -> finHasta = hoy.minusDays(1);
+            }
+        }
+
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        List<ReservaResumen> filas = reservaRepository.obtenerHistorialCliente(clienteId, filtro.vehiculoId(), inicioDesde, inicioHasta,
+                finDesde, finHasta, despuesDeFecha, despuesDeId, Limit.of(limiteNormalizado + 1));
+        if (filas.isEmpty() && !clienteRepository.existsById(clienteId)) { //sin filas no sabemos si el cliente existe
             throw new RecursoNoEncontradoException("Cliente no encontrado con id: " + clienteId);
         }
-        return reservaRepository.findByClienteId(clienteId);
+        return PaginaHistorial.de(filas, limiteNormalizado);
+    }
+
+    /**
+     * Cotiza una reserva sin guardarla.
+     * <br>
+     * El metodo busca el vehiculo por id (normalmente en la cache de segundo nivel) y calcula el precio con MotorTarifas,
+     * con las mismas tarifas que se usan al guardar. No consulta las reservas ni revisa si las fechas están ocupadas.
+     *
+     * @param vehiculoId el id del vehiculo que se quiere cotizar.
+     * @param fechaInicio el primer día de la reserva.
+     * @param fechaFin el último día de la reserva.
+     * @return la cotización con el subtotal, el descuento y el total.
+     * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     * @throws ReservaInvalidaException si las fechas no son validas.
+     */
+    public Cotizacion cotizar(Long vehiculoId, LocalDate fechaInicio, LocalDate fechaFin) throws RecursoNoEncontradoException, ReservaInvalidaException {
+        Vehiculo vehiculo = vehiculoRepository.findById(vehiculoId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + vehiculoId));
+        return motorTarifas.cotizar(vehiculoId, vehiculo.getPrecioPorDia(), fechaInicio, fechaFin);
+    }
+
+    //evento con los datos de la reserva ya guardada, para BandejaSalida
+    private static EventoReserva evento(EventoReserva.Tipo tipo, Reserva reserva) {
+        return new EventoReserva(0, tipo, reserva.getId(), reserva.getVehiculo().getId(), reserva.getCliente().getId(),
+                reserva.getFechaInicio(), reserva.getFechaFin(), reserva.getPrecioTotal(), Instant.now());
+    }
+
+    private static EventoAuditoria auditoriaCreada(Reserva reserva) {
+        return EventoAuditoria.reservaCreada(reserva.getId(), reserva.getVehiculo().getId(), reserva.getCliente().getId(),
+                reserva.getFechaInicio(), reserva.getFechaFin(), reserva.getPrecioTotal());
+    }
+
+    //la fecha de inicio no puede ser despues de la fecha de fin
+    private void validarFechas(LocalDate fechaInicio, LocalDate fechaFin) throws ReservaInvalidaException {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new ReservaInvalidaException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+    }
+
+    //revisa que la reserva tenga los datos obligatorios y fechas validas, devuelve el error o null si esta bien
+    private String validarCampos(Reserva reserva) {
+        if (reserva == null || reserva.getFechaInicio() == null || reserva.getFechaFin() == null) {
+            return "Las fechas de inicio y fin son obligatorias";
+        }
+        //los ids son primitivos: "cliente":{} o "vehiculo":{} llegan con id 0, que nunca se genera
+        if (reserva.getCliente() == null || reserva.getCliente().getId() == 0) {
+            return "El cliente es obligatorio";
+        }
+        if (reserva.getVehiculo() == null || reserva.getVehiculo().getId() == 0) {
+            return "El vehiculo es obligatorio";
+        }
+        if (reserva.getFechaInicio().isAfter(reserva.getFechaFin())) {
+            return "La fecha de inicio no puede ser posterior a la fecha de fin";
+        }
+        return null;
     }
 }
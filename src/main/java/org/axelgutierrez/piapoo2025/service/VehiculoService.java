@@ -1,18 +1,53 @@
 package org.axelgutierrez.piapoo2025.service;
 
+import org.axelgutierrez.piapoo2025.dto.CalendarioVehiculo;
+import org.axelgutierrez.piapoo2025.dto.EventoAuditoria;
+import org.axelgutierrez.piapoo2025.dto.PaginaCursor;
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.dto.VersionRecurso;
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
 import org.axelgutierrez.piapoo2025.model.Vehiculo;
 import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Servicio de los vehiculos.
+ * <br>
+ * Cada lectura pasa por una sola cache:
+ * las listas por estado por una cache en memoria (Caffeine) con tamaño y tiempo limitados, que guardar, actualizar y eliminar vacían
+ * porque no se puede saber desde la llave qué listas contienen al vehiculo modificado;
+ * las lecturas por id por la cache de segundo nivel de Hibernate (region vehiculo), que Hibernate actualiza en cada escritura.
+ * <br>
+ * Las búsquedas por precio se responden desde IndicePrecios, que también se actualiza en cada escritura.
+ * Actualizar y eliminar guardan y actualizan el índice con el vehiculo bloqueado (BloqueosPorVehiculo), así el índice
+ * recibe los cambios de un mismo vehiculo en el orden en que se guardaron y no vuelve a registrar un vehiculo eliminado.
+ */
 @Service
 public class VehiculoService implements IFuncionesCompartidas<Vehiculo> {
     @Autowired
     private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private IndicePrecios indicePrecios;
+    @Autowired
+    private BloqueosPorVehiculo bloqueosPorVehiculo;
+    @Autowired
+    private CalendarioOcupacion calendarioOcupacion;
+    @Autowired
+    private RegistroEventos registroEventos;
 
     /**
      * Guarda un vehiculo en la base de datos.
@@ -23,8 +58,11 @@ public class VehiculoService implements IFuncionesCompartidas<Vehiculo> {
      * @return el vehiculo guardado con su id generado automaticamente
      */
     @Override
+    @CacheEvict(cacheNames = "vehiculosPorEstado", allEntries = true)
     public Vehiculo guardar(Vehiculo vehiculo) {
-        return vehiculoRepository.save(vehiculo);
+        Vehiculo guardado = vehiculoRepository.save(vehiculo);
+        indicePrecios.registrar(guardado);
+        return guardado;
     }
 
     /**
@@ -39,6 +77,39 @@ public class VehiculoService implements IFuncionesCompartidas<Vehiculo> {
         return (List<Vehiculo>) vehiculoRepository.findAll();
     }
 
+    /**
+     * Obtiene una pagina con el resumen de los vehiculos en la base de datos.
+     * <br>
+     * El metodo consulta a través del repositorio solo las columnas del resumen de los vehiculos con id mayor al cursor dado, ordenados por id.
+     *
+     * @param despuesDe el id del ultimo elemento de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con los resumenes de los vehiculos y el cursor para pedir la siguiente.
+     */
+    public PaginaCursor<VehiculoResumen> listarResumenes(Long despuesDe, int limite) {
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        List<VehiculoResumen> filas = vehiculoRepository.listarResumenes(despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, VehiculoResumen::id);
+    }
+
+    /**
+     * Obtiene una pagina de los vehiculos en la base de datos.
+     * <br>
+     * El metodo consulta a través del repositorio solo los vehiculos con id mayor al cursor dado, ordenados por id,
+     * así cada pagina cuesta lo mismo sin importar cuantos registros haya en la tabla.
+     *
+     * @param despuesDe el id del ultimo elemento de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de elementos en la pagina.
+     * @return la pagina con los vehiculos y el cursor para pedir la siguiente.
+     */
+    @Override
+    public PaginaCursor<Vehiculo> listarPagina(Long despuesDe, int limite) {
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        //pedimos uno de mas para saber si hay otra pagina
+        List<Vehiculo> filas = vehiculoRepository.findByIdGreaterThanOrderByIdAsc(despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, Vehiculo::getId);
+    }
+
     /**
      * Obtiene un vehiculo de la base de datos.
      * <br>
@@ -50,7 +121,7 @@ public class VehiculoService implements IFuncionesCompartidas<Vehiculo> {
     */
     @Override
     public Vehiculo buscarPorId(Long id) throws RecursoNoEncontradoException {
-        //guardamos en un optional el vehiculo si existe
+        //guardamos en un optional el vehiculo si existe; findById lo lee primero de la cache de segundo nivel (region vehiculo)
         Optional<Vehiculo> vehiculo = vehiculoRepository.findById(id);
         if(vehiculo.isEmpty()) { //si no existe (vacío el optional) lanzamos excepcion
             throw new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + id);
@@ -58,43 +129,113 @@ public class VehiculoService implements IFuncionesCompartidas<Vehiculo> {
         return vehiculo.get(); //si existe, obtenemos el vehiculo
     }
 
+    /**
+     * Obtiene la version y la fecha de ultima modificacion del vehiculo.
+     * <br>
+     * El metodo consulta solo esas dos columnas a través del repositorio, sin cargar el vehiculo ni sus relaciones,
+     * para responder las peticiones condicionales (ETag) sin serializar nada.
+     *
+     * @param id el id del vehiculo.
+     * @return la version del vehiculo.
+     * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     */
+    @Override
+    public VersionRecurso obtenerVersion(Long id) throws RecursoNoEncontradoException {
+        return vehiculoRepository.obtenerVersion(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + id));
+    }
+
+    /**
+     * Obtiene la version del listado de los vehiculos.
+     * <br>
+     * El metodo consulta a través del repositorio la cantidad de los vehiculos y la fecha de la ultima modificacion,
+     * que cambian cada vez que se guarda, actualiza o elimina cualquiera; así un listado sin cambios se responde con 304.
+     *
+     * @return la version del listado de los vehiculos.
+     */
+    public VersionRecurso obtenerVersionListado() {
+        return vehiculoRepository.obtenerVersionListado();
+    }
+
     /**
      * Actualiza un vehiculo en la base de datos.
      * <br>
      * El metodo recibe el id del vehiculo que se desea actualizar y un objeto "Vehiculo" con la información que se desea cambiar y lo actualiza en la base de datos a través del repositorio.
      * <br>
-     * Solo se actualizan los datos que no sean null.
+     * Solo se actualizan los datos que no sean null. Los cambios de estado y de precio quedan en el registro de auditoría (RegistroEventos).
+     * Si otra petición guarda el mismo vehiculo al mismo tiempo se vuelve a leer y se vuelven a copiar los cambios (ver ReintentoOptimista).
      *
      * @param id el id del vehiculo que se desea actualizar.
      * @param vehiculoActualizado el objeto "Vehiculo" con la información que se desea cambiar.
+     * @param versionEsperada la version del encabezado If-Match, o null si no importa la version.
      * @return el vehiculo con los cambios realizados.
      * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     * @throws ConflictoVersionException si no es la version esperada o si otra petición cambió los mismos datos.
     */
     @Override
-    public Vehiculo actualizar(Long id, Vehiculo vehiculoActualizado) throws RecursoNoEncontradoException {
-        Vehiculo vehiculo = buscarPorId(id); //buscamos si existe
+    @CacheEvict(cacheNames = "vehiculosPorEstado", allEntries = true)
+    public Vehiculo actualizar(Long id, Vehiculo vehiculoActualizado, Long versionEsperada) throws RecursoNoEncontradoException, ConflictoVersionException {
+        ReintentoOptimista<Vehiculo> reintento = new ReintentoOptimista<>("Vehiculo", id, versionEsperada, Vehiculo::getVersion,
+                vehiculo -> camposEditados(vehiculo, vehiculoActualizado));
+        while (true) {
+            Vehiculo vehiculo = buscarPorId(id); //buscamos si existe (la cache de segundo nivel guarda los datos y no el objeto, se puede modificar)
+            reintento.revisar(vehiculo); //412 si no es la version del If-Match
+            String estadoAnterior = vehiculo.getEstado();
+            Double precioAnterior = vehiculo.getPrecioPorDia();
 
-        //si es null no lo quiere actualizar, si NO es null, actualizamos el atributo
-        if (vehiculoActualizado.getMarca() != null) {
-            vehiculo.setMarca(vehiculoActualizado.getMarca());
-        }
-        if (vehiculoActualizado.getPlaca() != null) {
-            vehiculo.setPlaca(vehiculoActualizado.getPlaca());
-        }
-        if (vehiculoActualizado.getModelo() != null) {
-            vehiculo.setModelo(vehiculoActualizado.getModelo());
-        }
-        if(vehiculoActualizado.getColor() != null) {
-            vehiculo.setColor(vehiculoActualizado.getColor());
+            //si es null no lo quiere actualizar, si NO es null, actualizamos el atributo
+            if (vehiculoActualizado.getMarca() != null) {
+                vehiculo.setMarca(vehiculoActualizado.getMarca());
+            }
+            if (vehiculoActualizado.getPlaca() != null) {
+                vehiculo.setPlaca(vehiculoActualizado.getPlaca());
+            }
+            if (vehiculoActualizado.getModelo() != null) {
+                vehiculo.setModelo(vehiculoActualizado.getModelo());
+            }
+            if(vehiculoActualizado.getColor() != null) {
+                vehiculo.setColor(vehiculoActualizado.getColor());
+            }
+            if(vehiculoActualizado.getEstado() != null) {
+                vehiculo.setEstado(vehiculoActualizado.getEstado());
+            }
+            if(vehiculoActualizado.getPrecioPorDia() != null) {
+                vehiculo.setPrecioPorDia(vehiculoActualizado.getPrecioPorDia());
+            }
+
+            try (BloqueosPorVehiculo.Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(id)) {
+                Vehiculo guardado = vehiculoRepository.save(vehiculo); //sobreescribimos los datos pedidos
+                indicePrecios.registrar(guardado); //el precio pudo cambiar, lo reacomodamos en el indice
+                registrarAuditoria(guardado, estadoAnterior, precioAnterior);
+                return guardado;
+            } catch (OptimisticLockingFailureException e) {
+                reintento.registrarConflicto(); //otra petición lo guardó primero: se vuelve a leer y a copiar, o se lanza el conflicto
+            }
         }
-        if(vehiculoActualizado.getEstado() != null) {
-            vehiculo.setEstado(vehiculoActualizado.getEstado());
+    }
+
+    //los cambios de estado y de precio quedan en el registro de auditoria
+    private void registrarAuditoria(Vehiculo guardado, String estadoAnterior, Double precioAnterior) {
+        List<EventoAuditoria> auditoria = new ArrayList<>(2);
+        if (!guardado.getEstado().equals(estadoAnterior)) {
+            auditoria.add(EventoAuditoria.vehiculoEstadoCambiado(guardado.getId(), guardado.getEstado()));
         }
-        if(vehiculoActualizado.getPrecioPorDia() != null) {
-            vehiculo.setPrecioPorDia(vehiculoActualizado.getPrecioPorDia());
+        if (!guardado.getPrecioPorDia().equals(precioAnterior)) {
+            auditoria.add(EventoAuditoria.vehiculoPrecioCambiado(guardado.getId(), guardado.getPrecioPorDia()));
         }
+        registroEventos.registrar(auditoria);
+    }
 
-        return vehiculoRepository.save(vehiculo); //sobreescribimos los datos pedidos
+    //valores actuales de los campos que la petición quiere cambiar, para saber si otra petición los cambió al mismo tiempo
+    private static List<Object> camposEditados(Vehiculo vehiculo, Vehiculo cambios) {
+        //null en los campos que no se cambian, así las dos listas siempre tienen el mismo tamaño
+        return Arrays.asList(
+                cambios.getMarca() != null ? vehiculo.getMarca() : null,
+                cambios.getPlaca() != null ? vehiculo.getPlaca() : null,
+                cambios.getModelo() != null ? vehiculo.getModelo() : null,
+                cambios.getColor() != null ? vehiculo.getColor() : null,
+                cambios.getEstado() != null ? vehiculo.getEstado() : null,
+                cambios.getPrecioPorDia() != null ? vehiculo.getPrecioPorDia() : null);
     }
 
     /**
@@ -106,34 +247,144 @@ public class VehiculoService implements IFuncionesCompartidas<Vehiculo> {
      * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
     */
     @Override
+    @CacheEvict(cacheNames = "vehiculosPorEstado", allEntries = true)
     public void eliminar(Long id) throws RecursoNoEncontradoException {
-        if(!vehiculoRepository.existsById(id)) { //si no existe lanza excepcion
-            throw new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + id);
+        try (BloqueosPorVehiculo.Bloqueo bloqueo = bloqueosPorVehiculo.bloquear(id)) {
+            if(!vehiculoRepository.existsById(id)) { //si no existe lanza excepcion
+                throw new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + id);
+            }
+            vehiculoRepository.deleteById(id); //si existe lo elimina
+            indicePrecios.quitar(id);
         }
-        vehiculoRepository.deleteById(id); //si existe lo elimina
     }
 
     /**
      * Obtiene todos los vehiculos con un estado dado.
      * <br>
-     * El metodo consulta la base de datos a través del repositorio y devuelve una lista con todos los vehiculos con el estado dado.
+     * El metodo consulta la base de datos a través del repositorio y devuelve una lista con el resumen de todos los vehiculos con el estado dado.
      *
      * @param estado el estado del vehiculo que se quiere obtener de la base de datos.
-     * @return una lista con todos los vehiculos con el estado dado almacenados en la base de datos.
+     * @return una lista con el resumen de todos los vehiculos con el estado dado almacenados en la base de datos.
      */
-    public List<Vehiculo> obtenerPorEstado(String estado) {
-        return vehiculoRepository.findByEstado(estado);
+    @Cacheable(cacheNames = "vehiculosPorEstado", key = "#estado")
+    public List<VehiculoResumen> obtenerPorEstado(String estado) {
+        return vehiculoRepository.obtenerResumenesPorEstado(estado);
     }
 
     /**
      * Obtiene todos los vehiculos con un precio por dia menor o igual al dado.
      * <br>
-     * El metodo consulta la base de datos a través del repositorio y devuelve una lista con todos los vehiculos con un precio por dia menor o igual al dado.
+     * El metodo busca en el índice de precios en memoria (sin ir a la base de datos) y devuelve una lista con todos los vehiculos
+     * con un precio por dia menor o igual al dado, ordenados de mayor a menor precio.
+     * <br>
+     * Los filtros de estado, marca y color son opcionales.
+     *
+     * @param precioPorDia el precio por dia maximo de los vehiculos.
+     * @param estado el estado de los vehiculos, o null si no importa.
+     * @param marca la marca de los vehiculos, o null si no importa.
+     * @param color el color de los vehiculos, o null si no importa.
+     * @return una lista con el resumen de los vehiculos con un precio por dia menor o igual al dado que cumplen con los filtros.
+     */
+    public List<VehiculoResumen> obtenerPorPrecioMaximo(Double precioPorDia, String estado, String marca, String color) {
+        return indicePrecios.buscar(null, precioPorDia, estado, marca, color);
+    }
+
+    /**
+     * Obtiene todos los vehiculos con un precio por dia dentro de un rango.
+     * <br>
+     * El metodo busca en el índice de precios en memoria (sin ir a la base de datos) y devuelve una lista con todos los vehiculos
+     * con un precio por dia entre el minimo y el maximo (incluidos), ordenados de mayor a menor precio.
+     * <br>
+     * Los filtros de estado, marca y color son opcionales.
      *
-     * @param precioPorDia el precio por dia de los vehiculos que se quieren obtener de la base de datos.
-     * @return una lista con todos los vehiculos con un precio por dia menor o igual al dado, almacenados en la base de datos.
+     * @param precioMinimo el precio por dia minimo, o null si no hay minimo.
+     * @param precioMaximo el precio por dia maximo, o null si no hay maximo.
+     * @param estado el estado de los vehiculos, o null si no importa.
+     * @param marca la marca de los vehiculos, o null si no importa.
+     * @param color el color de los vehiculos, o null si no importa.
+     * @return una lista con el resumen de los vehiculos dentro del rango de precios que cumplen con los filtros.
+     * @throws ReservaInvalidaException si el precio minimo es mayor al precio maximo.
      */
-    public List<Vehiculo> obtenerPorPrecioMaximo(Double precioPorDia) {
-        return vehiculoRepository.findByPrecioPorDiaLessThanEqualOrderByPrecioPorDiaDesc(precioPorDia);
+    public List<VehiculoResumen> obtenerPorRangoDePrecio(Double precioMinimo, Double precioMaximo, String estado, String marca, String color) throws ReservaInvalidaException {
+        if (precioMinimo != null && precioMaximo != null && precioMinimo > precioMaximo) {
+            throw new ReservaInvalidaException("El precio minimo no puede ser mayor al precio maximo");
+        }
+        return indicePrecios.buscar(precioMinimo, precioMaximo, estado, marca, color);
+    }
+
+    /**
+     * Obtiene los vehiculos que se pueden reservar en un rango de fechas.
+     * <br>
+     * El metodo consulta la base de datos en una sola consulta y devuelve los vehiculos que no estan en mantenimiento,
+     * que no pasan del precio maximo dado y que no tienen ninguna reserva en esas fechas, paginados por id.
+     *
+     * @param fechaInicio la fecha de inicio del rango que se quiere reservar.
+     * @param fechaFin la fecha de fin del rango que se quiere reservar.
+     * @param precioMaximo el precio por dia maximo, o null si no importa el precio.
+     * @param despuesDe el id del ultimo vehiculo de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de vehiculos en la pagina.
+     * @return la pagina con los vehiculos disponibles y el cursor para pedir la siguiente.
+     * @throws ReservaInvalidaException si la fecha de inicio es posterior a la fecha de fin.
+     */
+    public PaginaCursor<Vehiculo> obtenerDisponibles(LocalDate fechaInicio, LocalDate fechaFin, Double precioMaximo, Long despuesDe, int limite) throws ReservaInvalidaException {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new ReservaInvalidaException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        int limiteNormalizado = PaginaCursor.normalizarLimite(limite);
+        List<Vehiculo> filas = vehiculoRepository.buscarDisponibles(Vehiculo.ESTADO_DISPONIBLE, fechaInicio, fechaFin, precioMaximo,
+                despuesDe == null ? 0L : despuesDe, Limit.of(limiteNormalizado + 1));
+        return PaginaCursor.de(filas, limiteNormalizado, Vehiculo::getId);
+    }
+
+    /**
+     * Obtiene la ocupación día por día de un vehiculo en un rango de fechas.
+     * <br>
+     * El metodo lee los días ocupados del calendario en memoria (CalendarioOcupacion), sin consultar las reservas.
+     * El vehiculo se busca por id para responder 404 si no existe, normalmente en la cache de segundo nivel.
+     *
+     * @param id el id del vehiculo.
+     * @param desde el primer día del rango.
+     * @param hasta el último día del rango.
+     * @return la ocupación de cada día del rango.
+     * @throws RecursoNoEncontradoException si no existe el vehiculo con el id dado en la base de datos.
+     * @throws ReservaInvalidaException si el rango está al revés o tiene más días de los permitidos.
+     */
+    public CalendarioVehiculo obtenerCalendario(Long id, LocalDate desde, LocalDate hasta) throws RecursoNoEncontradoException, ReservaInvalidaException {
+        validarRangoCalendario(desde, hasta);
+        if (vehiculoRepository.findById(id).isEmpty()) {
+            throw new RecursoNoEncontradoException("Vehiculo no encontrado con id: " + id);
+        }
+        return new CalendarioVehiculo(id, desde, hasta, calendarioOcupacion.ocupacion(id, desde, hasta));
+    }
+
+    /**
+     * Obtiene la ocupación día por día de todos los vehiculos en un rango de fechas, por paginas.
+     * <br>
+     * Los ids de la pagina salen del listado de vehiculos (cache de consultas) y la ocupación de cada uno del calendario en memoria.
+     *
+     * @param desde el primer día del rango.
+     * @param hasta el último día del rango.
+     * @param despuesDe el id del ultimo vehiculo de la pagina anterior, o null para la primera pagina.
+     * @param limite la cantidad maxima de vehiculos en la pagina.
+     * @return la pagina con la ocupación de cada vehiculo y el cursor para pedir la siguiente.
+     * @throws ReservaInvalidaException si el rango está al revés o tiene más días de los permitidos.
+     */
+    public PaginaCursor<CalendarioVehiculo> obtenerCalendarioFlota(LocalDate desde, LocalDate hasta, Long despuesDe, int limite) throws ReservaInvalidaException {
+        validarRangoCalendario(desde, hasta);
+        PaginaCursor<VehiculoResumen> vehiculos = listarResumenes(despuesDe, limite);
+        List<CalendarioVehiculo> calendarios = vehiculos.elementos().stream()
+                .map(vehiculo -> new CalendarioVehiculo(vehiculo.id(), desde, hasta, calendarioOcupacion.ocupacion(vehiculo.id(), desde, hasta)))
+                .toList();
+        return new PaginaCursor<>(calendarios, vehiculos.siguienteCursor());
+    }
+
+    //el rango del calendario debe ir hacia adelante y no pasar de CalendarioOcupacion.DIAS_MAXIMOS dias
+    private static void validarRangoCalendario(LocalDate desde, LocalDate hasta) throws ReservaInvalidaException {
+        if (desde.isAfter(hasta)) {
+            throw new ReservaInvalidaException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= CalendarioOcupacion.DIAS_MAXIMOS) {
+            throw new ReservaInvalidaException("El calendario puede tener a lo mucho " + CalendarioOcupacion.DIAS_MAXIMOS + " dias");
+        }
     }
 }
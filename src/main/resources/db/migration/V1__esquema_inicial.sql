@@ -0,0 +1,71 @@
+-- Esquema inicial para bases de datos nuevas: las mismas tablas y columnas que generaba Hibernate con ddl-auto=update,
+-- pero con nombres propios para las llaves foraneas (fk_..., Hibernate las nombraba FK...) y reserva.id sin AUTO_INCREMENT
+-- (los ids de las reservas salen de secuencia_id, ver V2). Las migraciones siguientes no deben suponer estos nombres:
+-- en una base de datos que ya existia, Flyway la marca como version 1 (baseline) y no ejecuta este script.
+
+CREATE TABLE direccion (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    calle VARCHAR(255) NOT NULL,
+    num_casa INTEGER NOT NULL,
+    colonia VARCHAR(255) NOT NULL,
+    municipio VARCHAR(255) NOT NULL,
+    estado VARCHAR(255) NOT NULL,
+    codigo_postal INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE rol_empleado (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255),
+    descripcion VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE cliente (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(100) NOT NULL,
+    apellidos VARCHAR(100) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    telefono VARCHAR(255) NOT NULL,
+    direccion_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_cliente_direccion UNIQUE (direccion_id),
+    CONSTRAINT fk_cliente_direccion FOREIGN KEY (direccion_id) REFERENCES direccion (id)
+);
+
+CREATE TABLE empleado (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(100) NOT NULL,
+    apellidos VARCHAR(100) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    telefono VARCHAR(255) NOT NULL,
+    direccion_id BIGINT NOT NULL,
+    rol_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_empleado_direccion UNIQUE (direccion_id),
+    CONSTRAINT fk_empleado_direccion FOREIGN KEY (direccion_id) REFERENCES direccion (id),
+    CONSTRAINT fk_empleado_rol FOREIGN KEY (rol_id) REFERENCES rol_empleado (id)
+);
+
+CREATE TABLE vehiculo (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    marca VARCHAR(255) NOT NULL,
+    placa VARCHAR(255) NOT NULL,
+    modelo VARCHAR(255) NOT NULL,
+    color VARCHAR(255) NOT NULL,
+    estado VARCHAR(255) NOT NULL,
+    precio_por_dia DOUBLE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE reserva (
+    id BIGINT NOT NULL,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin DATE NOT NULL,
+    precio_total DOUBLE,
+    cliente_id BIGINT NOT NULL,
+    vehiculo_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reserva_cliente FOREIGN KEY (cliente_id) REFERENCES cliente (id),
+    CONSTRAINT fk_reserva_vehiculo FOREIGN KEY (vehiculo_id) REFERENCES vehiculo (id)
+);
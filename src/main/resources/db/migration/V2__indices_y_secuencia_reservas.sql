@@ -0,0 +1,26 @@
+-- Tabla de ids por bloques de las reservas (TableGenerator de Reserva).
+-- Si la base de datos venia de ddl-auto=update la tabla puede existir o no, por eso IF NOT EXISTS.
+CREATE TABLE IF NOT EXISTS secuencia_id (
+    nombre VARCHAR(255) NOT NULL,
+    siguiente_valor BIGINT,
+    PRIMARY KEY (nombre)
+);
+
+-- El siguiente bloque de ids debe empezar despues de la reserva mas grande que ya exista (antes los ids eran IDENTITY).
+-- Se suma el tamaño del bloque (50) porque Hibernate entrega los ids del bloque que termina en el valor leido.
+INSERT INTO secuencia_id (nombre, siguiente_valor)
+SELECT 'reserva', COALESCE(MAX(r.id), 0) + 50 FROM reserva r
+WHERE NOT EXISTS (SELECT 1 FROM secuencia_id s WHERE s.nombre = 'reserva');
+
+UPDATE secuencia_id
+SET siguiente_valor = GREATEST(siguiente_valor, (SELECT COALESCE(MAX(r.id), 0) + 50 FROM reserva r))
+WHERE nombre = 'reserva';
+
+-- Conflicto de fechas (validarReserva, buscarDisponibles, obtenerIntervalosEnRango): por vehiculo y fechas, sin leer la tabla.
+CREATE INDEX idx_reserva_vehiculo_fechas ON reserva (vehiculo_id, fecha_inicio, fecha_fin);
+
+-- Historial de reservas de un cliente.
+CREATE INDEX idx_reserva_cliente ON reserva (cliente_id);
+
+-- Filtros del catalogo: por estado y, dentro del estado, por precio por dia.
+CREATE INDEX idx_vehiculo_estado_precio ON vehiculo (estado, precio_por_dia);
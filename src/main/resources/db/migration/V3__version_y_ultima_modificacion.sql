@@ -0,0 +1,17 @@
+-- Version (bloqueo optimista) y fecha de ultima modificacion de las entidades que se consultan con ETag.
+-- Las filas que ya existian empiezan en la version 0 con la fecha en que se aplico la migracion.
+ALTER TABLE vehiculo ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE vehiculo ADD COLUMN ultima_modificacion DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+ALTER TABLE reserva ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE reserva ADD COLUMN ultima_modificacion DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+ALTER TABLE cliente ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE cliente ADD COLUMN ultima_modificacion DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+ALTER TABLE empleado ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE empleado ADD COLUMN ultima_modificacion DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+-- Version de los listados (GET /vehiculos y GET /reservas): MAX(ultima_modificacion) se lee del final del indice.
+CREATE INDEX idx_vehiculo_ultima_modificacion ON vehiculo (ultima_modificacion);
+CREATE INDEX idx_reserva_ultima_modificacion ON reserva (ultima_modificacion);
@@ -0,0 +1,4 @@
+-- Historial de reservas de un cliente (GET /clientes/{id}/reservas): filtra por cliente y por fecha de inicio
+-- y pagina en orden de fecha de inicio e id sin ordenar en memoria. En InnoDB el indice ya lleva el id al final.
+-- idx_reserva_cliente se queda porque la llave foranea fk_reserva_cliente lo usa (H2 no deja borrarlo).
+CREATE INDEX idx_reserva_cliente_fecha ON reserva (cliente_id, fecha_inicio);
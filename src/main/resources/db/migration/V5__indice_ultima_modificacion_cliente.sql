@@ -0,0 +1,3 @@
+-- Version del listado de reservas (GET /reservas): el listado muestra el nombre y apellidos del cliente, asi que su version
+-- tambien toma MAX(ultima_modificacion) de cliente, que se lee del final de este indice.
+CREATE INDEX idx_cliente_ultima_modificacion ON cliente (ultima_modificacion);
@@ -0,0 +1,92 @@
+package org.axelgutierrez.piapoo2025;
+
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Direccion;
+import org.axelgutierrez.piapoo2025.model.Empleado;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.RolEmpleado;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+
+import java.time.LocalDate;
+
+/**
+ * Entidades de prueba sin guardar, compartidas por las pruebas de reservas, clientes, vehiculos y empleados.
+ * <br>
+ * Cada llamada crea una entidad nueva, así cada prueba puede cambiarla o guardarla sin afectar a las demás.
+ */
+public final class DatosPrueba {
+
+    private DatosPrueba() {
+    }
+
+    /**
+     * Un vehiculo disponible de 500 por dia.
+     */
+    public static Vehiculo nuevoVehiculo() {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca("Nissan");
+        vehiculo.setModelo("Versa");
+        vehiculo.setPlaca("ABC-123");
+        vehiculo.setColor("Blanco");
+        vehiculo.setEstado("DISPONIBLE");
+        vehiculo.setPrecioPorDia(500.0);
+        return vehiculo;
+    }
+
+    /**
+     * Un cliente con su dirección.
+     */
+    public static Cliente nuevoCliente() {
+        Direccion direccion = new Direccion();
+        direccion.setCalle("Av. Universidad");
+        direccion.setNumCasa(100);
+        direccion.setColonia("Centro");
+        direccion.setMunicipio("Monterrey");
+        direccion.setEstado("Nuevo León");
+        direccion.setCodigoPostal(64000);
+
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Axel");
+        cliente.setApellidos("Gutiérrez");
+        cliente.setEmail("axel@mail.com");
+        cliente.setTelefono("1234567890");
+        cliente.setDireccion(direccion);
+        return cliente;
+    }
+
+    /**
+     * Una reserva del cliente y el vehiculo dados entre las fechas dadas (ambas incluidas).
+     */
+    public static Reserva nuevaReserva(Cliente cliente, Vehiculo vehiculo, LocalDate inicio, LocalDate fin) {
+        Reserva reserva = new Reserva();
+        reserva.setCliente(cliente);
+        reserva.setVehiculo(vehiculo);
+        reserva.setFechaInicio(inicio);
+        reserva.setFechaFin(fin);
+        return reserva;
+    }
+
+    /**
+     * Un empleado con su dirección y solo el id de su rol, como llega en el JSON de la petición.
+     */
+    public static Empleado nuevoEmpleado(long rolId, String email) {
+        Direccion direccion = new Direccion();
+        direccion.setCalle("Av. Constitución");
+        direccion.setNumCasa(200);
+        direccion.setColonia("Centro");
+        direccion.setMunicipio("Monterrey");
+        direccion.setEstado("Nuevo León");
+        direccion.setCodigoPostal(64000);
+
+        RolEmpleado rol = new RolEmpleado();
+        rol.setId(rolId);
+        Empleado empleado = new Empleado();
+        empleado.setNombre("Ana");
+        empleado.setApellidos("López");
+        empleado.setEmail(email);
+        empleado.setTelefono("8180000000");
+        empleado.setDireccion(direccion);
+        empleado.setRol(rol);
+        return empleado;
+    }
+}
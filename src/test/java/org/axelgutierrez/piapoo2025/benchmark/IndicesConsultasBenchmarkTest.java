@@ -0,0 +1,143 @@
+package org.axelgutierrez.piapoo2025.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara la latencia de las consultas frecuentes antes y después de la migración de índices (V2).
+ * <br>
+ * Crea una base de datos H2 en modo MySQL con 1,000,000 de reservas, mide con el esquema de V1 (solo los índices
+ * que crean las llaves foráneas, igual que InnoDB),
+ * aplica las demás migraciones y vuelve a medir.
+ * <br>
+ * No corre con las pruebas normales: mvn test -Dtest=IndicesConsultasBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class IndicesConsultasBenchmarkTest {
+    private static final String URL = "jdbc:h2:mem:benchmark_indices;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int VEHICULOS = 10_000;
+    private static final int CLIENTES = 20_000;
+    private static final int RESERVAS_POR_VEHICULO = 100; //10,000 x 100 = 1,000,000 de reservas
+    private static final int REPETICIONES = 200;
+    private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+
+    //las mismas condiciones que validarReserva, el historial por cliente y el filtro del catalogo
+    private static final String CONFLICTO = "SELECT CASE WHEN EXISTS (SELECT 1 FROM reserva r WHERE r.vehiculo_id = ? " +
+            "AND r.fecha_inicio <= ? AND r.fecha_fin >= ?) THEN 1 ELSE 0 END";
+    private static final String HISTORIAL = "SELECT r.id, r.fecha_inicio, r.fecha_fin FROM reserva r WHERE r.cliente_id = ?";
+    private static final String CATALOGO = "SELECT v.id FROM vehiculo v WHERE v.estado = ? AND v.precio_por_dia <= ?";
+
+    @Test
+    void consultasFrecuentes_conYSinIndices() throws SQLException {
+        Flyway.configure().dataSource(URL, "sa", "").target("1").load().migrate();
+        try (Connection conexion = DriverManager.getConnection(URL, "sa", "")) {
+            cargarDatos(conexion);
+
+            double[] antes = medir(conexion);
+            Flyway.configure().dataSource(URL, "sa", "").load().migrate(); //V2 en adelante: indices
+            double[] despues = medir(conexion);
+
+            System.out.printf("%-10s %15s %15s%n", "consulta", "V1 us", "V2 us");
+            String[] nombres = {"conflicto", "historial", "catalogo"};
+            for (int i = 0; i < nombres.length; i++) {
+                System.out.printf("%-10s %15.1f %15.1f%n", nombres[i], antes[i], despues[i]);
+            }
+            assertTrue(despues[0] < antes[0], "el indice de conflicto deberia ser mas rapido");
+        }
+    }
+
+    private void cargarDatos(Connection conexion) throws SQLException {
+        conexion.setAutoCommit(false);
+        Random random = new Random(42);
+        try (PreparedStatement vehiculo = conexion.prepareStatement("INSERT INTO vehiculo (id, marca, placa, modelo, color, estado, precio_por_dia) VALUES (?, 'Nissan', 'ABC-123', 'Versa', 'Blanco', ?, ?)")) {
+            for (int id = 1; id <= VEHICULOS; id++) {
+                vehiculo.setLong(1, id);
+                vehiculo.setString(2, id % 10 == 0 ? "EN MANTENIMIENTO" : "DISPONIBLE");
+                vehiculo.setDouble(3, 300 + random.nextInt(1200));
+                vehiculo.addBatch();
+            }
+            vehiculo.executeBatch();
+        }
+        try (PreparedStatement direccion = conexion.prepareStatement("INSERT INTO direccion (id, calle, num_casa, colonia, municipio, estado, codigo_postal) VALUES (?, 'Av. Universidad', 100, 'Centro', 'Monterrey', 'Nuevo Leon', 64000)");
+             PreparedStatement cliente = conexion.prepareStatement("INSERT INTO cliente (id, nombre, apellidos, email, telefono, direccion_id) VALUES (?, 'Axel', 'Gutierrez', 'axel@mail.com', '1234567890', ?)")) {
+            for (int id = 1; id <= CLIENTES; id++) {
+                direccion.setLong(1, id);
+                direccion.addBatch();
+                cliente.setLong(1, id);
+                cliente.setLong(2, id);
+                cliente.addBatch();
+            }
+            direccion.executeBatch();
+            cliente.executeBatch();
+        }
+        try (PreparedStatement reserva = conexion.prepareStatement("INSERT INTO reserva (id, fecha_inicio, fecha_fin, precio_total, cliente_id, vehiculo_id) VALUES (?, ?, ?, 1000, ?, ?)")) {
+            long id = 1;
+            for (int vehiculo = 1; vehiculo <= VEHICULOS; vehiculo++) {
+                LocalDate inicio = INICIO;
+                for (int i = 0; i < RESERVAS_POR_VEHICULO; i++, id++) {
+                    LocalDate fin = inicio.plusDays(1 + random.nextInt(5));
+                    reserva.setLong(1, id);
+                    reserva.setDate(2, Date.valueOf(inicio));
+                    reserva.setDate(3, Date.valueOf(fin));
+                    reserva.setLong(4, 1 + random.nextInt(CLIENTES));
+                    reserva.setLong(5, vehiculo);
+                    reserva.addBatch();
+                    inicio = fin.plusDays(1 + random.nextInt(10));
+                }
+                if (vehiculo % 100 == 0) {
+                    reserva.executeBatch();
+                }
+            }
+            reserva.executeBatch();
+        }
+        conexion.commit();
+        conexion.setAutoCommit(true);
+    }
+
+    //promedio en microsegundos de cada consulta
+    private double[] medir(Connection conexion) throws SQLException {
+        Random random = new Random(7); //mismos parametros antes y despues
+        long[] totales = new long[3];
+        try (PreparedStatement conflicto = conexion.prepareStatement(CONFLICTO);
+             PreparedStatement historial = conexion.prepareStatement(HISTORIAL);
+             PreparedStatement catalogo = conexion.prepareStatement(CATALOGO)) {
+            for (int i = 0; i < REPETICIONES; i++) {
+                LocalDate fecha = INICIO.plusDays(random.nextInt(1000));
+                conflicto.setLong(1, 1 + random.nextInt(VEHICULOS));
+                conflicto.setDate(2, Date.valueOf(fecha.plusDays(3)));
+                conflicto.setDate(3, Date.valueOf(fecha));
+                totales[0] += tiempo(conflicto);
+
+                historial.setLong(1, 1 + random.nextInt(CLIENTES));
+                totales[1] += tiempo(historial);
+
+                catalogo.setString(1, "EN MANTENIMIENTO");
+                catalogo.setDouble(2, 300 + random.nextInt(1200));
+                totales[2] += tiempo(catalogo);
+            }
+        }
+        return new double[]{totales[0] / 1000.0 / REPETICIONES, totales[1] / 1000.0 / REPETICIONES, totales[2] / 1000.0 / REPETICIONES};
+    }
+
+    private long tiempo(PreparedStatement consulta) throws SQLException {
+        long inicio = System.nanoTime();
+        try (ResultSet filas = consulta.executeQuery()) {
+            while (filas.next()) {
+                filas.getLong(1);
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+}
@@ -0,0 +1,107 @@
+package org.axelgutierrez.piapoo2025.carga;
+
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.service.VehiculoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de carga: peticiones por segundo contra GET /vehiculos/disponibles con distintas cantidades de clientes a la vez.
+ * <br>
+ * Cada subclase levanta la aplicación en un modo (hilos de plataforma o hilos virtuales) para comparar los resultados.
+ * Por defecto usa H2; para medir contra MySQL se puede pasar -Dspring.datasource.url=... y las credenciales.
+ * <br>
+ * No corre con las pruebas normales: mvn test -Dtest='PruebaCarga*' -Dbenchmark=true
+ */
+//sin las estadisticas de hibernate de las pruebas, que agregan trabajo y un log por cada sesion
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+abstract class PruebaCarga {
+    private static final int[] CLIENTES = {10, 50, 200, 400, 800};
+    private static final Duration DURACION = Duration.ofSeconds(5);
+
+    @LocalServerPort
+    private int puerto;
+    @Autowired
+    private VehiculoService vehiculoService;
+
+    abstract String modo();
+
+    @Test
+    void peticionesPorSegundo_segunClientesALaVez() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            vehiculoService.guardar(nuevoVehiculo(300.0 + i * 10));
+        }
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto
+                + "/vehiculos/disponibles?inicio=2025-06-01&fin=2025-06-05&precioMax=700&limit=20")).build();
+
+        medir(cliente, peticion, 50, false); //calentamiento del JIT, no se reporta
+        System.out.printf("%n[%s]%n%10s %15s %10s %8s%n", modo(), "clientes", "peticiones/s", "p99 ms", "errores");
+        for (int clientes : CLIENTES) {
+            medir(cliente, peticion, clientes, true);
+        }
+    }
+
+    private void medir(HttpClient cliente, HttpRequest peticion, int clientes, boolean reportar) throws InterruptedException {
+        List<Long> latencias = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errores = new AtomicInteger();
+        long fin = System.nanoTime() + DURACION.toNanos();
+        //los clientes usan hilos de plataforma para no competir con los hilos virtuales del servidor por los mismos nucleos
+        try (ExecutorService hilos = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory())) {
+            for (int i = 0; i < clientes; i++) {
+                hilos.submit(() -> {
+                    while (System.nanoTime() < fin) {
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                            if (respuesta.statusCode() != 200) {
+                                errores.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errores.incrementAndGet();
+                        }
+                        latencias.add(System.nanoTime() - inicio);
+                    }
+                    return null;
+                });
+            }
+        } //close espera a que terminen todos los clientes
+
+        List<Long> ordenadas = new ArrayList<>(latencias);
+        Collections.sort(ordenadas);
+        assertFalse(ordenadas.isEmpty());
+        double porSegundo = ordenadas.size() / (double) DURACION.toSeconds();
+        double p99 = ordenadas.get((int) (ordenadas.size() * 0.99)) / 1_000_000.0;
+        if (reportar) {
+            System.out.printf("%10d %15.0f %10.1f %8d%n", clientes, porSegundo, p99, errores.get());
+        }
+    }
+
+    private Vehiculo nuevoVehiculo(double precioPorDia) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca("Nissan");
+        vehiculo.setModelo("Versa");
+        vehiculo.setPlaca("ABC-123");
+        vehiculo.setColor("Blanco");
+        vehiculo.setEstado("DISPONIBLE");
+        vehiculo.setPrecioPorDia(precioPorDia);
+        return vehiculo;
+    }
+}
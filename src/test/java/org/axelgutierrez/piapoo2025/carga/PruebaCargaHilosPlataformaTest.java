@@ -0,0 +1,12 @@
+package org.axelgutierrez.piapoo2025.carga;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+//modo por defecto: pool de 200 hilos de Tomcat y 10 conexiones de Hikari
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PruebaCargaHilosPlataformaTest extends PruebaCarga {
+    @Override
+    String modo() {
+        return "hilos de plataforma";
+    }
+}
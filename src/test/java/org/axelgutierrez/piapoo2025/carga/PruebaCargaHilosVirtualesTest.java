@@ -0,0 +1,14 @@
+package org.axelgutierrez.piapoo2025.carga;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.context.ActiveProfiles;
+
+//perfil virtual: application-virtual.properties (hilos virtuales y pool de conexiones dimensionado)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@ActiveProfiles("virtual")
+class PruebaCargaHilosVirtualesTest extends PruebaCarga {
+    @Override
+    String modo() {
+        return "hilos virtuales";
+    }
+}
@@ -0,0 +1,62 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false) //las pruebas no publican metricas en prometheus si no se pide
+public class MetricasServiciosTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Test
+    void reservaDoble_deberiaContarseComoConflictoYMedirseEnElServicio() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        String reserva = "{\"fechaInicio\":\"2025-10-01\",\"fechaFin\":\"2025-10-03\",\"cliente\":{\"id\":" + cliente.getId()
+                + "},\"vehiculo\":{\"id\":" + vehiculo.getId() + "}}";
+        double conflictosAntes = meterRegistry.counter("api.errores", "tipo", "conflicto").count();
+
+        mockMvc.perform(post("/reservas").contentType(MediaType.APPLICATION_JSON).content(reserva)).andExpect(status().isOk());
+        mockMvc.perform(post("/reservas").contentType(MediaType.APPLICATION_JSON).content(reserva)).andExpect(status().isBadRequest());
+
+        assertEquals(conflictosAntes + 1, meterRegistry.counter("api.errores", "tipo", "conflicto").count());
+        assertNotNull(meterRegistry.find(MetricasServicios.METRICA)
+                .tags("servicio", "ReservaService", "operacion", "guardar", "resultado", "ConflictoReservaException").timer());
+        assertNotNull(meterRegistry.find(MetricasServicios.METRICA)
+                .tags("servicio", "ReservaService", "operacion", "guardar", "resultado", "exito").timer());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("servicio_operacion_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("api_errores_total{tipo=\"conflicto\"}")));
+    }
+}
@@ -0,0 +1,102 @@
+package org.axelgutierrez.piapoo2025.config;
+
+import db.migration.V6__Quitar_indice_reserva_cliente;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+//V6 sobre una base de datos como las que venian de ddl-auto=update (baseline), con la llave foranea nombrada por Hibernate
+public class MigracionIndiceReservaClienteTest {
+
+    private Connection conexion;
+    private Context context;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conexion = DriverManager.getConnection("jdbc:h2:mem:migracion_v6;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("CREATE TABLE cliente (id BIGINT NOT NULL AUTO_INCREMENT, PRIMARY KEY (id))");
+            sentencia.execute("CREATE TABLE reserva (id BIGINT NOT NULL AUTO_INCREMENT, fecha_inicio DATE NOT NULL, cliente_id BIGINT NOT NULL, PRIMARY KEY (id))");
+            sentencia.execute("ALTER TABLE reserva ADD CONSTRAINT FKk2ipjbuw5w9a4vymkbpx3xi5h FOREIGN KEY (cliente_id) REFERENCES cliente (id)");
+            sentencia.execute("CREATE INDEX idx_reserva_cliente ON reserva (cliente_id)");
+            sentencia.execute("CREATE INDEX idx_reserva_cliente_fecha ON reserva (cliente_id, fecha_inicio)");
+        }
+        context = mock(Context.class);
+        given(context.getConnection()).willReturn(conexion);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("DROP ALL OBJECTS");
+        }
+        conexion.close();
+    }
+
+    @Test
+    void migrate_conLlaveNombradaPorHibernate_laReemplazaYQuitaElIndice() throws SQLException {
+        new V6__Quitar_indice_reserva_cliente().migrate(context);
+
+        assertEquals(List.of("fk_reserva_cliente"), llavesDeCliente());
+        List<String> indices = indicesDeReserva();
+        assertFalse(indices.contains("idx_reserva_cliente"));
+        assertTrue(indices.contains("idx_reserva_cliente_fecha"));
+    }
+
+    @Test
+    void migrate_otraVez_noFallaYDejaLoMismo() throws SQLException {
+        new V6__Quitar_indice_reserva_cliente().migrate(context);
+        List<String> indices = indicesDeReserva();
+
+        new V6__Quitar_indice_reserva_cliente().migrate(context);
+
+        assertEquals(List.of("fk_reserva_cliente"), llavesDeCliente());
+        assertEquals(indices, indicesDeReserva());
+    }
+
+    @Test
+    void migrate_sinLlave_laCrea() throws SQLException {
+        //como si una corrida anterior se hubiera detenido despues de quitar la llave (el DDL de MySQL no es transaccional)
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("ALTER TABLE reserva DROP FOREIGN KEY FKk2ipjbuw5w9a4vymkbpx3xi5h");
+        }
+
+        new V6__Quitar_indice_reserva_cliente().migrate(context);
+
+        assertEquals(List.of("fk_reserva_cliente"), llavesDeCliente());
+        assertFalse(indicesDeReserva().contains("idx_reserva_cliente"));
+    }
+
+    private List<String> llavesDeCliente() throws SQLException {
+        List<String> llaves = new ArrayList<>();
+        try (ResultSet filas = conexion.getMetaData().getImportedKeys(conexion.getCatalog(), conexion.getSchema(), "reserva")) {
+            while (filas.next()) {
+                llaves.add(filas.getString("FK_NAME").toLowerCase());
+            }
+        }
+        return llaves;
+    }
+
+    private List<String> indicesDeReserva() throws SQLException {
+        List<String> indices = new ArrayList<>();
+        try (ResultSet filas = conexion.getMetaData().getIndexInfo(conexion.getCatalog(), conexion.getSchema(), "reserva", false, false)) {
+            while (filas.next()) {
+                indices.add(filas.getString("INDEX_NAME").toLowerCase());
+            }
+        }
+        return indices;
+    }
+}
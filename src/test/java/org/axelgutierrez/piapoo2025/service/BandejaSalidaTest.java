@@ -0,0 +1,184 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.axelgutierrez.piapoo2025.config.PropiedadesBandejaSalida;
+import org.axelgutierrez.piapoo2025.dto.EventoReserva;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BandejaSalidaTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void publicar_deberiaEntregarLosEventosPorLotesEnOrden() throws Exception {
+        List<List<EventoReserva>> lotes = new CopyOnWriteArrayList<>();
+        MeterRegistry registro = new SimpleMeterRegistry();
+        BandejaSalida bandeja = iniciar(100, lotes::add, registro);
+
+        bandeja.publicar(List.of(creada(1L), creada(2L), creada(3L)));
+        bandeja.publicar(EventoReserva.eliminada(1L));
+        bandeja.detener(); //espera a que se vacie la cola
+
+        List<EventoReserva> recibidos = lotes.stream().flatMap(List::stream).toList();
+        assertEquals(List.of(1L, 2L, 3L, 4L), recibidos.stream().map(EventoReserva::secuencia).toList());
+        assertEquals(EventoReserva.Tipo.ELIMINADA, recibidos.getLast().tipo());
+        assertEquals(4, registro.get(BandejaSalida.METRICA_EVENTOS).tag("resultado", "procesado").counter().count());
+        assertEquals("4", Files.readString(directorio.resolve(DiarioEventos.ARCHIVO_PUNTO_DE_CONTROL)));
+    }
+
+    @Test
+    void iniciar_deberiaReprocesarLosEventosQueFallaron() throws Exception {
+        BandejaSalida conError = iniciar(100, lote -> {
+            throw new IllegalStateException("servicio de correo caido");
+        }, new SimpleMeterRegistry());
+        conError.publicar(List.of(creada(1L), creada(2L)));
+        conError.detener();
+        //una caida a media escritura deja la ultima linea incompleta
+        Files.writeString(directorio.resolve(DiarioEventos.ARCHIVO_EVENTOS), "3;CREADA;3;10", StandardOpenOption.APPEND);
+
+        List<EventoReserva> recibidos = new CopyOnWriteArrayList<>();
+        BandejaSalida reiniciada = iniciar(100, recibidos::addAll, new SimpleMeterRegistry());
+        reiniciada.publicar(creada(3L));
+        reiniciada.detener();
+
+        assertEquals(List.of(1L, 2L, 3L), recibidos.stream().map(EventoReserva::secuencia).toList());
+        assertEquals(LocalDate.parse("2025-06-01"), recibidos.getFirst().fechaInicio());
+        assertEquals(1500.0, recibidos.getFirst().precioTotal());
+
+        //ya con todo procesado no se vuelve a entregar nada
+        List<EventoReserva> otraVez = new CopyOnWriteArrayList<>();
+        iniciar(100, otraVez::addAll, new SimpleMeterRegistry()).detener();
+        assertTrue(otraVez.isEmpty());
+    }
+
+    @Test
+    void iniciar_conUnaLineaDanadaEnElDiario_deberiaSaltarlaYProcesarLasDemas() throws Exception {
+        BandejaSalida conError = iniciar(100, lote -> {
+            throw new IllegalStateException("servicio de correo caido");
+        }, new SimpleMeterRegistry());
+        conError.publicar(creada(1L));
+        conError.detener();
+        //una escritura que fallo a la mitad y el siguiente lote pegado a ella, en medio del diario
+        Path diario = directorio.resolve(DiarioEventos.ARCHIVO_EVENTOS);
+        String primera = Files.readString(diario);
+        Files.writeString(diario, "2;CREADA;2;1" + primera.replaceFirst("^1;", "3;") + primera.replaceFirst("^1;", "4;"), StandardOpenOption.APPEND);
+
+        List<EventoReserva> recibidos = new CopyOnWriteArrayList<>();
+        BandejaSalida reiniciada = iniciar(100, recibidos::addAll, new SimpleMeterRegistry());
+        reiniciada.publicar(creada(5L));
+        reiniciada.detener();
+
+        assertEquals(List.of(1L, 4L, 5L), recibidos.stream().map(EventoReserva::secuencia).toList());
+        assertEquals(5L, recibidos.getLast().reservaId());
+    }
+
+    @Test
+    void reintentar_deberiaEntregarElLoteQueFallo_sinReiniciar() throws Exception {
+        AtomicInteger intentos = new AtomicInteger();
+        List<EventoReserva> recibidos = new CopyOnWriteArrayList<>();
+        MeterRegistry registro = new SimpleMeterRegistry();
+        BandejaSalida bandeja = iniciar(100, DataSize.ofBytes(1), lote -> {
+            if (intentos.incrementAndGet() == 1) {
+                throw new IllegalStateException("servicio de correo caido");
+            }
+            recibidos.addAll(lote);
+        }, registro);
+
+        bandeja.publicar(List.of(creada(1L), creada(2L)));
+        esperarHasta(() -> recibidos.size() == 2);
+        double fallidos = registro.get(BandejaSalida.METRICA_EVENTOS).tag("resultado", "fallido").counter().count();
+        assertTrue(fallidos > 0);
+        assertEquals(fallidos, registro.get(BandejaSalida.METRICA_EVENTOS).tag("resultado", "reintentado").counter().count());
+        assertEquals(0, registro.get("bandeja.salida.pendientes").gauge().value());
+
+        //con todo procesado el punto de control llega al ultimo evento y el diario (mas grande que el maximo) se vacia
+        bandeja.sincronizar();
+        assertEquals("2", Files.readString(directorio.resolve(DiarioEventos.ARCHIVO_PUNTO_DE_CONTROL)));
+        assertEquals(0, Files.size(directorio.resolve(DiarioEventos.ARCHIVO_EVENTOS)));
+        bandeja.detener();
+        //el reintento puede llegar despues de eventos posteriores
+        assertEquals(List.of(1L, 2L), recibidos.stream().map(EventoReserva::secuencia).sorted().toList());
+    }
+
+    @Test
+    void publicar_conLaColaLlena_deberiaReintentarElEventoDesdeElDiario() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        MeterRegistry registro = new SimpleMeterRegistry();
+        List<EventoReserva> recibidos = new CopyOnWriteArrayList<>();
+        BandejaSalida bandeja = iniciar(1, lote -> {
+            esperar(liberar);
+            recibidos.addAll(lote);
+        }, registro);
+
+        bandeja.publicar(creada(1L)); //lo toma el trabajador y se queda esperando
+        while (registro.get("bandeja.salida.cola").gauge().value() > 0) {
+            Thread.sleep(5);
+        }
+        bandeja.publicar(creada(2L)); //llena la cola
+        bandeja.publicar(creada(3L)); //no cabe
+        assertEquals(1, registro.get(BandejaSalida.METRICA_EVENTOS).tag("resultado", "rechazado").counter().count());
+        assertEquals(3, registro.get("bandeja.salida.pendientes").gauge().value());
+
+        liberar.countDown();
+        esperarHasta(() -> recibidos.size() == 3); //el rechazado se vuelve a leer del diario en cuanto hay lugar
+        bandeja.detener();
+        assertEquals(List.of(1L, 2L, 3L), recibidos.stream().map(EventoReserva::secuencia).toList());
+        assertEquals(1, registro.get(BandejaSalida.METRICA_EVENTOS).tag("resultado", "reintentado").counter().count());
+
+        List<EventoReserva> reprocesados = new CopyOnWriteArrayList<>();
+        iniciar(1, reprocesados::addAll, new SimpleMeterRegistry()).detener();
+        assertTrue(reprocesados.isEmpty());
+    }
+
+    private BandejaSalida iniciar(int capacidad, IManejadorEventosReserva manejador, MeterRegistry registro) throws Exception {
+        return iniciar(capacidad, DataSize.ofMegabytes(1), manejador, registro);
+    }
+
+    private BandejaSalida iniciar(int capacidad, DataSize tamanoMaximoDiario, IManejadorEventosReserva manejador, MeterRegistry registro) throws Exception {
+        PropiedadesBandejaSalida propiedades = new PropiedadesBandejaSalida(directorio, capacidad, 1, 10,
+                Duration.ofMillis(10), Duration.ofMillis(20), Duration.ofMillis(20), tamanoMaximoDiario);
+        BandejaSalida bandeja = new BandejaSalida(propiedades, List.of(manejador), registro);
+        bandeja.iniciar();
+        return bandeja;
+    }
+
+    private static EventoReserva creada(long reservaId) {
+        return new EventoReserva(0, EventoReserva.Tipo.CREADA, reservaId, 10L, 20L,
+                LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-03"), 1500.0, Instant.now());
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "no se cumplio la condicion a tiempo");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.dto.IntervaloReserva;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalendarioOcupacionTest {
+
+    private CalendarioOcupacion calendario;
+    private IndiceReservas indiceReservas; //el calendario se mantiene desde el indice
+
+    @BeforeEach
+    void setUp() {
+        calendario = new CalendarioOcupacion();
+        indiceReservas = new IndiceReservas(calendario);
+        indiceReservas.registrar(new IntervaloReserva(1L, 10L, LocalDate.parse("2025-06-02"), LocalDate.parse("2025-06-03")));
+        indiceReservas.registrar(new IntervaloReserva(2L, 10L, LocalDate.parse("2025-06-06"), LocalDate.parse("2025-06-06")));
+    }
+
+    @Test
+    void ocupacion_deberiaMarcarLosDiasReservadosDelRango() {
+        assertEquals("0110010", calendario.ocupacion(10L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-07")));
+        assertEquals("10", calendario.ocupacion(10L, LocalDate.parse("2025-06-03"), LocalDate.parse("2025-06-04"))); //el rango corta una reserva
+        assertEquals("0000000", calendario.ocupacion(99L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-07"))); //otro vehiculo
+    }
+
+    @Test
+    void registrar_conReservaExistente_deberiaMoverSusDias() {
+        indiceReservas.registrar(new IntervaloReserva(1L, 10L, LocalDate.parse("2025-06-04"), LocalDate.parse("2025-06-05"))); //se movio la primera reserva
+
+        assertEquals("0001110", calendario.ocupacion(10L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-07")));
+    }
+
+    @Test
+    void registrar_conOtroVehiculo_deberiaLiberarLosDiasDelAnterior() {
+        indiceReservas.registrar(new IntervaloReserva(2L, 20L, LocalDate.parse("2025-06-06"), LocalDate.parse("2025-06-06")));
+
+        assertEquals("0110000", calendario.ocupacion(10L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-07")));
+        assertEquals("0000010", calendario.ocupacion(20L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-07")));
+    }
+
+    @Test
+    void quitar_deberiaLiberarLosDias() {
+        indiceReservas.quitar(1L);
+
+        assertEquals("0000010", calendario.ocupacion(10L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-07")));
+    }
+
+    @Test
+    void ocupacion_conFechasAntesDelOrigen_deberiaDejarLibresLosDiasAnterioresAl2000() {
+        indiceReservas.registrar(new IntervaloReserva(3L, 10L, LocalDate.parse("1999-12-30"), LocalDate.parse("2000-01-02")));
+
+        assertEquals("0001100", calendario.ocupacion(10L, LocalDate.parse("1999-12-29"), LocalDate.parse("2000-01-04")));
+    }
+}
@@ -1,5 +1,6 @@
 package org.axelgutierrez.piapoo2025.service;
 
+import org.axelgutierrez.piapoo2025.exception.ConflictoVersionException;
 import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
 import org.axelgutierrez.piapoo2025.model.Cliente;
 import org.axelgutierrez.piapoo2025.model.Direccion;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.List;
 import java.util.Optional;
@@ -95,4 +97,70 @@ public class ClienteServiceTest {
         assertThrows(RecursoNoEncontradoException.class, () -> clienteService.eliminar(99L)); //verifica que lance la excepcion RecursoNoEncontradoException
         verify(clienteRepository, never()).deleteById(anyLong()); //verifica que el metodo deleteById no se haya llamado con el id dado
     }
+
+    @Test
+    void actualizar_conConflictoEnOtrosCampos_deberiaReintentarYConservarAmbosCambios() throws Exception {
+        Cliente leido = copia(1L, "Axel", "axel@mail.com");
+        Cliente cambiadoPorOtro = copia(2L, "Axel", "otro@mail.com"); //otra petición cambio el email entre la lectura y el guardado
+        given(clienteRepository.findById(1L)).willReturn(Optional.of(leido), Optional.of(cambiadoPorOtro));
+        given(clienteRepository.save(any(Cliente.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Cliente.class, 1L))
+                .willAnswer(invocacion -> invocacion.getArgument(0));
+        Cliente cambios = new Cliente();
+        cambios.setNombre("Alexis");
+
+        Cliente resultado = clienteService.actualizar(1L, cambios, null);
+
+        assertEquals("Alexis", resultado.getNombre()); //nuestro cambio
+        assertEquals("otro@mail.com", resultado.getEmail()); //y el de la otra petición
+        verify(clienteRepository, times(2)).save(any(Cliente.class));
+    }
+
+    @Test
+    void actualizar_conConflictoEnElMismoCampo_deberiaLanzarConflictoSinReintentar() {
+        given(clienteRepository.findById(1L)).willReturn(Optional.of(copia(1L, "Axel", "axel@mail.com")),
+                Optional.of(copia(2L, "Alan", "axel@mail.com"))); //otra petición cambio el mismo nombre
+        given(clienteRepository.save(any(Cliente.class))).willThrow(new ObjectOptimisticLockingFailureException(Cliente.class, 1L));
+        Cliente cambios = new Cliente();
+        cambios.setNombre("Alexis");
+
+        ConflictoVersionException e = assertThrows(ConflictoVersionException.class, () -> clienteService.actualizar(1L, cambios, null));
+        assertFalse(e.isPrecondicionFallida()); //409
+        verify(clienteRepository, times(1)).save(any(Cliente.class));
+    }
+
+    @Test
+    void actualizar_conIfMatchDeOtraVersion_deberiaLanzarConflictoSinGuardar() {
+        given(clienteRepository.findById(1L)).willReturn(Optional.of(copia(3L, "Axel", "axel@mail.com")));
+        Cliente cambios = new Cliente();
+        cambios.setNombre("Alexis");
+
+        ConflictoVersionException e = assertThrows(ConflictoVersionException.class, () -> clienteService.actualizar(1L, cambios, 2L));
+        assertTrue(e.isPrecondicionFallida()); //412
+        verify(clienteRepository, never()).save(any(Cliente.class));
+    }
+
+    @Test
+    void actualizar_conConflictosEnCadaIntento_deberiaRendirseDespuesDelMaximo() {
+        given(clienteRepository.findById(1L)).willAnswer(invocacion -> Optional.of(copia(1L, "Axel", "axel@mail.com")));
+        given(clienteRepository.save(any(Cliente.class))).willThrow(new ObjectOptimisticLockingFailureException(Cliente.class, 1L));
+        Cliente cambios = new Cliente();
+        cambios.setTelefono("8181818181");
+
+        assertThrows(ConflictoVersionException.class, () -> clienteService.actualizar(1L, cambios, null));
+        verify(clienteRepository, times(ReintentoOptimista.INTENTOS_MAXIMOS)).save(any(Cliente.class));
+    }
+
+    //un cliente nuevo en cada lectura, como lo regresaria la base de datos
+    private Cliente copia(long version, String nombre, String email) {
+        Cliente copia = new Cliente();
+        copia.setId(1L);
+        copia.setVersion(version);
+        copia.setNombre(nombre);
+        copia.setApellidos("Gutiérrez");
+        copia.setEmail(email);
+        copia.setTelefono("1234567890");
+        copia.setDireccion(new Direccion());
+        return copia;
+    }
 }
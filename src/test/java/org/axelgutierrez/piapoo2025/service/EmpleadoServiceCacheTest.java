@@ -0,0 +1,49 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.model.RolEmpleado;
+import org.axelgutierrez.piapoo2025.repository.RolEmpleadoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoEmpleado;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class EmpleadoServiceCacheTest {
+
+    @Autowired
+    private EmpleadoService empleadoService;
+    @Autowired
+    private RolEmpleadoRepository rolEmpleadoRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void guardar_deberiaLeerElRolDeLaCacheDeSegundoNivel() throws Exception {
+        RolEmpleado rol = new RolEmpleado();
+        rol.setNombre("Recepcionista");
+        rol.setDescripcion("Atiende a los clientes en mostrador");
+        rol = rolEmpleadoRepository.save(rol);
+        empleadoService.guardar(nuevoEmpleado(rol.getId(), "ana@mail.com")); //el primer empleado lee el rol de la base de datos y lo deja en la region
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        empleadoService.guardar(nuevoEmpleado(rol.getId(), "luis@mail.com"));
+        empleadoService.guardar(nuevoEmpleado(rol.getId(), "sofia@mail.com"));
+
+        CacheRegionStatistics region = estadisticas.getCacheRegionStatistics("rolEmpleado");
+        assertEquals(2, region.getHitCount());
+        assertEquals(0, region.getMissCount());
+        assertEquals(4, estadisticas.getPrepareStatementCount()); //solo los inserts de las direcciones y los empleados
+        assertEquals(1.0, meterRegistry.get("hibernate.cache.region.aciertos").tag("region", "rolEmpleado").gauge().value());
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tags("region", "rolEmpleado", "result", "hit").functionCounter());
+    }
+}
@@ -0,0 +1,87 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.axelgutierrez.piapoo2025.dto.ReservaExportacion;
+import org.axelgutierrez.piapoo2025.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+public class ExportacionReservasServiceTest {
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Spy //igual que el ObjectMapper de Spring Boot: fechas como texto
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    @InjectMocks
+    private ExportacionReservasService exportacionReservasService;
+
+    private final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void exportarNdjson_sinReservas_deberiaQuedarVacio() throws Exception {
+        given(reservaRepository.recorrerParaExportar()).willReturn(Stream.empty());
+
+        exportacionReservasService.exportarNdjson(salida);
+
+        assertEquals("", salida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportarNdjson_deberiaEscribirUnObjetoPorLinea() throws Exception {
+        given(reservaRepository.recorrerParaExportar()).willReturn(Stream.of(
+                new ReservaExportacion(1, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2), 1000.0, 10, 20),
+                new ReservaExportacion(2, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 3), null, 11, 21)));
+
+        exportacionReservasService.exportarNdjson(salida);
+
+        assertEquals("""
+                {"id":1,"fechaInicio":"2026-01-01","fechaFin":"2026-01-02","precioTotal":1000.0,"clienteId":10,"vehiculoId":20}
+                {"id":2,"fechaInicio":"2026-02-01","fechaFin":"2026-02-03","precioTotal":null,"clienteId":11,"vehiculoId":21}
+                """, salida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportarCsv_sinReservas_deberiaEscribirSoloLosEncabezados() throws Exception {
+        given(reservaRepository.recorrerParaExportar()).willReturn(Stream.empty());
+
+        exportacionReservasService.exportarCsv(salida);
+
+        assertEquals("id,fechaInicio,fechaFin,precioTotal,clienteId,vehiculoId\n", salida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportarCsv_deberiaEscribirUnaLineaPorReserva() throws Exception {
+        given(reservaRepository.recorrerParaExportar()).willReturn(Stream.of(
+                new ReservaExportacion(1, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2), 1000.0, 10, 20),
+                new ReservaExportacion(2, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 3), null, 11, 21)));
+
+        exportacionReservasService.exportarCsv(salida);
+
+        assertEquals("""
+                id,fechaInicio,fechaFin,precioTotal,clienteId,vehiculoId
+                1,2026-01-01,2026-01-02,1000.0,10,20
+                2,2026-02-01,2026-02-03,,11,21
+                """, salida.toString(StandardCharsets.UTF_8));
+    }
+}
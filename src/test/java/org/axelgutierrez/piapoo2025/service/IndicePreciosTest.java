@@ -0,0 +1,72 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndicePreciosTest {
+
+    private IndicePrecios indicePrecios;
+
+    @BeforeEach
+    void setUp() {
+        indicePrecios = new IndicePrecios();
+        indicePrecios.registrar(vehiculo(1L, 500.0, "DISPONIBLE", "Nissan", "Blanco"));
+        indicePrecios.registrar(vehiculo(2L, 300.0, "DISPONIBLE", "Toyota", "Rojo"));
+        indicePrecios.registrar(vehiculo(3L, 800.0, "EN MANTENIMIENTO", "Nissan", "Gris"));
+        indicePrecios.registrar(vehiculo(4L, 500.0, "DISPONIBLE", "Mazda", "Blanco"));
+    }
+
+    @Test
+    void buscar_conPrecioMaximo_deberiaRegresarDeMayorAMenorPrecio() {
+        assertEquals(List.of(4L, 1L, 2L), ids(indicePrecios.buscar(null, 500.0, null, null, null))); //incluye el precio exacto
+        assertEquals(List.of(), ids(indicePrecios.buscar(null, 299.0, null, null, null)));
+        assertEquals(List.of(3L, 4L, 1L, 2L), ids(indicePrecios.buscar(null, null, null, null, null)));
+    }
+
+    @Test
+    void buscar_conRangoYFiltros_deberiaRegresarSoloLosQueCumplen() {
+        assertEquals(List.of(4L, 1L), ids(indicePrecios.buscar(400.0, 600.0, null, null, null)));
+        assertEquals(List.of(1L), ids(indicePrecios.buscar(400.0, 900.0, "disponible", "nissan", null)));
+        assertEquals(List.of(4L, 1L), ids(indicePrecios.buscar(null, null, null, null, "Blanco")));
+    }
+
+    @Test
+    void registrar_conVehiculoExistente_deberiaMoverloDePrecio() {
+        indicePrecios.registrar(vehiculo(2L, 900.0, "EN MANTENIMIENTO", "Toyota", "Rojo"));
+
+        assertEquals(List.of(4L, 1L), ids(indicePrecios.buscar(null, 500.0, null, null, null)));
+        assertEquals(List.of(2L, 3L), ids(indicePrecios.buscar(700.0, null, null, null, null)));
+        //los demas datos se mueven junto con el precio
+        assertEquals(new VehiculoResumen(2L, "Toyota", "Yaris", "EN MANTENIMIENTO", 900.0), indicePrecios.buscar(850.0, null, null, null, null).getFirst());
+        assertEquals(List.of(4L, 1L), ids(indicePrecios.buscar(null, null, "disponible", null, null)));
+    }
+
+    @Test
+    void quitar_deberiaSacarAlVehiculoDeLasBusquedas() {
+        indicePrecios.quitar(1L);
+        indicePrecios.quitar(99L); //no existe, no pasa nada
+
+        assertEquals(List.of(4L, 2L), ids(indicePrecios.buscar(null, 500.0, null, null, null)));
+    }
+
+    private List<Long> ids(List<VehiculoResumen> vehiculos) {
+        return vehiculos.stream().map(VehiculoResumen::id).toList();
+    }
+
+    private Vehiculo vehiculo(long id, double precioPorDia, String estado, String marca, String color) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(id);
+        vehiculo.setPrecioPorDia(precioPorDia);
+        vehiculo.setEstado(estado);
+        vehiculo.setMarca(marca);
+        vehiculo.setModelo(marca.equals("Toyota") ? "Yaris" : "Versa");
+        vehiculo.setColor(color);
+        return vehiculo;
+    }
+}
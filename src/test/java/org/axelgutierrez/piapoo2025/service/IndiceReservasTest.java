@@ -0,0 +1,68 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceReservasTest {
+
+    private IndiceReservas indiceReservas;
+
+    @BeforeEach
+    void setUp() {
+        indiceReservas = new IndiceReservas();
+        indiceReservas.registrar(reserva(1L, 10L, "2025-06-10", "2025-06-15"));
+        indiceReservas.registrar(reserva(2L, 10L, "2025-06-20", "2025-06-25"));
+    }
+
+    @Test
+    void hayConflicto_conFechasSolapadas_deberiaRetornarTrue() {
+        assertTrue(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-14"), LocalDate.parse("2025-06-18"), null)); //empieza dentro de la primera
+        assertTrue(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-10"), null)); //termina el dia que empieza la primera
+        assertTrue(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-30"), null)); //cubre ambas
+    }
+
+    @Test
+    void hayConflicto_conFechasLibres_deberiaRetornarFalse() {
+        assertFalse(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-16"), LocalDate.parse("2025-06-19"), null)); //entre las dos reservas
+        assertFalse(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-26"), LocalDate.parse("2025-07-01"), null)); //despues de ambas
+        assertFalse(indiceReservas.hayConflicto(99L, LocalDate.parse("2025-06-10"), LocalDate.parse("2025-06-15"), null)); //otro vehiculo
+    }
+
+    @Test
+    void hayConflicto_excluyendoLaReservaQueSeActualiza_noDeberiaChocarConsigoMisma() {
+        assertFalse(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-11"), LocalDate.parse("2025-06-16"), 1L));
+        assertTrue(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-11"), LocalDate.parse("2025-06-21"), 1L)); //choca con la segunda
+    }
+
+    @Test
+    void quitar_deberiaLiberarLasFechas() {
+        indiceReservas.quitar(2L);
+
+        assertFalse(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-20"), LocalDate.parse("2025-06-25"), null));
+    }
+
+    @Test
+    void registrar_conReservaExistente_deberiaReemplazarSusFechas() {
+        indiceReservas.registrar(reserva(1L, 10L, "2025-07-01", "2025-07-05")); //se movio la primera reserva
+
+        assertFalse(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-06-10"), LocalDate.parse("2025-06-15"), null));
+        assertTrue(indiceReservas.hayConflicto(10L, LocalDate.parse("2025-07-03"), LocalDate.parse("2025-07-03"), null));
+    }
+
+    private Reserva reserva(long id, long vehiculoId, String inicio, String fin) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(vehiculoId);
+        Reserva reserva = new Reserva();
+        reserva.setId(id);
+        reserva.setVehiculo(vehiculo);
+        reserva.setFechaInicio(LocalDate.parse(inicio));
+        reserva.setFechaFin(LocalDate.parse(fin));
+        return reserva;
+    }
+}
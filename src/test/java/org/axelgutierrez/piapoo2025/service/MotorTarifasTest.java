@@ -0,0 +1,55 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.config.PropiedadesTarifas;
+import org.axelgutierrez.piapoo2025.dto.Cotizacion;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MotorTarifasTest {
+
+    //fin de semana al 150%, temporada de fin de año al 200% y 10% de descuento desde 7 dias
+    private final MotorTarifas motor = new MotorTarifas(new PropiedadesTarifas(15000,
+            List.of(new PropiedadesTarifas.Temporada("fin de año", "12-20", "01-05", 20000)),
+            List.of(new PropiedadesTarifas.DescuentoEstancia(7, 1000), new PropiedadesTarifas.DescuentoEstancia(3, 500))));
+
+    @Test
+    void precioTotal_sinTarifas_deberiaSerPrecioPorDiaPorDias() throws Exception {
+        MotorTarifas sinTarifas = new MotorTarifas(new PropiedadesTarifas(10000, List.of(), List.of()));
+
+        assertEquals(1500.0, sinTarifas.precioTotal(500.0, LocalDate.parse("2025-08-10"), LocalDate.parse("2025-08-12")));
+        assertEquals(0.3, sinTarifas.precioTotal(0.1, LocalDate.parse("2025-08-10"), LocalDate.parse("2025-08-12"))); //sin errores de Double
+    }
+
+    @Test
+    void cotizar_conFinDeSemana_deberiaCobrarLosSabadosYDomingosConSuFactor() throws Exception {
+        //viernes 2025-06-06 a lunes 2025-06-09: 100% + 150% + 150% + 100% de 333.33 = 1666.65, menos 5% por 4 dias
+        Cotizacion cotizacion = motor.cotizar(1L, 333.33, LocalDate.parse("2025-06-06"), LocalDate.parse("2025-06-09"));
+
+        assertEquals(4, cotizacion.dias());
+        assertEquals(new BigDecimal("1666.65"), cotizacion.subtotal());
+        assertEquals(new BigDecimal("83.33"), cotizacion.descuento()); //83.3325 redondeado
+        assertEquals(new BigDecimal("1583.32"), cotizacion.total());
+    }
+
+    @Test
+    void cotizar_conTemporadaQueCruzaElAnio_deberiaCombinarlaConElFinDeSemana() throws Exception {
+        //martes 2025-12-30 a domingo 2026-01-04: 4 dias entre semana al 200% y sabado y domingo al 300%
+        Cotizacion cotizacion = motor.cotizar(1L, 100.0, LocalDate.parse("2025-12-30"), LocalDate.parse("2026-01-04"));
+
+        assertEquals(new BigDecimal("1400.00"), cotizacion.subtotal());
+        assertEquals(new BigDecimal("70.00"), cotizacion.descuento()); //6 dias: el descuento de 3 dias, no el de 7
+        assertEquals(motor.precioTotal(100.0, LocalDate.parse("2025-12-30"), LocalDate.parse("2026-01-04")), cotizacion.total().doubleValue());
+    }
+
+    @Test
+    void cotizar_conFechasFueraDeLasTablas_deberiaLanzarExcepcion() {
+        assertThrows(ReservaInvalidaException.class, () -> motor.cotizar(1L, 100.0, LocalDate.parse("1999-12-31"), LocalDate.parse("2000-01-02")));
+        assertThrows(ReservaInvalidaException.class, () -> motor.cotizar(1L, 100.0, LocalDate.parse("2025-01-02"), LocalDate.parse("2025-01-01")));
+    }
+}
@@ -0,0 +1,105 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import com.jayway.jsonpath.JsonPath;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.RolEmpleado;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.RolEmpleadoRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoEmpleado;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PaginacionCursorTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private EmpleadoService empleadoService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private RolEmpleadoRepository rolEmpleadoRepository;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void listados_deberianSeguirElCursorHastaUnaUltimaPaginaVacia() throws Exception {
+        List<Long> vehiculos = new ArrayList<>();
+        List<Long> clientes = new ArrayList<>();
+        List<Long> reservas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+            Cliente cliente = clienteRepository.save(nuevoCliente());
+            vehiculos.add(vehiculo.getId());
+            clientes.add(cliente.getId());
+            reservas.add(reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 2))).getId());
+        }
+        RolEmpleado rol = new RolEmpleado();
+        rol.setNombre("Gerente");
+        rol.setDescripcion("Administra la sucursal");
+        rol = rolEmpleadoRepository.save(rol);
+        List<Long> empleados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            empleados.add(empleadoService.guardar(nuevoEmpleado(rol.getId(), "gerente" + i + "@mail.com")).getId());
+        }
+
+        assertEquals(vehiculos, recorrer("/vehiculos", vehiculos.getFirst() - 1));
+        assertEquals(clientes, recorrer("/clientes", clientes.getFirst() - 1));
+        assertEquals(reservas, recorrer("/reservas", reservas.getFirst() - 1));
+        assertEquals(empleados, recorrer("/empleados", empleados.getFirst() - 1));
+    }
+
+    @Test
+    void listados_conLimiteFueraDeRango_deberianAjustarlo() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        vehiculoRepository.save(nuevoVehiculo());
+
+        mockMvc.perform(get("/vehiculos").param("after", "" + (vehiculo.getId() - 1)).param("limit", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(1))) //al menos un elemento por pagina
+                .andExpect(jsonPath("$.siguienteCursor").value(vehiculo.getId()));
+    }
+
+    //pide paginas de 2 desde el cursor dado hasta que ya no haya siguiente, y revisa que despues de la ultima no quede nada
+    private List<Long> recorrer(String listado, long desde) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        Long cursor = desde;
+        while (cursor != null) {
+            String pagina = mockMvc.perform(get(listado).param("after", "" + cursor).param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Number> elementos = JsonPath.read(pagina, "$.elementos[*].id");
+            assertTrue(elementos.size() <= 2);
+            elementos.forEach(id -> ids.add(id.longValue()));
+            Number siguiente = JsonPath.read(pagina, "$.siguienteCursor");
+            cursor = siguiente == null ? null : siguiente.longValue();
+        }
+        mockMvc.perform(get(listado).param("after", "" + ids.getLast()).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(0)))
+                .andExpect(jsonPath("$.siguienteCursor").doesNotExist());
+        return ids;
+    }
+}
@@ -0,0 +1,110 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.config.PropiedadesRegistroEventos;
+import org.axelgutierrez.piapoo2025.dto.EventoAuditoria;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistroEventosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void leer_deberiaDevolverLosEventosComoSeRegistraron() throws Exception {
+        RegistroEventos registro = abrir(DataSize.ofMegabytes(1));
+        EventoAuditoria creada = EventoAuditoria.reservaCreada(7, 10, 20, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-03"), 1500.0);
+        EventoAuditoria estado = EventoAuditoria.vehiculoEstadoCambiado(10, "EN MANTENIMIENTO");
+        registro.registrar(List.of(creada, estado));
+        registro.registrar(EventoAuditoria.reservaEliminada(7));
+
+        List<EventoAuditoria> eventos = registro.leer(1, 10);
+        assertEquals(creada.conSecuencia(1), eventos.get(0));
+        assertEquals(estado.conSecuencia(2), eventos.get(1));
+        assertEquals(EventoAuditoria.Tipo.RESERVA_ELIMINADA, eventos.get(2).tipo());
+        assertNull(eventos.get(2).vehiculoId());
+        assertEquals(List.of(2L), registro.leer(2, 1).stream().map(EventoAuditoria::secuencia).toList());
+        assertTrue(registro.leer(4, 10).isEmpty()); //todavia no existe
+        registro.cerrar();
+    }
+
+    @Test
+    void registrar_alLlenarseElSegmento_deberiaSeguirEnUnoNuevo() throws Exception {
+        RegistroEventos registro = abrir(DataSize.ofBytes(1024)); //caben 30 eventos de reserva eliminada (34 bytes) por segmento
+        for (long id = 1; id <= 3000; id++) {
+            registro.registrar(EventoAuditoria.reservaEliminada(id));
+        }
+
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            assertTrue(archivos.filter(archivo -> archivo.toString().endsWith(RegistroEventos.EXTENSION)).count() == 100);
+        }
+        List<EventoAuditoria> todos = registro.leer(1, 5000);
+        assertEquals(LongStream.rangeClosed(1, 3000).boxed().toList(), todos.stream().map(EventoAuditoria::entidadId).toList());
+        assertEquals(List.of(2050L, 2051L, 2052L), registro.leer(2050, 3).stream().map(EventoAuditoria::secuencia).toList());
+        registro.cerrar();
+    }
+
+    @Test
+    void abrir_deberiaSeguirDespuesDelUltimoEventoCompleto() throws Exception {
+        RegistroEventos registro = abrir(DataSize.ofMegabytes(1));
+        registro.registrar(EventoAuditoria.vehiculoPrecioCambiado(10, 450.0));
+        registro.registrar(EventoAuditoria.vehiculoPrecioCambiado(10, 500.0));
+        registro.cerrar();
+        //una caida a media escritura deja un encabezado sin su evento al final
+        try (FileChannel canal = FileChannel.open(directorio.resolve(String.format("%020d", 1) + RegistroEventos.EXTENSION), StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4}), 2 * (8 + 26 + 8)); //despues de los dos eventos de 42 bytes
+        }
+
+        RegistroEventos reabierto = abrir(DataSize.ofMegabytes(1));
+        assertEquals(2, reabierto.ultimaSecuencia());
+        reabierto.registrar(EventoAuditoria.vehiculoPrecioCambiado(10, 550.0));
+        List<EventoAuditoria> eventos = reabierto.leer(1, 10);
+        assertEquals(List.of(450.0, 500.0, 550.0), eventos.stream().map(EventoAuditoria::precio).toList());
+        assertEquals(3, eventos.getLast().secuencia());
+        reabierto.cerrar();
+    }
+
+    @Test
+    void avisarAlRegistrar_deberiaAvisarUnaSolaVezAlRegistrarseElSiguienteEvento() throws Exception {
+        RegistroEventos registro = abrir(DataSize.ofMegabytes(1));
+        AtomicInteger avisos = new AtomicInteger();
+        CountDownLatch avisado = new CountDownLatch(1);
+        registro.avisarAlRegistrar(() -> {
+            avisos.incrementAndGet();
+            avisado.countDown();
+        });
+        Runnable cancelado = avisos::incrementAndGet;
+        registro.avisarAlRegistrar(cancelado);
+        registro.cancelarAviso(cancelado);
+
+        Thread.ofVirtual().start(() -> registro.registrar(EventoAuditoria.reservaEliminada(1)));
+        assertTrue(avisado.await(5, TimeUnit.SECONDS));
+        registro.registrar(EventoAuditoria.reservaEliminada(2));
+        registro.cerrar();
+        assertEquals(1, avisos.get());
+        assertEquals(2, registro.leer(1, 10).size());
+    }
+
+    private RegistroEventos abrir(DataSize tamanoSegmento) throws Exception {
+        RegistroEventos registro = new RegistroEventos(new PropiedadesRegistroEventos(directorio, tamanoSegmento, Duration.ofMillis(20)));
+        registro.abrir();
+        return registro;
+    }
+}
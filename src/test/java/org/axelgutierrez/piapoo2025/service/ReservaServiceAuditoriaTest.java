@@ -0,0 +1,80 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReservaServiceAuditoriaTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private RegistroEventos registroEventos;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void registroEventos_deberiaAuditarCadaCambioDeLaReserva() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Vehiculo otroVehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        long desde = registroEventos.ultimaSecuencia() + 1;
+
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 4, 1), LocalDate.of(2026, 4, 2)));
+        Reserva cambios = new Reserva();
+        cambios.setFechaFin(LocalDate.of(2026, 4, 3));
+        cambios.setVehiculo(otroVehiculo);
+        reservaService.actualizar(reserva.getId(), cambios, null); //cambian las fechas y el vehiculo: dos eventos
+        reservaService.eliminar(reserva.getId());
+
+        MvcResult pagina = mockMvc.perform(get("/eventos").param("desde", "" + desde))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pagina))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(4)))
+                .andExpect(jsonPath("$.elementos[0].tipo").value("RESERVA_CREADA"))
+                .andExpect(jsonPath("$.elementos[0].clienteId").value(cliente.getId()))
+                .andExpect(jsonPath("$.elementos[1].tipo").value("RESERVA_FECHAS_CAMBIADAS"))
+                .andExpect(jsonPath("$.elementos[1].fechaFin").value("2026-04-03"))
+                .andExpect(jsonPath("$.elementos[2].tipo").value("RESERVA_VEHICULO_CAMBIADO"))
+                .andExpect(jsonPath("$.elementos[2].vehiculoId").value(otroVehiculo.getId()))
+                .andExpect(jsonPath("$.elementos[3].tipo").value("RESERVA_ELIMINADA"))
+                .andExpect(jsonPath("$.siguiente").value(desde + 4));
+
+        //siguiendo la cola: la peticion se contesta en cuanto llega el siguiente evento
+        MvcResult siguiendo = mockMvc.perform(get("/eventos").param("desde", "" + (desde + 4)).param("espera", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 4, 10), LocalDate.of(2026, 4, 11)));
+        mockMvc.perform(asyncDispatch(siguiendo))
+                .andExpect(jsonPath("$.elementos[0].tipo").value("RESERVA_CREADA"))
+                .andExpect(jsonPath("$.elementos[0].fechaInicio").value("2026-04-10"));
+    }
+}
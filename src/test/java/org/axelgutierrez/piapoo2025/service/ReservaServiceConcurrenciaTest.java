@@ -0,0 +1,133 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.ReservaRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+public class ReservaServiceConcurrenciaTest {
+    private static final int HILOS = 300;
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private ReservaRepository reservaRepository;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @MockitoSpyBean
+    private IndiceReservas indiceReservas;
+
+    @Test
+    void guardar_desdeMuchosHilosParaElMismoVehiculo_nuncaDeberiaSolaparReservas() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1); //todos los hilos empiezan al mismo tiempo
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            Random random = new Random(i);
+            tareas.add(hilos.submit(() -> {
+                LocalDate inicio = LocalDate.of(2025, 6, 1).plusDays(random.nextInt(60));
+                Reserva reserva = nuevaReserva(cliente, vehiculo, inicio, inicio.plusDays(random.nextInt(4)));
+                salida.await();
+                try {
+                    reservaService.guardar(reserva);
+                    exitosas.incrementAndGet();
+                } catch (ReservaInvalidaException e) {
+                    rechazadas.incrementAndGet(); //esperado, las fechas ya estaban ocupadas
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(); //falla la prueba si algun hilo lanzo una excepcion inesperada
+        }
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(1, TimeUnit.MINUTES));
+
+        //revisamos en la base de datos que ninguna reserva del vehiculo se solape con la siguiente
+        List<Reserva> reservas = new ArrayList<>();
+        reservaRepository.findAll().forEach(r -> {
+            if (r.getVehiculo().getId() == vehiculo.getId()) {
+                reservas.add(r);
+            }
+        });
+        reservas.sort(Comparator.comparing(Reserva::getFechaInicio));
+        for (int i = 1; i < reservas.size(); i++) {
+            assertTrue(reservas.get(i - 1).getFechaFin().isBefore(reservas.get(i).getFechaInicio()),
+                    "Reservas solapadas: " + reservas.get(i - 1).getId() + " y " + reservas.get(i).getId());
+        }
+        assertEquals(exitosas.get(), reservas.size()); //todas las exitosas se guardaron
+        assertEquals(HILOS, exitosas.get() + rechazadas.get());
+        assertTrue(rechazadas.get() > 0); //con 300 hilos en 60 dias tiene que haber choques
+    }
+
+    @Test
+    void eliminar_mientrasSeActualiza_noDeberiaDejarLaReservaEliminadaEnElIndice() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        LocalDate inicio = LocalDate.of(2026, 1, 1);
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, inicio, inicio.plusDays(2)));
+        Reserva cambios = new Reserva();
+        cambios.setFechaInicio(inicio.plusDays(4));
+        cambios.setFechaFin(inicio.plusDays(6));
+
+        //la actualizacion se detiene despues de guardar y antes de registrar en el indice, para que la eliminacion llegue en medio
+        CountDownLatch guardada = new CountDownLatch(1);
+        doAnswer(invocacion -> {
+            guardada.countDown();
+            Thread.sleep(300);
+            return invocacion.callRealMethod();
+        }).when(indiceReservas).registrar(argThat((Reserva r) -> r.getId() == reserva.getId()));
+
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        Future<?> actualizacion = hilos.submit(() -> reservaService.actualizar(reserva.getId(), cambios, null));
+        assertTrue(guardada.await(10, TimeUnit.SECONDS));
+        Future<?> eliminacion = hilos.submit(() -> {
+            reservaService.eliminar(reserva.getId());
+            return null;
+        });
+        actualizacion.get(); //falla la prueba si algun hilo lanzo una excepcion inesperada
+        eliminacion.get();
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertFalse(reservaRepository.existsById(reserva.getId()));
+        //ni las fechas anteriores ni las nuevas siguen ocupadas en el indice
+        assertFalse(indiceReservas.hayConflicto(vehiculo.getId(), inicio, inicio.plusDays(6), null));
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, inicio.plusDays(4), inicio.plusDays(6)));
+    }
+}
@@ -0,0 +1,136 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReservaServiceConsultasTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void guardar_deberiaValidarConUnaSolaConsultaMasElInsert() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 3))); //calienta el generador de ids
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        Reserva guardada = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2025, 8, 10), LocalDate.of(2025, 8, 12)));
+
+        assertEquals(2, estadisticas.getPrepareStatementCount()); //la validacion y el insert
+        assertEquals(1500.0, guardada.getPrecioTotal());
+    }
+
+    @Test
+    void listarReservas_deberiaUsarUnaSolaConsultaSinImportarCuantasSean() throws Exception {
+        Cliente cliente = crearReservas(10);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        mockMvc.perform(get("/reservas").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos[0].clienteNombre", notNullValue()))
+                .andExpect(jsonPath("$.elementos[0].vehiculoMarca", notNullValue()))
+                .andExpect(jsonPath("$.elementos[0].cliente").doesNotExist()); //el detalle solo esta en GET /reservas/{id}
+        assertEquals(2, estadisticas.getPrepareStatementCount()); //la version del listado (ETag) + solo las columnas del resumen, con un join
+        assertEquals(0, estadisticas.getEntityLoadCount()); //no se carga ninguna entidad al contexto de persistencia
+
+        estadisticas.clear();
+        mockMvc.perform(get("/clientes/{id}/reservas", cliente.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(10)))
+                .andExpect(jsonPath("$.elementos[0].vehiculoModelo", notNullValue()));
+        assertEquals(1, estadisticas.getPrepareStatementCount()); //con reservas no hace falta revisar si existe el cliente
+    }
+
+    @Test
+    void historialCliente_deberiaFiltrarYPaginarDeLaMasRecienteALaMasAntigua() throws Exception {
+        Cliente cliente = crearReservas(6); //tres vehiculos, cada uno con una reserva en enero y otra en febrero de 2026
+        LocalDate hoy = LocalDate.now();
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, hoy.minusDays(1), hoy.plusDays(1)));
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, hoy.plusDays(10), hoy.plusDays(12)));
+
+        String pagina = mockMvc.perform(get("/clientes/{id}/reservas", cliente.getId())
+                        .param("desde", "2026-01-15").param("hasta", "2026-03-01").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(2)))
+                .andExpect(jsonPath("$.elementos[0].fechaInicio").value("2026-02-01"))
+                .andExpect(jsonPath("$.siguienteFecha").value("2026-02-01"))
+                .andReturn().getResponse().getContentAsString();
+        Number siguienteId = JsonPath.read(pagina, "$.siguienteId");
+        mockMvc.perform(get("/clientes/{id}/reservas", cliente.getId())
+                        .param("desde", "2026-01-15").param("hasta", "2026-03-01").param("limit", "2")
+                        .param("afterFecha", "2026-02-01").param("afterId", siguienteId.toString()))
+                .andExpect(jsonPath("$.elementos", hasSize(1))) //la tercera reserva de febrero, las de enero no entran en el rango
+                .andExpect(jsonPath("$.siguienteId").doesNotExist());
+
+        mockMvc.perform(get("/clientes/{id}/reservas", cliente.getId()).param("estado", "EN_CURSO"))
+                .andExpect(jsonPath("$.elementos", hasSize(1)))
+                .andExpect(jsonPath("$.elementos[0].fechaInicio").value(hoy.minusDays(1).toString()));
+        mockMvc.perform(get("/clientes/{id}/reservas", cliente.getId()).param("estado", "PROXIMA").param("vehiculoId", "" + vehiculo.getId()))
+                .andExpect(jsonPath("$.elementos", hasSize(1)))
+                .andExpect(jsonPath("$.elementos[0].fechaInicio").value(hoy.plusDays(10).toString()));
+        mockMvc.perform(get("/clientes/{id}/reservas", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/clientes/{id}/reservas", cliente.getId()).param("desde", "2026-03-01").param("hasta", "2026-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void guardar_conClienteInexistente_deberiaLanzarExcepcion() {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = nuevoCliente();
+        cliente.setId(Long.MAX_VALUE);
+
+        assertThrows(RecursoNoEncontradoException.class,
+                () -> reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 2))));
+    }
+
+    //reservas de un mismo cliente, dos por vehiculo
+    private Cliente crearReservas(int cantidad) throws Exception {
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        for (int i = 0; i < cantidad / 2; i++) {
+            Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+            reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2)));
+            reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 2)));
+        }
+        return cliente;
+    }
+}
@@ -0,0 +1,65 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReservaServiceCotizacionTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void cotizacion_deberiaDarElMismoTotalQueGuardarSinConsultarLasReservas() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        mockMvc.perform(get("/reservas/cotizacion").param("vehiculoId", "" + vehiculo.getId())
+                        .param("fechaInicio", "2026-03-02").param("fechaFin", "2026-03-04"))
+                .andExpect(status().isOk()); //la primera vez el vehiculo se lee de la base de datos y queda en la cache de segundo nivel
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        mockMvc.perform(get("/reservas/cotizacion").param("vehiculoId", "" + vehiculo.getId())
+                        .param("fechaInicio", "2026-03-02").param("fechaFin", "2026-03-04"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dias").value(3))
+                .andExpect(jsonPath("$.total").value(1500.0));
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 4)));
+        assertEquals(1500.0, reserva.getPrecioTotal());
+        mockMvc.perform(get("/reservas/cotizacion").param("vehiculoId", "" + Long.MAX_VALUE)
+                        .param("fechaInicio", "2026-03-02").param("fechaFin", "2026-03-04"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,137 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.dto.ResultadoLote;
+import org.axelgutierrez.piapoo2025.exception.ReservaInvalidaException;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReservaServiceLoteTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void crearReservasLote_deberiaGuardarLasValidasYReportarCadaError() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Vehiculo otroVehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Vehiculo enMantenimiento = nuevoVehiculo();
+        enMantenimiento.setEstado("EN MANTENIMIENTO");
+        enMantenimiento = vehiculoRepository.save(enMantenimiento);
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        reservaService.guardar(nuevaReserva(cliente, otroVehiculo, LocalDate.of(2026, 6, 10), LocalDate.of(2026, 6, 12)));
+
+        String lote = "[" + String.join(",",
+                reserva("2026-06-01", "2026-06-03", cliente.getId(), vehiculo.getId()),
+                "{\"fechaInicio\":\"2026-06-01\",\"cliente\":{\"id\":" + cliente.getId() + "},\"vehiculo\":{\"id\":" + vehiculo.getId() + "}}",
+                reserva("2026-06-05", "2026-06-04", cliente.getId(), vehiculo.getId()),
+                reserva("2026-06-01", "2026-06-03", cliente.getId(), Long.MAX_VALUE),
+                reserva("2026-06-01", "2026-06-03", Long.MAX_VALUE, vehiculo.getId()),
+                reserva("2026-06-01", "2026-06-03", cliente.getId(), enMantenimiento.getId()),
+                reserva("2026-06-03", "2026-06-04", cliente.getId(), vehiculo.getId()), //choca con la primera del mismo lote
+                reserva("2026-06-11", "2026-06-11", cliente.getId(), otroVehiculo.getId()), //choca con una ya guardada
+                reserva("2026-06-04", "2026-06-06", cliente.getId(), vehiculo.getId()),
+                "{\"fechaInicio\":\"2026-06-20\",\"fechaFin\":\"2026-06-21\",\"cliente\":{\"id\":" + cliente.getId() + "},\"vehiculo\":{}}",
+                "{\"fechaInicio\":\"2026-06-20\",\"fechaFin\":\"2026-06-21\",\"cliente\":{},\"vehiculo\":{\"id\":" + vehiculo.getId() + "}}") + "]";
+
+        mockMvc.perform(post("/reservas/lote").contentType(MediaType.APPLICATION_JSON).content(lote))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(11)))
+                .andExpect(jsonPath("$[0].exito").value(true))
+                .andExpect(jsonPath("$[0].reservaId").isNumber())
+                .andExpect(jsonPath("$[1].mensaje").value("Las fechas de inicio y fin son obligatorias"))
+                .andExpect(jsonPath("$[2].mensaje").value("La fecha de inicio no puede ser posterior a la fecha de fin"))
+                .andExpect(jsonPath("$[3].mensaje").value("Vehiculo no encontrado con id: " + Long.MAX_VALUE))
+                .andExpect(jsonPath("$[4].mensaje").value("Cliente no encontrado con id: " + Long.MAX_VALUE))
+                .andExpect(jsonPath("$[5].mensaje").value("El vehiculo se encuentra en mantenimiento"))
+                .andExpect(jsonPath("$[6].exito").value(false))
+                .andExpect(jsonPath("$[6].mensaje").value("El vehiculo ya esta reservado para esa fecha"))
+                .andExpect(jsonPath("$[7].mensaje").value("El vehiculo ya esta reservado para esa fecha"))
+                .andExpect(jsonPath("$[8].exito").value(true))
+                .andExpect(jsonPath("$[8].indice").value(8))
+                .andExpect(jsonPath("$[9].mensaje").value("El vehiculo es obligatorio"))
+                .andExpect(jsonPath("$[10].mensaje").value("El cliente es obligatorio"));
+
+        //las aceptadas ya cuentan para las siguientes reservas
+        assertThrows(ReservaInvalidaException.class,
+                () -> reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 6, 6), LocalDate.of(2026, 6, 7))));
+    }
+
+    @Test
+    void crearReservasLote_vacioODemasiadoGrande_deberiaResponder400() throws Exception {
+        mockMvc.perform(post("/reservas/lote").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+
+        List<Reserva> demasiadas = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            demasiadas.add(new Reserva());
+        }
+        assertThrows(ReservaInvalidaException.class, () -> reservaService.guardarLote(demasiadas));
+    }
+
+    @Test
+    void guardarLote_deberiaMandarLosInsertsEnLote() throws Exception {
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        List<Reserva> reservas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+            for (int semana = 0; semana < 10; semana++) {
+                LocalDate inicio = LocalDate.of(2026, 7, 1).plusWeeks(semana);
+                reservas.add(nuevaReserva(cliente, vehiculo, inicio, inicio.plusDays(2)));
+            }
+        }
+        long maximoAntes = reservaService.listar().stream().mapToLong(Reserva::getId).max().orElse(0);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        List<ResultadoLote> resultados = reservaService.guardarLote(reservas);
+
+        assertTrue(resultados.stream().allMatch(ResultadoLote::exito));
+        assertEquals(30, estadisticas.getEntityInsertCount());
+        //vehiculos, clientes y choques en una consulta cada uno y los 30 inserts en un solo lote (más el generador si se acaba su bloque de ids)
+        assertTrue(estadisticas.getPrepareStatementCount() <= 6, "sentencias: " + estadisticas.getPrepareStatementCount());
+        List<Long> ids = resultados.stream().map(ResultadoLote::reservaId).toList();
+        assertEquals(30, new HashSet<>(ids).size());
+        assertTrue(ids.stream().allMatch(id -> id > maximoAntes)); //el generador sigue despues de las reservas que ya existian
+    }
+
+    private String reserva(String inicio, String fin, long clienteId, long vehiculoId) {
+        return "{\"fechaInicio\":\"" + inicio + "\",\"fechaFin\":\"" + fin + "\",\"cliente\":{\"id\":" + clienteId
+                + "},\"vehiculo\":{\"id\":" + vehiculoId + "}}";
+    }
+}
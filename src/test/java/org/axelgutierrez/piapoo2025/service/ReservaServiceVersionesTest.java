@@ -0,0 +1,136 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReservaServiceVersionesTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void mostrarReserva_conEtagVigente_deberiaResponder304SinCargarLaReserva() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 3)));
+        String etag = mockMvc.perform(get("/reservas/{id}", reserva.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        mockMvc.perform(get("/reservas/{id}", reserva.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertEquals(1, estadisticas.getPrepareStatementCount()); //solo la version
+        assertEquals(0, estadisticas.getEntityLoadCount());
+
+        Reserva cambios = new Reserva();
+        cambios.setFechaFin(LocalDate.of(2025, 10, 5));
+        reservaService.actualizar(reserva.getId(), cambios, null);
+        mockMvc.perform(get("/reservas/{id}", reserva.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.fechaFin").value("2025-10-05"));
+    }
+
+    @Test
+    void listarReservas_conEtagVigente_deberiaResponder304HastaQueCambieAlgunaReserva() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2)));
+        String etag = mockMvc.perform(get("/reservas"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        mockMvc.perform(get("/reservas").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertEquals(1, estadisticas.getPrepareStatementCount()); //solo la version del listado, sin la pagina
+
+        reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 2)));
+        mockMvc.perform(get("/reservas").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listarReservas_alRenombrarAlCliente_deberiaResponder200ConElNombreNuevo() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2026, 5, 1), LocalDate.of(2026, 5, 2)));
+        String etag = mockMvc.perform(get("/reservas"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/clientes/{id}", cliente.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"nombre\": \"Alejandro\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/reservas").header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("after", "" + (reserva.getId() - 1)).param("limit", "1"))
+                .andExpect(status().isOk()) //ninguna reserva cambio, pero el listado muestra el nombre del cliente
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.elementos[0].clienteNombre").value("Alejandro"));
+    }
+
+    @Test
+    void actualizarReserva_conIfMatch_deberiaRechazarConVersionesViejas() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 3)));
+        String etag = mockMvc.perform(get("/reservas/{id}", reserva.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String nuevoEtag = mockMvc.perform(put("/reservas/{id}", reserva.getId()).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"fechaFin\": \"2025-11-04\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/reservas/{id}", reserva.getId())) //el ETag del PUT es el mismo que dara GET
+                .andExpect(header().string(HttpHeaders.ETAG, nuevoEtag));
+
+        mockMvc.perform(put("/reservas/{id}", reserva.getId()).header(HttpHeaders.IF_MATCH, etag) //alguien mas ya la cambio
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"fechaFin\": \"2025-11-05\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/reservas/{id}", reserva.getId()))
+                .andExpect(jsonPath("$.fechaFin").value("2025-11-04"));
+    }
+}
@@ -0,0 +1,99 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.exception.RecursoNoEncontradoException;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class VehiculoServiceCacheTest {
+
+    @Autowired
+    private VehiculoService vehiculoService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void buscarPorId_variasVeces_deberiaConsultarLaBaseDeDatosSoloUnaVez() throws Exception {
+        Vehiculo vehiculo = vehiculoService.guardar(nuevoVehiculo("DISPONIBLE", 450.0));
+        estadisticas.clear();
+
+        vehiculoService.buscarPorId(vehiculo.getId());
+        vehiculoService.buscarPorId(vehiculo.getId());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount()); //la primera lectura lo deja en la cache de segundo nivel
+        assertEquals(1, estadisticas.getDomainDataRegionStatistics("vehiculo").getHitCount());
+    }
+
+    @Test
+    void actualizar_deberiaReemplazarElVehiculoEnLaCache() throws Exception {
+        Vehiculo vehiculo = vehiculoService.guardar(nuevoVehiculo("DISPONIBLE", 450.0));
+        vehiculoService.buscarPorId(vehiculo.getId());
+
+        Vehiculo cambios = new Vehiculo();
+        cambios.setPrecioPorDia(600.0);
+        vehiculoService.actualizar(vehiculo.getId(), cambios, null);
+
+        assertEquals(600.0, vehiculoService.buscarPorId(vehiculo.getId()).getPrecioPorDia());
+    }
+
+    @Test
+    void obtenerPorEstado_despuesDeGuardar_deberiaIncluirAlNuevoVehiculo() {
+        int antes = vehiculoService.obtenerPorEstado("EN MANTENIMIENTO").size();
+        estadisticas.clear();
+        vehiculoService.obtenerPorEstado("EN MANTENIMIENTO");
+        assertEquals(0, estadisticas.getPrepareStatementCount()); //la segunda vez viene de la cache
+        assertEquals(0, estadisticas.getQueryCachePutCount()); //la cache de consultas de Hibernate no guarda una segunda copia
+
+        vehiculoService.guardar(nuevoVehiculo("EN MANTENIMIENTO", 300.0));
+
+        assertEquals(antes + 1, vehiculoService.obtenerPorEstado("EN MANTENIMIENTO").size());
+    }
+
+    @Test
+    void listarResumenes_deberiaUsarLaCacheDeConsultasHastaQueCambieUnVehiculo() {
+        vehiculoService.guardar(nuevoVehiculo("DISPONIBLE", 450.0));
+        int antes = vehiculoService.listarResumenes(null, 500).elementos().size();
+        estadisticas.clear();
+        vehiculoService.listarResumenes(null, 500);
+        assertEquals(0, estadisticas.getPrepareStatementCount()); //el resultado viene de default-query-results-region
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+
+        vehiculoService.guardar(nuevoVehiculo("DISPONIBLE", 520.0)); //Hibernate invalida las consultas sobre la tabla vehiculo
+
+        assertEquals(Math.min(antes + 1, 500), vehiculoService.listarResumenes(null, 500).elementos().size());
+    }
+
+    @Test
+    void eliminar_deberiaQuitarElVehiculoDeLaCache() throws Exception {
+        Vehiculo vehiculo = vehiculoService.guardar(nuevoVehiculo("DISPONIBLE", 450.0));
+        vehiculoService.eliminar(vehiculo.getId());
+
+        assertThrows(RecursoNoEncontradoException.class, () -> vehiculoService.buscarPorId(vehiculo.getId()));
+    }
+
+    private Vehiculo nuevoVehiculo(String estado, double precioPorDia) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca("Toyota");
+        vehiculo.setModelo("Corolla");
+        vehiculo.setPlaca("DEF-456");
+        vehiculo.setColor("Rojo");
+        vehiculo.setEstado(estado);
+        vehiculo.setPrecioPorDia(precioPorDia);
+        return vehiculo;
+    }
+}
@@ -0,0 +1,67 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Reserva;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class VehiculoServiceCalendarioTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void calendarioVehiculo_deberiaSeguirLosCambiosDeLasReservasSinConsultarlas() throws Exception {
+        Vehiculo vehiculo = vehiculoRepository.save(nuevoVehiculo());
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        Reserva reserva = reservaService.guardar(nuevaReserva(cliente, vehiculo, LocalDate.of(2025, 12, 2), LocalDate.of(2025, 12, 3)));
+        mockMvc.perform(get("/vehiculos/{id}/calendario", vehiculo.getId()).param("desde", "2025-12-01").param("hasta", "2025-12-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ocupacion").value("0110000"));
+
+        Reserva cambios = new Reserva();
+        cambios.setFechaFin(LocalDate.of(2025, 12, 5));
+        reservaService.actualizar(reserva.getId(), cambios, null);
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        mockMvc.perform(get("/vehiculos/{id}/calendario", vehiculo.getId()).param("desde", "2025-12-01").param("hasta", "2025-12-07"))
+                .andExpect(jsonPath("$.ocupacion").value("0111100"));
+        assertEquals(0, estadisticas.getPrepareStatementCount()); //el vehiculo viene de la cache de segundo nivel y los dias del calendario
+
+        reservaService.eliminar(reserva.getId());
+        mockMvc.perform(get("/vehiculos/calendario").param("desde", "2025-12-01").param("hasta", "2025-12-07").param("after", "" + (vehiculo.getId() - 1)).param("limit", "1"))
+                .andExpect(jsonPath("$.elementos[0].vehiculoId").value(vehiculo.getId()))
+                .andExpect(jsonPath("$.elementos[0].ocupacion").value("0000000"));
+        mockMvc.perform(get("/vehiculos/{id}/calendario", vehiculo.getId()).param("desde", "2025-01-01").param("hasta", "2026-12-31"))
+                .andExpect(status().isBadRequest()); //mas de 366 dias
+    }
+}
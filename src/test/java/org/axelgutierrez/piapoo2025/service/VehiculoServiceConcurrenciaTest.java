@@ -0,0 +1,103 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.dto.VehiculoResumen;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest
+public class VehiculoServiceConcurrenciaTest {
+
+    @Autowired
+    private VehiculoService vehiculoService;
+    @Autowired
+    private IndicePrecios indicePrecios;
+    @MockitoSpyBean
+    private VehiculoRepository vehiculoRepository;
+
+    private final ExecutorService hilos = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    void actualizar_dosVecesAlMismoTiempo_elIndiceDeberiaQuedarConLaUltimaGuardada() throws Exception {
+        Vehiculo vehiculo = vehiculoService.guardar(nuevoVehiculo());
+        CountDownLatch guardado = detenerDespuesDeGuardar(vehiculo.getId(), 600.0);
+
+        Vehiculo cambioPrecio = new Vehiculo();
+        cambioPrecio.setPrecioPorDia(600.0);
+        Future<?> primera = hilos.submit(() -> vehiculoService.actualizar(vehiculo.getId(), cambioPrecio, null));
+        assertTrue(guardado.await(10, TimeUnit.SECONDS));
+        Vehiculo cambioEstado = new Vehiculo();
+        cambioEstado.setEstado(Vehiculo.ESTADO_MANTENIMIENTO);
+        Future<?> segunda = hilos.submit(() -> vehiculoService.actualizar(vehiculo.getId(), cambioEstado, null));
+        primera.get();
+        segunda.get();
+
+        VehiculoResumen resumen = enIndice(vehiculo.getId());
+        assertNotNull(resumen);
+        assertEquals(600.0, resumen.precioPorDia());
+        assertEquals(Vehiculo.ESTADO_MANTENIMIENTO, resumen.estado());
+    }
+
+    @Test
+    void eliminar_mientrasSeActualiza_noDeberiaVolverAlIndice() throws Exception {
+        Vehiculo vehiculo = vehiculoService.guardar(nuevoVehiculo());
+        CountDownLatch guardado = detenerDespuesDeGuardar(vehiculo.getId(), 650.0);
+
+        Vehiculo cambioPrecio = new Vehiculo();
+        cambioPrecio.setPrecioPorDia(650.0);
+        Future<?> actualizacion = hilos.submit(() -> vehiculoService.actualizar(vehiculo.getId(), cambioPrecio, null));
+        assertTrue(guardado.await(10, TimeUnit.SECONDS));
+        Future<?> eliminacion = hilos.submit(() -> {
+            vehiculoService.eliminar(vehiculo.getId());
+            return null;
+        });
+        actualizacion.get(); //falla la prueba si algun hilo lanzo una excepcion inesperada
+        eliminacion.get();
+
+        assertNull(enIndice(vehiculo.getId()));
+    }
+
+    //detiene la peticion que guarda el vehiculo disponible con ese precio entre el guardado y el indice, para que la otra llegue en medio
+    private CountDownLatch detenerDespuesDeGuardar(long vehiculoId, double precio) {
+        CountDownLatch guardado = new CountDownLatch(1);
+        //el repositorio es un proxy, el espia no tiene metodo real: se llama a la respuesta por defecto, que delega en el proxy
+        Answer<?> repositorio = mockingDetails(vehiculoRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocacion -> {
+            Object resultado = repositorio.answer(invocacion);
+            guardado.countDown();
+            Thread.sleep(300);
+            return resultado;
+        }).when(vehiculoRepository).save(argThat((Vehiculo v) -> v != null && v.getId() == vehiculoId && v.getPrecioPorDia() == precio
+                && Vehiculo.ESTADO_DISPONIBLE.equals(v.getEstado())));
+        return guardado;
+    }
+
+    private VehiculoResumen enIndice(long vehiculoId) {
+        List<VehiculoResumen> resumenes = indicePrecios.buscar(null, null, null, null, null);
+        return resumenes.stream().filter(r -> r.id() == vehiculoId).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,81 @@
+package org.axelgutierrez.piapoo2025.service;
+
+import org.axelgutierrez.piapoo2025.model.Cliente;
+import org.axelgutierrez.piapoo2025.model.Vehiculo;
+import org.axelgutierrez.piapoo2025.repository.ClienteRepository;
+import org.axelgutierrez.piapoo2025.repository.VehiculoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevaReserva;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoCliente;
+import static org.axelgutierrez.piapoo2025.DatosPrueba.nuevoVehiculo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class VehiculoServiceDisponiblesTest {
+
+    @Autowired
+    private ReservaService reservaService;
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+    @Autowired
+    private ClienteRepository clienteRepository;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void obtenerDisponibles_deberiaExcluirReservadosEnMantenimientoYCarosYPaginarPorId() throws Exception {
+        Vehiculo libre = vehiculoRepository.save(vehiculo(Vehiculo.ESTADO_DISPONIBLE, 500.0));
+        Vehiculo reservado = vehiculoRepository.save(vehiculo(Vehiculo.ESTADO_DISPONIBLE, 500.0));
+        vehiculoRepository.save(vehiculo(Vehiculo.ESTADO_MANTENIMIENTO, 500.0));
+        Vehiculo caro = vehiculoRepository.save(vehiculo(Vehiculo.ESTADO_DISPONIBLE, 900.0));
+        Vehiculo barato = vehiculoRepository.save(vehiculo(Vehiculo.ESTADO_DISPONIBLE, 400.0));
+        Cliente cliente = clienteRepository.save(nuevoCliente());
+        reservaService.guardar(nuevaReserva(cliente, reservado, LocalDate.of(2026, 8, 2), LocalDate.of(2026, 8, 4)));
+        String despuesDeLosAnteriores = "" + (libre.getId() - 1); //los vehiculos de otras pruebas quedan antes del cursor
+
+        mockMvc.perform(get("/vehiculos/disponibles").param("inicio", "2026-08-03").param("fin", "2026-08-05")
+                        .param("precioMax", "600").param("after", despuesDeLosAnteriores).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(1)))
+                .andExpect(jsonPath("$.elementos[0].id").value(libre.getId()))
+                .andExpect(jsonPath("$.siguienteCursor").value(libre.getId()));
+        mockMvc.perform(get("/vehiculos/disponibles").param("inicio", "2026-08-03").param("fin", "2026-08-05")
+                        .param("precioMax", "600").param("after", "" + libre.getId()).param("limit", "1"))
+                .andExpect(jsonPath("$.elementos", hasSize(1)))
+                .andExpect(jsonPath("$.elementos[0].id").value(barato.getId())) //el reservado, el de mantenimiento y el caro no salen
+                .andExpect(jsonPath("$.siguienteCursor").doesNotExist());
+
+        //sin precio maximo sale el caro; un dia despues de la reserva tambien el reservado
+        mockMvc.perform(get("/vehiculos/disponibles").param("inicio", "2026-08-05").param("fin", "2026-08-06")
+                        .param("after", despuesDeLosAnteriores))
+                .andExpect(jsonPath("$.elementos", hasSize(4)))
+                .andExpect(jsonPath("$.elementos[1].id").value(reservado.getId()))
+                .andExpect(jsonPath("$.elementos[2].id").value(caro.getId()))
+                .andExpect(jsonPath("$.siguienteCursor").doesNotExist());
+        mockMvc.perform(get("/vehiculos/disponibles").param("inicio", "2026-08-05").param("fin", "2026-08-06")
+                        .param("after", "" + barato.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(0))) //ultima pagina vacia
+                .andExpect(jsonPath("$.siguienteCursor").doesNotExist());
+        mockMvc.perform(get("/vehiculos/disponibles").param("inicio", "2026-08-06").param("fin", "2026-08-05"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Vehiculo vehiculo(String estado, double precioPorDia) {
+        Vehiculo vehiculo = nuevoVehiculo();
+        vehiculo.setEstado(estado);
+        vehiculo.setPrecioPorDia(precioPorDia);
+        return vehiculo;
+    }
+}